@@ -0,0 +1,80 @@
+package com.rainbow.kam.ble_gatt_manager.broadcast;
+
+import android.bluetooth.BluetoothAdapter;
+
+import com.google.common.base.MoreObjects;
+import com.rainbow.kam.ble_gatt_manager.model.MacAddress;
+
+/**
+ * One adapter, link or bond broadcast as published by the {@link BluetoothEventBus}.
+ */
+public class BluetoothEvent {
+
+    public enum Type {
+        ADAPTER_STATE_CHANGED, ACL_CONNECTED, ACL_DISCONNECTED, BOND_STATE_CHANGED
+    }
+
+    public static final int NO_STATE = -1;
+
+    private final Type type;
+    private final long addressBits;
+    private final int state;
+    private final int previousState;
+
+
+    BluetoothEvent(Type type, long addressBits, int state, int previousState) {
+        this.type = type;
+        this.addressBits = addressBits;
+        this.state = state;
+        this.previousState = previousState;
+    }
+
+
+    public Type getType() {
+        return type;
+    }
+
+
+    /**
+     * The packed address of the device, {@link MacAddress#NONE} for adapter events.
+     */
+    public long getAddressBits() {
+        return addressBits;
+    }
+
+
+    public String getAddress() {
+        return addressBits != MacAddress.NONE ? MacAddress.format(addressBits) : null;
+    }
+
+
+    /**
+     * {@code BluetoothAdapter.STATE_*} or {@code BluetoothDevice.BOND_*}, {@link #NO_STATE} for link events.
+     */
+    public int getState() {
+        return state;
+    }
+
+
+    public int getPreviousState() {
+        return previousState;
+    }
+
+
+    /**
+     * Whether the adapter is turning or turned off, after which no link is usable.
+     */
+    public boolean isAdapterOff() {
+        return type == Type.ADAPTER_STATE_CHANGED
+                && (state == BluetoothAdapter.STATE_TURNING_OFF || state == BluetoothAdapter.STATE_OFF);
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("type", type)
+                .add("address", getAddress())
+                .add("state", state)
+                .add("previousState", previousState).toString();
+    }
+}
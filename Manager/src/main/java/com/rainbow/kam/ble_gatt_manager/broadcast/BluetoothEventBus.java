@@ -0,0 +1,180 @@
+package com.rainbow.kam.ble_gatt_manager.broadcast;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothManager;
+import android.bluetooth.BluetoothProfile;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+
+import com.google.common.base.MoreObjects;
+import com.rainbow.kam.ble_gatt_manager.model.BleDevice;
+import com.rainbow.kam.ble_gatt_manager.model.MacAddress;
+import com.rainbow.kam.ble_gatt_manager.util.LongHashSet;
+
+import rx.Observable;
+import rx.subjects.PublishSubject;
+import rx.subjects.Subject;
+
+/**
+ * The one receiver of the process for adapter state, ACL link and bond broadcasts, and the in-memory view
+ * they maintain.
+ * <pre>{@code
+ * BluetoothEventBus eventBus = BluetoothEventBus.shared(context);
+ * eventBus.isEnabled();
+ * eventBus.observeEvents().filter(BluetoothEvent::isAdapterOff).subscribe(event -> ...);
+ * }</pre>
+ * The adapter state and the connected devices are read from the system once, when the bus is created;
+ * afterwards the getters only read what the broadcasts left, without any IPC.
+ * Events are published on the main thread.
+ */
+public class BluetoothEventBus {
+
+    private static volatile BluetoothEventBus shared;
+
+    private final Subject<BluetoothEvent, BluetoothEvent> events = PublishSubject.<BluetoothEvent>create().toSerialized();
+    private final LongHashSet connectedAddresses = new LongHashSet();
+    private volatile int adapterState = BluetoothAdapter.STATE_OFF;
+
+    private final BroadcastReceiver receiver = new BroadcastReceiver() {
+        @Override public void onReceive(Context context, Intent intent) {
+            String action = intent.getAction();
+            if (BluetoothAdapter.ACTION_STATE_CHANGED.equals(action)) {
+                publish(new BluetoothEvent(BluetoothEvent.Type.ADAPTER_STATE_CHANGED, MacAddress.NONE,
+                        intent.getIntExtra(BluetoothAdapter.EXTRA_STATE, BluetoothAdapter.STATE_OFF),
+                        intent.getIntExtra(BluetoothAdapter.EXTRA_PREVIOUS_STATE, BluetoothEvent.NO_STATE)));
+                return;
+            }
+            BluetoothDevice device = intent.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
+            if (device == null) {
+                return;
+            }
+            long address = MacAddress.pack(device.getAddress());
+            if (BluetoothDevice.ACTION_ACL_CONNECTED.equals(action)) {
+                publish(new BluetoothEvent(BluetoothEvent.Type.ACL_CONNECTED, address, BluetoothEvent.NO_STATE, BluetoothEvent.NO_STATE));
+            } else if (BluetoothDevice.ACTION_ACL_DISCONNECTED.equals(action)) {
+                publish(new BluetoothEvent(BluetoothEvent.Type.ACL_DISCONNECTED, address, BluetoothEvent.NO_STATE, BluetoothEvent.NO_STATE));
+            } else if (BluetoothDevice.ACTION_BOND_STATE_CHANGED.equals(action)) {
+                publish(new BluetoothEvent(BluetoothEvent.Type.BOND_STATE_CHANGED, address,
+                        intent.getIntExtra(BluetoothDevice.EXTRA_BOND_STATE, BluetoothDevice.BOND_NONE),
+                        intent.getIntExtra(BluetoothDevice.EXTRA_PREVIOUS_BOND_STATE, BluetoothEvent.NO_STATE)));
+            }
+        }
+    };
+
+
+    BluetoothEventBus(Context context) {
+        IntentFilter intentFilter = new IntentFilter(BluetoothAdapter.ACTION_STATE_CHANGED);
+        intentFilter.addAction(BluetoothDevice.ACTION_ACL_CONNECTED);
+        intentFilter.addAction(BluetoothDevice.ACTION_ACL_DISCONNECTED);
+        intentFilter.addAction(BluetoothDevice.ACTION_BOND_STATE_CHANGED);
+        context.registerReceiver(receiver, intentFilter);
+
+        BluetoothManager bluetoothManager = (BluetoothManager) context.getSystemService(Context.BLUETOOTH_SERVICE);
+        BluetoothAdapter bluetoothAdapter = bluetoothManager != null ? bluetoothManager.getAdapter() : null;
+        if (bluetoothAdapter != null) {
+            adapterState = bluetoothAdapter.getState();
+            if (adapterState == BluetoothAdapter.STATE_ON) {
+                synchronized (this) {
+                    for (BluetoothDevice device : bluetoothManager.getConnectedDevices(BluetoothProfile.GATT)) {
+                        connectedAddresses.add(MacAddress.pack(device.getAddress()));
+                    }
+                }
+            }
+        }
+    }
+
+
+    public static BluetoothEventBus shared(Context context) {
+        BluetoothEventBus eventBus = shared;
+        if (eventBus == null) {
+            synchronized (BluetoothEventBus.class) {
+                eventBus = shared;
+                if (eventBus == null) {
+                    eventBus = new BluetoothEventBus(context.getApplicationContext());
+                    shared = eventBus;
+                }
+            }
+        }
+        return eventBus;
+    }
+
+
+    /**
+     * Every event from now on, after the view was updated for it.
+     */
+    public Observable<BluetoothEvent> observeEvents() {
+        return events.asObservable();
+    }
+
+
+    /**
+     * The current adapter state, then every change of it.
+     */
+    public Observable<Integer> observeAdapterState() {
+        return Observable.defer(() -> events
+                .filter(event -> event.getType() == BluetoothEvent.Type.ADAPTER_STATE_CHANGED)
+                .map(BluetoothEvent::getState)
+                .startWith(adapterState));
+    }
+
+
+    public int getAdapterState() {
+        return adapterState;
+    }
+
+
+    public boolean isEnabled() {
+        return adapterState == BluetoothAdapter.STATE_ON;
+    }
+
+
+    /**
+     * Whether the device has an ACL link, that is, any connection to this phone.
+     */
+    public synchronized boolean isConnected(long addressBits) {
+        return connectedAddresses.contains(addressBits);
+    }
+
+
+    public boolean isConnected(BleDevice bleDevice) {
+        return isConnected(bleDevice.getAddressBits());
+    }
+
+
+    public synchronized int getConnectedCount() {
+        return connectedAddresses.size();
+    }
+
+
+    private void publish(BluetoothEvent event) {
+        synchronized (this) {
+            switch (event.getType()) {
+                case ADAPTER_STATE_CHANGED:
+                    adapterState = event.getState();
+                    if (event.isAdapterOff()) {
+                        connectedAddresses.clear();
+                    }
+                    break;
+                case ACL_CONNECTED:
+                    connectedAddresses.add(event.getAddressBits());
+                    break;
+                case ACL_DISCONNECTED:
+                    connectedAddresses.remove(event.getAddressBits());
+                    break;
+                default:
+                    break;
+            }
+        }
+        events.onNext(event);
+    }
+
+
+    @Override public synchronized String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("adapterState", adapterState)
+                .add("connectedCount", connectedAddresses.size()).toString();
+    }
+}
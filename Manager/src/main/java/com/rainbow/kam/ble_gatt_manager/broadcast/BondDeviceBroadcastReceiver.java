@@ -16,7 +16,10 @@ import rx.subscriptions.Subscriptions;
 
 /**
  * Created by Kang Young Won on 2016-06-24.
+ *
+ * @deprecated registers a receiver per subscription; use {@link BondStateMultiplexer#observeBond}.
  */
+@Deprecated
 public class BondDeviceBroadcastReceiver implements Observable.OnSubscribe<BluetoothDevice> {
     private final Context context;
     private final IntentFilter intentFilter;
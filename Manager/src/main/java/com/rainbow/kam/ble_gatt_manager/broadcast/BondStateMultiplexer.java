@@ -0,0 +1,212 @@
+package com.rainbow.kam.ble_gatt_manager.broadcast;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothManager;
+import android.content.Context;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.rainbow.kam.ble_gatt_manager.exceptions.gatt.GattException;
+import com.rainbow.kam.ble_gatt_manager.model.BleDevice;
+import com.rainbow.kam.ble_gatt_manager.model.MacAddress;
+import com.rainbow.kam.ble_gatt_manager.util.LongHashMap;
+import com.rainbow.kam.ble_gatt_manager.util.LongHashSet;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import rx.Observable;
+import rx.Subscriber;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * Hands every bond state broadcast of the {@link BluetoothEventBus} only to the subscribers of the device
+ * it is about.
+ * <pre>{@code
+ * BondStateMultiplexer.shared(context)
+ *         .observeBondAll(bleDevices, 2)
+ *         .subscribe(bondedDevice -> ..., throwable -> ...);
+ * }</pre>
+ * The multiplexer follows the bus for the life of the process, which also keeps the set of bonded devices
+ * current without asking the system again.
+ */
+public class BondStateMultiplexer {
+
+    public static final String NOT_BONDED = "NOT BONDED";
+
+    private static volatile BondStateMultiplexer shared;
+
+    private final LongHashMap<List<Subscriber<? super Integer>>> subscribers = new LongHashMap<>();
+    private final LongHashSet bondedAddresses = new LongHashSet();
+
+
+    BondStateMultiplexer(Context context, BluetoothEventBus eventBus) {
+        eventBus.observeEvents()
+                .filter(event -> event.getType() == BluetoothEvent.Type.BOND_STATE_CHANGED)
+                .subscribe(event -> onBondStateChanged(event.getAddressBits(), event.getState()));
+        BluetoothManager bluetoothManager = (BluetoothManager) context.getSystemService(Context.BLUETOOTH_SERVICE);
+        BluetoothAdapter bluetoothAdapter = bluetoothManager != null ? bluetoothManager.getAdapter() : null;
+        if (bluetoothAdapter != null && eventBus.isEnabled()) {
+            synchronized (this) {
+                for (BluetoothDevice device : bluetoothAdapter.getBondedDevices()) {
+                    bondedAddresses.add(MacAddress.pack(device.getAddress()));
+                }
+            }
+        }
+    }
+
+
+    public static BondStateMultiplexer shared(Context context) {
+        BondStateMultiplexer multiplexer = shared;
+        if (multiplexer == null) {
+            synchronized (BondStateMultiplexer.class) {
+                multiplexer = shared;
+                if (multiplexer == null) {
+                    multiplexer = new BondStateMultiplexer(context, BluetoothEventBus.shared(context));
+                    shared = multiplexer;
+                }
+            }
+        }
+        return multiplexer;
+    }
+
+
+    /**
+     * Every bond state broadcast for {@code bleDevice}, as {@code BluetoothDevice.BOND_*}, until unsubscribed.
+     */
+    public Observable<Integer> observeBondState(BleDevice bleDevice) {
+        return Observable.create(new BondStateOnSubscribe(bleDevice, false));
+    }
+
+
+    /**
+     * Creates a bond with {@code bleDevice}. Emits the device while bonding and completes once bonded, right away
+     * when it already is; fails with a {@link GattException} when bonding fails or cannot be started.
+     */
+    public Observable<BluetoothDevice> observeBond(BleDevice bleDevice) {
+        return Observable.defer(() -> {
+            if (isBonded(bleDevice)) {
+                return Observable.empty();
+            }
+            return Observable.create(new BondStateOnSubscribe(bleDevice, true))
+                    .takeUntil(bondState -> bondState != BluetoothDevice.BOND_BONDING)
+                    .flatMap(bondState -> {
+                        switch (bondState) {
+                            case BluetoothDevice.BOND_BONDING:
+                                return Observable.just(bleDevice.getDevice());
+                            case BluetoothDevice.BOND_BONDED:
+                                return Observable.empty();
+                            default:
+                                return Observable.error(new GattException(NOT_BONDED + " " + bleDevice.getAddress()));
+                        }
+                    });
+        });
+    }
+
+
+    /**
+     * Bonds every device of {@code bleDevices}, at most {@code maxConcurrent} at a time, and emits each one
+     * once it is bonded. Failures do not stop the others; they are reported together when all are done.
+     */
+    public Observable<BleDevice> observeBondAll(Iterable<BleDevice> bleDevices, int maxConcurrent) {
+        Preconditions.checkArgument(maxConcurrent > 0, "maxConcurrent must be positive");
+        return Observable.mergeDelayError(Observable.from(bleDevices)
+                .map(bleDevice -> observeBond(bleDevice).ignoreElements()
+                        .cast(BleDevice.class)
+                        .concatWith(Observable.just(bleDevice))), maxConcurrent);
+    }
+
+
+    public synchronized boolean isBonded(BleDevice bleDevice) {
+        return bondedAddresses.contains(bleDevice.getAddressBits());
+    }
+
+
+    public synchronized int getBondedCount() {
+        return bondedAddresses.size();
+    }
+
+
+    private void onBondStateChanged(long address, int bondState) {
+        List<Subscriber<? super Integer>> deviceSubscribers;
+        synchronized (this) {
+            if (bondState == BluetoothDevice.BOND_BONDED) {
+                bondedAddresses.add(address);
+            } else {
+                bondedAddresses.remove(address);
+            }
+            deviceSubscribers = subscribers.get(address);
+        }
+        if (deviceSubscribers != null) {
+            for (Subscriber<? super Integer> subscriber : deviceSubscribers) {
+                subscriber.onNext(bondState);
+            }
+        }
+    }
+
+
+    private synchronized void register(long address, Subscriber<? super Integer> subscriber) {
+        List<Subscriber<? super Integer>> deviceSubscribers = subscribers.get(address);
+        if (deviceSubscribers == null) {
+            deviceSubscribers = new CopyOnWriteArrayList<>();
+            subscribers.put(address, deviceSubscribers);
+        }
+        deviceSubscribers.add(subscriber);
+    }
+
+
+    private synchronized void unregister(long address, Subscriber<? super Integer> subscriber) {
+        List<Subscriber<? super Integer>> deviceSubscribers = subscribers.get(address);
+        if (deviceSubscribers != null && deviceSubscribers.remove(subscriber) && deviceSubscribers.isEmpty()) {
+            subscribers.remove(address);
+        }
+    }
+
+
+    @Override public synchronized String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("observedDevices", subscribers.size())
+                .add("bondedCount", bondedAddresses.size()).toString();
+    }
+
+
+    private class BondStateOnSubscribe implements Observable.OnSubscribe<Integer> {
+
+        private final BleDevice bleDevice;
+        private final boolean createBond;
+
+
+        BondStateOnSubscribe(BleDevice bleDevice, boolean createBond) {
+            this.bleDevice = bleDevice;
+            this.createBond = createBond;
+        }
+
+
+        @Override public void call(Subscriber<? super Integer> subscriber) {
+            long address = bleDevice.getAddressBits();
+            Subscriber<Integer> deviceSubscriber = new Subscriber<Integer>(subscriber) {
+                @Override public void onNext(Integer bondState) {
+                    bleDevice.updateBondState(bondState);
+                    subscriber.onNext(bondState);
+                }
+
+
+                @Override public void onError(Throwable e) {
+                    subscriber.onError(e);
+                }
+
+
+                @Override public void onCompleted() {
+                    subscriber.onCompleted();
+                }
+            };
+            register(address, deviceSubscriber);
+            subscriber.add(Subscriptions.create(() -> unregister(address, deviceSubscriber)));
+            if (createBond && !bleDevice.getDevice().createBond()
+                    && bleDevice.getDevice().getBondState() != BluetoothDevice.BOND_BONDING) {
+                deviceSubscriber.onNext(bleDevice.getDevice().getBondState());
+            }
+        }
+    }
+}
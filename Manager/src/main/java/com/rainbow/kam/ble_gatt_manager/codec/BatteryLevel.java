@@ -0,0 +1,41 @@
+package com.rainbow.kam.ble_gatt_manager.codec;
+
+import com.google.common.base.MoreObjects;
+import com.rainbow.kam.ble_gatt_manager.model.BluetoothGatts;
+
+import java.util.UUID;
+
+/**
+ * Battery Level (0x2A19), in percent.
+ */
+public class BatteryLevel implements ValueParser {
+
+    public static final UUID CHARACTERISTIC_UUID = BluetoothGatts.BATTERY_CHARACTERISTIC_UUID;
+
+    private int level;
+
+
+    @Override public UUID getCharacteristicUuid() {
+        return CHARACTERISTIC_UUID;
+    }
+
+
+    @Override public boolean parse(byte[] value, int offset, int length) {
+        if (length < 1 || GattFormat.uint8(value, offset) > 100) {
+            return false;
+        }
+        level = GattFormat.uint8(value, offset);
+        return true;
+    }
+
+
+    public int getLevel() {
+        return level;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("level", level).toString();
+    }
+}
@@ -0,0 +1,104 @@
+package com.rainbow.kam.ble_gatt_manager.codec;
+
+import com.google.common.base.MoreObjects;
+import com.rainbow.kam.ble_gatt_manager.model.BluetoothGatts;
+
+import java.util.UUID;
+
+/**
+ * CSC Measurement (0x2A5B) of the Cycling Speed and Cadence service.
+ * <p>
+ * Revolutions and event times are cumulative and wrap around; speed and cadence come from the difference
+ * of two measurements.
+ */
+public class CscMeasurement implements ValueParser {
+
+    public static final UUID CHARACTERISTIC_UUID = BluetoothGatts.fromShortUuid(0x2A5B);
+
+    /**
+     * Event times are in 1/1024 seconds.
+     */
+    public static final int EVENT_TIME_RESOLUTION = 1024;
+
+    private static final int FLAG_WHEEL = 0x01;
+    private static final int FLAG_CRANK = 0x02;
+
+    private boolean hasWheel;
+    private long wheelRevolutions;
+    private int lastWheelEventTime;
+    private boolean hasCrank;
+    private int crankRevolutions;
+    private int lastCrankEventTime;
+
+
+    @Override public UUID getCharacteristicUuid() {
+        return CHARACTERISTIC_UUID;
+    }
+
+
+    @Override public boolean parse(byte[] value, int offset, int length) {
+        if (length < 1) {
+            return false;
+        }
+        int end = offset + length;
+        int flags = GattFormat.uint8(value, offset);
+        int position = offset + 1;
+        hasWheel = (flags & FLAG_WHEEL) != 0;
+        if (hasWheel) {
+            if (position + 6 > end) {
+                return false;
+            }
+            wheelRevolutions = GattFormat.uint32(value, position);
+            lastWheelEventTime = GattFormat.uint16(value, position + 4);
+            position += 6;
+        }
+        hasCrank = (flags & FLAG_CRANK) != 0;
+        if (hasCrank) {
+            if (position + 4 > end) {
+                return false;
+            }
+            crankRevolutions = GattFormat.uint16(value, position);
+            lastCrankEventTime = GattFormat.uint16(value, position + 2);
+        }
+        return true;
+    }
+
+
+    public boolean hasWheel() {
+        return hasWheel;
+    }
+
+
+    public long getWheelRevolutions() {
+        return wheelRevolutions;
+    }
+
+
+    public int getLastWheelEventTime() {
+        return lastWheelEventTime;
+    }
+
+
+    public boolean hasCrank() {
+        return hasCrank;
+    }
+
+
+    public int getCrankRevolutions() {
+        return crankRevolutions;
+    }
+
+
+    public int getLastCrankEventTime() {
+        return lastCrankEventTime;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("wheelRevolutions", hasWheel ? wheelRevolutions : null)
+                .add("lastWheelEventTime", hasWheel ? lastWheelEventTime : null)
+                .add("crankRevolutions", hasCrank ? crankRevolutions : null)
+                .add("lastCrankEventTime", hasCrank ? lastCrankEventTime : null).toString();
+    }
+}
@@ -0,0 +1,176 @@
+package com.rainbow.kam.ble_gatt_manager.codec;
+
+import android.bluetooth.BluetoothGattCharacteristic;
+
+/**
+ * Decoders of the SIG value formats, read little endian straight from a payload at an offset without allocating.
+ * <p>
+ * IEEE-11073 {@link #sfloat(byte[], int) SFLOAT} and {@link #float32(byte[], int) FLOAT} decode their reserved
+ * values: NaN and NRes as {@link Float#NaN}, +INFINITY and -INFINITY as the float infinities.
+ * Callers check the payload length; reading past it throws {@link ArrayIndexOutOfBoundsException}.
+ */
+public final class GattFormat {
+
+    private static final int SFLOAT_NAN = 0x07FF;
+    private static final int SFLOAT_NRES = 0x0800;
+    private static final int SFLOAT_POSITIVE_INFINITY = 0x07FE;
+    private static final int SFLOAT_NEGATIVE_INFINITY = 0x0802;
+    private static final int SFLOAT_RESERVED = 0x0801;
+
+    private static final int FLOAT_NAN = 0x007FFFFF;
+    private static final int FLOAT_NRES = 0x00800000;
+    private static final int FLOAT_POSITIVE_INFINITY = 0x007FFFFE;
+    private static final int FLOAT_NEGATIVE_INFINITY = 0x00800002;
+    private static final int FLOAT_RESERVED = 0x00800001;
+
+    private static final int POW10_BIAS = 128;
+    private static final double[] POW10 = new double[256];
+
+    static {
+        for (int i = 0; i < POW10.length; i++) {
+            POW10[i] = Math.pow(10, i - POW10_BIAS);
+        }
+    }
+
+
+    private GattFormat() {
+    }
+
+
+    public static int uint8(byte[] value, int offset) {
+        return value[offset] & 0xFF;
+    }
+
+
+    public static int uint16(byte[] value, int offset) {
+        return (value[offset] & 0xFF) | (value[offset + 1] & 0xFF) << 8;
+    }
+
+
+    public static int uint24(byte[] value, int offset) {
+        return uint16(value, offset) | (value[offset + 2] & 0xFF) << 16;
+    }
+
+
+    public static long uint32(byte[] value, int offset) {
+        return sint32(value, offset) & 0xFFFFFFFFL;
+    }
+
+
+    public static int sint8(byte[] value, int offset) {
+        return value[offset];
+    }
+
+
+    public static int sint16(byte[] value, int offset) {
+        return (short) uint16(value, offset);
+    }
+
+
+    public static int sint24(byte[] value, int offset) {
+        return uint24(value, offset) << 8 >> 8;
+    }
+
+
+    public static int sint32(byte[] value, int offset) {
+        return uint24(value, offset) | value[offset + 3] << 24;
+    }
+
+
+    /**
+     * {@code count} bits, at most 32, starting {@code bitOffset} bits into the little endian field at {@code offset}.
+     */
+    public static int bits(byte[] value, int offset, int bitOffset, int count) {
+        int result = 0;
+        for (int i = 0; i < count; i++) {
+            int bit = bitOffset + i;
+            if ((value[offset + (bit >>> 3)] & (1 << (bit & 7))) != 0) {
+                result |= 1 << i;
+            }
+        }
+        return result;
+    }
+
+
+    public static boolean bit(byte[] value, int offset, int bitOffset) {
+        return (value[offset + (bitOffset >>> 3)] & (1 << (bitOffset & 7))) != 0;
+    }
+
+
+    /**
+     * IEEE-11073 16 bit SFLOAT: a 12 bit signed mantissa and a 4 bit signed exponent of ten.
+     * The special values are only defined with exponent zero.
+     */
+    public static float sfloat(byte[] value, int offset) {
+        int raw = uint16(value, offset);
+        switch (raw) {
+            case SFLOAT_NAN:
+            case SFLOAT_NRES:
+            case SFLOAT_RESERVED:
+                return Float.NaN;
+            case SFLOAT_POSITIVE_INFINITY:
+                return Float.POSITIVE_INFINITY;
+            case SFLOAT_NEGATIVE_INFINITY:
+                return Float.NEGATIVE_INFINITY;
+            default:
+                int exponent = raw << 16 >> 28;
+                return (float) ((raw << 20 >> 20) * POW10[exponent + POW10_BIAS]);
+        }
+    }
+
+
+    /**
+     * IEEE-11073 32 bit FLOAT: a 24 bit signed mantissa and an 8 bit signed exponent of ten.
+     * The special values are only defined with exponent zero.
+     */
+    public static float float32(byte[] value, int offset) {
+        int raw = sint32(value, offset);
+        switch (raw) {
+            case FLOAT_NAN:
+            case FLOAT_NRES:
+            case FLOAT_RESERVED:
+                return Float.NaN;
+            case FLOAT_POSITIVE_INFINITY:
+                return Float.POSITIVE_INFINITY;
+            case FLOAT_NEGATIVE_INFINITY:
+                return Float.NEGATIVE_INFINITY;
+            default:
+                return (float) ((raw << 8 >> 8) * POW10[(raw >> 24) + POW10_BIAS]);
+        }
+    }
+
+
+    /**
+     * Decodes one of the {@code BluetoothGattCharacteristic.FORMAT_*} constants.
+     */
+    public static double decode(int format, byte[] value, int offset) {
+        switch (format) {
+            case BluetoothGattCharacteristic.FORMAT_UINT8:
+                return uint8(value, offset);
+            case BluetoothGattCharacteristic.FORMAT_UINT16:
+                return uint16(value, offset);
+            case BluetoothGattCharacteristic.FORMAT_UINT32:
+                return uint32(value, offset);
+            case BluetoothGattCharacteristic.FORMAT_SINT8:
+                return sint8(value, offset);
+            case BluetoothGattCharacteristic.FORMAT_SINT16:
+                return sint16(value, offset);
+            case BluetoothGattCharacteristic.FORMAT_SINT32:
+                return sint32(value, offset);
+            case BluetoothGattCharacteristic.FORMAT_SFLOAT:
+                return sfloat(value, offset);
+            case BluetoothGattCharacteristic.FORMAT_FLOAT:
+                return float32(value, offset);
+            default:
+                throw new IllegalArgumentException("Unknown format " + format);
+        }
+    }
+
+
+    /**
+     * Bytes taken by a {@code BluetoothGattCharacteristic.FORMAT_*} value.
+     */
+    public static int sizeOf(int format) {
+        return format & 0x0F;
+    }
+}
@@ -0,0 +1,118 @@
+package com.rainbow.kam.ble_gatt_manager.codec;
+
+import com.google.common.base.MoreObjects;
+import com.rainbow.kam.ble_gatt_manager.model.BluetoothGatts;
+
+import java.util.UUID;
+
+/**
+ * Heart Rate Measurement (0x2A37).
+ */
+public class HeartRateMeasurement implements ValueParser {
+
+    public static final UUID CHARACTERISTIC_UUID = BluetoothGatts.fromShortUuid(0x2A37);
+
+    public static final int CONTACT_NOT_SUPPORTED = 0;
+    public static final int CONTACT_NOT_DETECTED = 2;
+    public static final int CONTACT_DETECTED = 3;
+
+    /**
+     * Rr intervals are in 1/1024 seconds.
+     */
+    public static final int RR_INTERVAL_RESOLUTION = 1024;
+
+    private static final int FLAG_UINT16 = 0x01;
+    private static final int FLAG_ENERGY_EXPENDED = 0x08;
+    private static final int FLAG_RR_INTERVALS = 0x10;
+    private static final int MAX_RR_INTERVALS = 9;
+
+    private final int[] rrIntervals = new int[MAX_RR_INTERVALS];
+    private int heartRate;
+    private int sensorContact;
+    private int energyExpended;
+    private int rrIntervalCount;
+
+
+    @Override public UUID getCharacteristicUuid() {
+        return CHARACTERISTIC_UUID;
+    }
+
+
+    @Override public boolean parse(byte[] value, int offset, int length) {
+        if (length < 2) {
+            return false;
+        }
+        int end = offset + length;
+        int flags = GattFormat.uint8(value, offset);
+        int position = offset + 1;
+        if ((flags & FLAG_UINT16) != 0) {
+            if (position + 2 > end) {
+                return false;
+            }
+            heartRate = GattFormat.uint16(value, position);
+            position += 2;
+        } else {
+            heartRate = GattFormat.uint8(value, position++);
+        }
+        sensorContact = GattFormat.bits(value, offset, 1, 2);
+        energyExpended = -1;
+        if ((flags & FLAG_ENERGY_EXPENDED) != 0) {
+            if (position + 2 > end) {
+                return false;
+            }
+            energyExpended = GattFormat.uint16(value, position);
+            position += 2;
+        }
+        rrIntervalCount = 0;
+        if ((flags & FLAG_RR_INTERVALS) != 0) {
+            while (position + 2 <= end && rrIntervalCount < MAX_RR_INTERVALS) {
+                rrIntervals[rrIntervalCount++] = GattFormat.uint16(value, position);
+                position += 2;
+            }
+        }
+        return true;
+    }
+
+
+    public int getHeartRate() {
+        return heartRate;
+    }
+
+
+    /**
+     * One of {@link #CONTACT_NOT_SUPPORTED}, {@link #CONTACT_NOT_DETECTED} or {@link #CONTACT_DETECTED}.
+     */
+    public int getSensorContact() {
+        return sensorContact == 1 ? CONTACT_NOT_SUPPORTED : sensorContact;
+    }
+
+
+    /**
+     * Energy expended in kilojoules, or -1 when not present.
+     */
+    public int getEnergyExpended() {
+        return energyExpended;
+    }
+
+
+    public int getRrIntervalCount() {
+        return rrIntervalCount;
+    }
+
+
+    /**
+     * Rr interval in 1/{@value #RR_INTERVAL_RESOLUTION} seconds, oldest first.
+     */
+    public int getRrInterval(int index) {
+        return rrIntervals[index];
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("heartRate", heartRate)
+                .add("sensorContact", getSensorContact())
+                .add("energyExpended", energyExpended)
+                .add("rrIntervalCount", rrIntervalCount).toString();
+    }
+}
@@ -0,0 +1,105 @@
+package com.rainbow.kam.ble_gatt_manager.codec;
+
+import com.google.common.base.MoreObjects;
+import com.rainbow.kam.ble_gatt_manager.model.BluetoothGatts;
+
+import java.util.UUID;
+
+/**
+ * RSC Measurement (0x2A53) of the Running Speed and Cadence service.
+ */
+public class RscMeasurement implements ValueParser {
+
+    public static final UUID CHARACTERISTIC_UUID = BluetoothGatts.fromShortUuid(0x2A53);
+
+    private static final int FLAG_STRIDE_LENGTH = 0x01;
+    private static final int FLAG_TOTAL_DISTANCE = 0x02;
+    private static final int FLAG_RUNNING = 0x04;
+
+    private int speed;
+    private int cadence;
+    private int strideLength;
+    private long totalDistance;
+    private boolean running;
+
+
+    @Override public UUID getCharacteristicUuid() {
+        return CHARACTERISTIC_UUID;
+    }
+
+
+    @Override public boolean parse(byte[] value, int offset, int length) {
+        if (length < 4) {
+            return false;
+        }
+        int end = offset + length;
+        int flags = GattFormat.uint8(value, offset);
+        speed = GattFormat.uint16(value, offset + 1);
+        cadence = GattFormat.uint8(value, offset + 3);
+        running = (flags & FLAG_RUNNING) != 0;
+        int position = offset + 4;
+        strideLength = -1;
+        if ((flags & FLAG_STRIDE_LENGTH) != 0) {
+            if (position + 2 > end) {
+                return false;
+            }
+            strideLength = GattFormat.uint16(value, position);
+            position += 2;
+        }
+        totalDistance = -1;
+        if ((flags & FLAG_TOTAL_DISTANCE) != 0) {
+            if (position + 4 > end) {
+                return false;
+            }
+            totalDistance = GattFormat.uint32(value, position);
+        }
+        return true;
+    }
+
+
+    /**
+     * Instantaneous speed in meters per second.
+     */
+    public float getSpeed() {
+        return speed / 256f;
+    }
+
+
+    /**
+     * Steps per minute.
+     */
+    public int getCadence() {
+        return cadence;
+    }
+
+
+    /**
+     * Instantaneous stride length in centimeters, or -1 when not present.
+     */
+    public int getStrideLength() {
+        return strideLength;
+    }
+
+
+    /**
+     * Total distance in decimeters, or -1 when not present.
+     */
+    public long getTotalDistance() {
+        return totalDistance;
+    }
+
+
+    public boolean isRunning() {
+        return running;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("speed", getSpeed())
+                .add("cadence", cadence)
+                .add("strideLength", strideLength)
+                .add("totalDistance", totalDistance)
+                .add("running", running).toString();
+    }
+}
@@ -0,0 +1,135 @@
+package com.rainbow.kam.ble_gatt_manager.codec;
+
+import com.google.common.base.MoreObjects;
+import com.rainbow.kam.ble_gatt_manager.model.BluetoothGatts;
+
+import java.util.UUID;
+
+/**
+ * Temperature Measurement (0x2A1C) of the Health Thermometer service.
+ */
+public class TemperatureMeasurement implements ValueParser {
+
+    public static final UUID CHARACTERISTIC_UUID = BluetoothGatts.fromShortUuid(0x2A1C);
+
+    private static final int FLAG_FAHRENHEIT = 0x01;
+    private static final int FLAG_TIMESTAMP = 0x02;
+    private static final int FLAG_TEMPERATURE_TYPE = 0x04;
+    private static final int TIMESTAMP_LENGTH = 7;
+
+    private float temperature;
+    private boolean fahrenheit;
+    private boolean hasTimestamp;
+    private int year;
+    private int month;
+    private int day;
+    private int hours;
+    private int minutes;
+    private int seconds;
+    private int temperatureType;
+
+
+    @Override public UUID getCharacteristicUuid() {
+        return CHARACTERISTIC_UUID;
+    }
+
+
+    @Override public boolean parse(byte[] value, int offset, int length) {
+        if (length < 5) {
+            return false;
+        }
+        int end = offset + length;
+        int flags = GattFormat.uint8(value, offset);
+        temperature = GattFormat.float32(value, offset + 1);
+        fahrenheit = (flags & FLAG_FAHRENHEIT) != 0;
+        int position = offset + 5;
+        hasTimestamp = (flags & FLAG_TIMESTAMP) != 0;
+        if (hasTimestamp) {
+            if (position + TIMESTAMP_LENGTH > end) {
+                return false;
+            }
+            year = GattFormat.uint16(value, position);
+            month = GattFormat.uint8(value, position + 2);
+            day = GattFormat.uint8(value, position + 3);
+            hours = GattFormat.uint8(value, position + 4);
+            minutes = GattFormat.uint8(value, position + 5);
+            seconds = GattFormat.uint8(value, position + 6);
+            position += TIMESTAMP_LENGTH;
+        }
+        temperatureType = -1;
+        if ((flags & FLAG_TEMPERATURE_TYPE) != 0) {
+            if (position + 1 > end) {
+                return false;
+            }
+            temperatureType = GattFormat.uint8(value, position);
+        }
+        return true;
+    }
+
+
+    public float getTemperature() {
+        return temperature;
+    }
+
+
+    public float getTemperatureCelsius() {
+        return fahrenheit ? (temperature - 32) * 5 / 9 : temperature;
+    }
+
+
+    public boolean isFahrenheit() {
+        return fahrenheit;
+    }
+
+
+    public boolean hasTimestamp() {
+        return hasTimestamp;
+    }
+
+
+    public int getYear() {
+        return year;
+    }
+
+
+    public int getMonth() {
+        return month;
+    }
+
+
+    public int getDay() {
+        return day;
+    }
+
+
+    public int getHours() {
+        return hours;
+    }
+
+
+    public int getMinutes() {
+        return minutes;
+    }
+
+
+    public int getSeconds() {
+        return seconds;
+    }
+
+
+    /**
+     * Location of the measurement, 1 armpit to 9 tympanum, or -1 when not present.
+     */
+    public int getTemperatureType() {
+        return temperatureType;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("temperature", temperature)
+                .add("fahrenheit", fahrenheit)
+                .add("hasTimestamp", hasTimestamp)
+                .add("temperatureType", temperatureType).toString();
+    }
+}
@@ -0,0 +1,18 @@
+package com.rainbow.kam.ble_gatt_manager.codec;
+
+import java.util.UUID;
+
+/**
+ * Parses a characteristic value into its own fields, so one instance can be reused for every notification
+ * of a stream without allocating. Instances are not thread safe.
+ */
+public interface ValueParser {
+
+    UUID getCharacteristicUuid();
+
+    /**
+     * Replaces the fields with those of {@code length} bytes at {@code offset}, or returns false and leaves them
+     * undefined when the value is too short for its flags.
+     */
+    boolean parse(byte[] value, int offset, int length);
+}
@@ -6,16 +6,33 @@ package com.rainbow.kam.ble_gatt_manager.exceptions.scan;
 public class ScanException extends Throwable {
     public static final String STATUS_BLE_NOT_SUPPORTED = "STATUS_BLE_NOT_SUPPORTED";
     public static final String STATUS_BLE_NOT_ENABLED = "STATUS_BLE_NOT_ENABLED";
+    public static final String STATUS_SCAN_FAILED = "STATUS_SCAN_FAILED";
     public static final String STATUS_UNKNOWN = "STATUS_UNKNOWN";
 
+    private final int errorCode;
+
 
     public ScanException() {
-        super(STATUS_UNKNOWN);
+        this(STATUS_UNKNOWN);
     }
 
 
     public ScanException(String detailMessage) {
         super(detailMessage);
+        this.errorCode = 0;
     }
-}
 
+
+    /**
+     * @param errorCode one of the {@code ScanCallback.SCAN_FAILED_*} codes
+     */
+    public ScanException(int errorCode) {
+        super(STATUS_SCAN_FAILED);
+        this.errorCode = errorCode;
+    }
+
+
+    public int getErrorCode() {
+        return errorCode;
+    }
+}
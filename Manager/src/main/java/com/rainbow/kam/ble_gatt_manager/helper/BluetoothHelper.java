@@ -10,6 +10,8 @@ import android.os.Build;
 import android.support.v4.app.ActivityCompat;
 import android.support.v4.content.ContextCompat;
 
+import com.rainbow.kam.ble_gatt_manager.broadcast.BluetoothEventBus;
+
 import javax.inject.Inject;
 
 import rx.Observable;
@@ -94,4 +96,14 @@ public class BluetoothHelper {
             subscriber.onCompleted();
         });
     }
+
+
+    /**
+     * Whether the adapter is on, then every change of it, from the shared {@link BluetoothEventBus}.
+     */
+    public Observable<Boolean> observePower(Context context) {
+        return BluetoothEventBus.shared(context).observeAdapterState()
+                .map(state -> state == BluetoothAdapter.STATE_ON)
+                .distinctUntilChanged();
+    }
 }
@@ -0,0 +1,238 @@
+package com.rainbow.kam.ble_gatt_manager.legacy.helper;
+
+import com.google.common.collect.Maps;
+import com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecodeModel;
+import com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecodeRetention;
+import com.rainbow.kam.ble_gatt_manager.legacy.util.RecodeClock;
+import com.rainbow.kam.ble_gatt_manager.util.LongHashSet;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import io.realm.Realm;
+import io.realm.RealmConfiguration;
+import io.realm.RealmResults;
+import io.realm.Sort;
+import rx.Observable;
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+
+import static com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecodeModel.FIELD_DEVICE_ADDRESS;
+import static com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecodeModel.FIELD_ID;
+import static com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecodeRetention.UNLIMITED;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_INDICATION;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_NOTIFICATION;
+
+/**
+ * Enforces a {@link GattRecodeRetention} in small steps on its own thread and Realm instance.
+ * <p>
+ * Every pass reads at most {@link GattRecodeRetention#getBatchSize()} records through bounded id ranges outside
+ * of any transaction, then deletes the ones it picked in one short transaction, so foreground writes on the main
+ * thread only ever wait for one small batch of deletes.
+ * Passes apply, in order: max age, max records, per device quota and downsampling.
+ */
+public class GattRecodeCompactor {
+
+    private final RealmConfiguration configuration;
+    private final GattRecodeRetention retention;
+
+    private final Map<String, Integer> seriesPositions = Maps.newHashMap();
+
+    private long quotaCursor = -1;
+    private long downsampleCursor = -1;
+
+
+    public GattRecodeCompactor(RealmConfiguration configuration, GattRecodeRetention retention) {
+        this.configuration = configuration;
+        this.retention = retention;
+    }
+
+
+    /**
+     * Runs one pass every {@code interval} until unsubscribed and emits the number of records removed by each pass.
+     */
+    public Observable<Integer> observeCompaction(long interval, TimeUnit unit) {
+        return Observable.defer(() -> {
+            final ExecutorService executor = Executors.newSingleThreadExecutor();
+            final Scheduler scheduler = Schedulers.from(executor);
+            final Realm[] realm = new Realm[1];
+            return Observable.interval(0, interval, unit, scheduler)
+                    .map(tick -> {
+                        if (realm[0] == null) {
+                            realm[0] = Realm.getInstance(configuration);
+                        }
+                        return compact(realm[0]);
+                    })
+                    .doOnUnsubscribe(() -> executor.execute(() -> {
+                        if (realm[0] != null) {
+                            realm[0].close();
+                        }
+                        executor.shutdown();
+                    }));
+        });
+    }
+
+
+    /**
+     * Runs a single pass on the calling thread's Realm instance.
+     */
+    public int compact(Realm realm) {
+        long now = RecodeClock.currentTimeNanos();
+        Selection selection = new Selection(retention.getBatchSize());
+        Number maxId = realm.where(GattRecodeModel.class).max(FIELD_ID);
+        if (maxId == null) {
+            return 0;
+        }
+        selectExpired(realm, now, selection);
+        if (retention.getMaxRecordsPerDevice() != UNLIMITED && selection.hasRoom()) {
+            selectOverQuota(realm, maxId.longValue(), selection);
+        }
+        if (retention.getDownsampleAfterNanos() != UNLIMITED && selection.hasRoom()) {
+            selectDownsampled(realm, now - retention.getDownsampleAfterNanos(), maxId.longValue(), selection);
+        }
+        return delete(realm, selection.ids);
+    }
+
+
+    /**
+     * Max age and max records, both of which remove the oldest rows: ids follow write order, so those are at the head.
+     */
+    private void selectExpired(Realm realm, long now, Selection selection) {
+        boolean byAge = retention.getMaxAgeNanos() != UNLIMITED;
+        boolean byCount = retention.getMaxRecords() != UNLIMITED;
+        if (!byAge && !byCount) {
+            return;
+        }
+        long cutoff = byAge ? now - retention.getMaxAgeNanos() : Long.MIN_VALUE;
+        long excess = byCount ? realm.where(GattRecodeModel.class).count() - retention.getMaxRecords() : 0;
+        long minId = realm.where(GattRecodeModel.class).min(FIELD_ID).longValue();
+        RealmResults<GattRecodeModel> head = window(realm, minId - 1, selection.remaining());
+        for (int i = 0, size = head.size(); i < size; i++) {
+            GattRecodeModel candidate = head.get(i);
+            selection.inspected++;
+            if (i >= excess && candidate.getTimestamp() >= cutoff) {
+                break;
+            }
+            selection.ids.add(candidate.getId());
+        }
+    }
+
+
+    /**
+     * Sweeps the table in id order and wraps around, trimming the rows of devices over their quota as it meets them.
+     */
+    private void selectOverQuota(Realm realm, long maxId, Selection selection) {
+        Map<String, Long> excess = Maps.newHashMap();
+        long windowEnd = quotaCursor + selection.remaining();
+        RealmResults<GattRecodeModel> window = window(realm, quotaCursor, selection.remaining());
+        for (int i = 0, size = window.size(); i < size; i++) {
+            GattRecodeModel candidate = window.get(i);
+            selection.inspected++;
+            String address = candidate.getDeviceAddress();
+            if (address == null || selection.ids.contains(candidate.getId())) {
+                continue;
+            }
+            Long deviceExcess = excess.get(address);
+            if (deviceExcess == null) {
+                deviceExcess = realm.where(GattRecodeModel.class).equalTo(FIELD_DEVICE_ADDRESS, address).count()
+                        - retention.getMaxRecordsPerDevice();
+            }
+            if (deviceExcess > 0) {
+                selection.ids.add(candidate.getId());
+            }
+            excess.put(address, deviceExcess - 1);
+        }
+        quotaCursor = windowEnd >= maxId ? -1 : windowEnd;
+    }
+
+
+    /**
+     * Walks notification and indication rows once, in id order, as they age past the downsample threshold.
+     */
+    private void selectDownsampled(Realm realm, long olderThanNanos, long maxId, Selection selection) {
+        int keepOneOf = retention.getDownsampleKeepOneOf();
+        long windowEnd = downsampleCursor + selection.remaining();
+        RealmResults<GattRecodeModel> window = window(realm, downsampleCursor, selection.remaining());
+        for (int i = 0, size = window.size(); i < size; i++) {
+            GattRecodeModel candidate = window.get(i);
+            selection.inspected++;
+            if (candidate.getTimestamp() >= olderThanNanos) {
+                return;
+            }
+            downsampleCursor = candidate.getId();
+            String type = candidate.getGattOperationType();
+            if (!TYPE_NOTIFICATION.equals(type) && !TYPE_INDICATION.equals(type)) {
+                continue;
+            }
+            String series = candidate.getDeviceAddress() + '|' + type + '|' + candidate.getGattOperationUUID();
+            Integer position = seriesPositions.get(series);
+            position = position == null ? 0 : position + 1;
+            seriesPositions.put(series, position);
+            if (position % keepOneOf != 0) {
+                selection.ids.add(candidate.getId());
+            }
+        }
+        downsampleCursor = Math.min(windowEnd, maxId);
+    }
+
+
+    /**
+     * Rows with ids in {@code (afterId, afterId + span]}, at most {@code span} of them.
+     */
+    private RealmResults<GattRecodeModel> window(Realm realm, long afterId, int span) {
+        return realm.where(GattRecodeModel.class)
+                .between(FIELD_ID, afterId + 1, afterId + span)
+                .findAllSorted(FIELD_ID, Sort.ASCENDING);
+    }
+
+
+    /**
+     * The only write transaction of a pass, looking the selected rows up by primary key.
+     */
+    private int delete(Realm realm, LongHashSet ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        realm.beginTransaction();
+        try {
+            int removed = 0;
+            for (long id : ids.toArray()) {
+                GattRecodeModel model = realm.where(GattRecodeModel.class).equalTo(FIELD_ID, id).findFirst();
+                if (model != null) {
+                    model.deleteFromRealm();
+                    removed++;
+                }
+            }
+            realm.commitTransaction();
+            return removed;
+        } catch (RuntimeException e) {
+            realm.cancelTransaction();
+            throw e;
+        }
+    }
+
+
+    private static class Selection {
+
+        private final int batchSize;
+        private final LongHashSet ids = new LongHashSet();
+        private int inspected;
+
+
+        Selection(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+
+        boolean hasRoom() {
+            return inspected < batchSize;
+        }
+
+
+        int remaining() {
+            return batchSize - inspected;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.rainbow.kam.ble_gatt_manager.legacy.helper;
+
+import com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecord;
+
+/**
+ * Storage backend for {@link com.rainbow.kam.ble_gatt_manager.legacy.manager.realm.RealmGattManager}.
+ * Implementations own the given record and must {@link GattRecord#recycle()} it once stored.
+ */
+public interface GattRecoder {
+    void recodeGatt(GattRecord gattRecord);
+
+    void readRecodedGatt();
+}
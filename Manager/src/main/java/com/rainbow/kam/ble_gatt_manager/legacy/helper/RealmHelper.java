@@ -4,25 +4,42 @@ import android.app.Application;
 import android.util.Log;
 
 import com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecodeModel;
+import com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecodePage;
+import com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecodeQuery;
+import com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecodeRetention;
+import com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecord;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import io.realm.Realm;
 import io.realm.RealmConfiguration;
+import io.realm.RealmQuery;
 import io.realm.RealmResults;
+import io.realm.Sort;
 import io.realm.exceptions.RealmMigrationNeededException;
 import rx.Observable;
 import rx.android.schedulers.AndroidSchedulers;
+import rx.observables.SyncOnSubscribe;
 import rx.schedulers.Schedulers;
 
+import static com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecodeModel.FIELD_ID;
+import static com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecodePage.FIRST_CURSOR;
+
 /**
  * Created by Kang Young Won on 2016-06-30.
  */
-public class RealmHelper {
+public class RealmHelper implements GattRecoder {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    private final RealmConfiguration configuration;
     private Realm realmDB;
+    private long nextId;
 
 
     public RealmHelper(Application application) {
-        RealmConfiguration configuration = new RealmConfiguration.Builder(application).deleteRealmIfMigrationNeeded().build();
+        configuration = new RealmConfiguration.Builder(application).deleteRealmIfMigrationNeeded().build();
         try {
             Realm.setDefaultConfiguration(configuration);
             realmDB = Realm.getDefaultInstance();
@@ -30,25 +47,76 @@ public class RealmHelper {
             Realm.deleteRealm(configuration);
             realmDB = Realm.getDefaultInstance();
         }
+        Number lastId = realmDB.where(GattRecodeModel.class).max(FIELD_ID);
+        nextId = lastId != null ? lastId.longValue() + 1 : 0;
     }
 
 
-    public void recodeGatt(GattRecodeModel gattRecodeModel) {
-        Observable.just(realmDB)
+    @Override public void recodeGatt(GattRecord gattRecord) {
+        Observable.just(gattRecord)
                 .subscribeOn(Schedulers.computation())
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(realm -> {
-                    realm.beginTransaction();
-                    realm.copyToRealm(gattRecodeModel);
-                    realm.commitTransaction();
+                .subscribe(record -> {
+                    realmDB.beginTransaction();
+                    realmDB.copyToRealm(GattRecodeModel.from(nextId++, record));
+                    realmDB.commitTransaction();
+                    record.recycle();
                 });
     }
 
 
-    public void readRecodedGatt() {
-        RealmResults<GattRecodeModel> gattRecodeModels = realmDB.where(GattRecodeModel.class).findAll();
-        for (GattRecodeModel model : gattRecodeModels) {
+    @Override public void readRecodedGatt() {
+        for (GattRecodeModel model : readRecodedGatt(GattRecodeQuery.all(), FIRST_CURSOR, DEFAULT_PAGE_SIZE).getItems()) {
             Log.e("READ", model.toString());
         }
     }
+
+
+    /**
+     * Reads one page of history matching the query, starting after {@code cursor}.
+     * Use {@link GattRecodePage#FIRST_CURSOR} for the first page.
+     */
+    public GattRecodePage readRecodedGatt(GattRecodeQuery query, long cursor, int pageSize) {
+        RealmQuery<GattRecodeModel> realmQuery = query.apply(realmDB.where(GattRecodeModel.class));
+        if (cursor != FIRST_CURSOR) {
+            if (query.isNewestFirst()) {
+                realmQuery.lessThan(FIELD_ID, cursor);
+            } else {
+                realmQuery.greaterThan(FIELD_ID, cursor);
+            }
+        }
+        RealmResults<GattRecodeModel> results = realmQuery.findAllSorted(FIELD_ID, query.isNewestFirst() ? Sort.DESCENDING : Sort.ASCENDING);
+        int size = Math.min(pageSize, results.size());
+        List<GattRecodeModel> items = realmDB.copyFromRealm(results.subList(0, size));
+        long nextCursor = size > 0 ? items.get(size - 1).getId() : cursor;
+        return new GattRecodePage(items, nextCursor, results.size() > size);
+    }
+
+
+    /**
+     * Pages of history matching the query. A page is only read when the subscriber requests it,
+     * so it has to be subscribed and requested on the thread that created this helper.
+     */
+    public Observable<GattRecodePage> observeRecodedGatt(GattRecodeQuery query, int pageSize) {
+        return Observable.create(SyncOnSubscribe.<GattRecodePage, GattRecodePage>createStateful(
+                () -> null,
+                (previous, observer) -> {
+                    if (previous != null && !previous.hasNext()) {
+                        observer.onCompleted();
+                        return previous;
+                    }
+                    GattRecodePage page = readRecodedGatt(query, previous != null ? previous.getNextCursor() : FIRST_CURSOR, pageSize);
+                    observer.onNext(page);
+                    return page;
+                }));
+    }
+
+
+    /**
+     * Keeps the history inside {@code retention}, running one small compaction pass every {@code interval}
+     * on a background thread until unsubscribed.
+     */
+    public Observable<Integer> observeCompaction(GattRecodeRetention retention, long interval, TimeUnit unit) {
+        return new GattRecodeCompactor(configuration, retention).observeCompaction(interval, unit);
+    }
 }
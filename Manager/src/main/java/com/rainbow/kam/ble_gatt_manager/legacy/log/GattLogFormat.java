@@ -0,0 +1,178 @@
+package com.rainbow.kam.ble_gatt_manager.legacy.log;
+
+import com.rainbow.kam.ble_gatt_manager.model.MacAddress;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.Arrays;
+import java.util.Locale;
+
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.BOND_BONDED;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.BOND_BONDING;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.BOND_NONE;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.GATT_FAILURE;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.GATT_SUCCESS;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.STATE_CONNECTED;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.STATE_DISCONNECTED;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_BOND;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_CONNECTION;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_DISCOVER;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_INDICATION;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_INDICATION_EMPTY;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_NOTIFICATION;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_NOTIFICATION_EMPTY;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_READ;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_WRITE;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_WRITE_EMPTY;
+
+/**
+ * On-disk layout of the append-only gatt log.
+ * <p>
+ * A log is a directory of segment files. Every segment starts with a {@value #HEADER_SIZE} byte header
+ * followed by records of a fixed {@value #RECORD_SIZE} byte head, all little endian.
+ * <pre>
+ * header : magic(4) version(2) flags(2) sequence(8) recordCount(4) dataLength(4) crc32(4) reserved(4)
+ * record : timestampNanos(8) address(8) uuidMsb(8) uuidLsb(8) type(1) state(1) flags(2) payloadLength(4)
+ *          [payload(payloadLength) padding to {@value #RECORD_ALIGNMENT} bytes]
+ * </pre>
+ * The payload only follows when the record has {@link #RECORD_HAS_PAYLOAD}.
+ * The header crc covers the data region {@code [HEADER_SIZE, HEADER_SIZE + dataLength)}.
+ */
+final class GattLogFormat {
+
+    static final int MAGIC = 0x54544147; // "GATT"
+    static final short VERSION = 1;
+
+    static final int HEADER_SIZE = 32;
+    static final int HEADER_MAGIC = 0;
+    static final int HEADER_VERSION = 4;
+    static final int HEADER_FLAGS = 6;
+    static final int HEADER_SEQUENCE = 8;
+    static final int HEADER_RECORD_COUNT = 16;
+    static final int HEADER_DATA_LENGTH = 20;
+    static final int HEADER_CRC = 24;
+
+    static final short SEGMENT_SEALED = 0x0001;
+
+    static final int RECORD_SIZE = 40;
+    static final int RECORD_TIMESTAMP = 0;
+    static final int RECORD_ADDRESS = 8;
+    static final int RECORD_UUID_MSB = 16;
+    static final int RECORD_UUID_LSB = 24;
+    static final int RECORD_TYPE = 32;
+    static final int RECORD_STATE = 33;
+    static final int RECORD_FLAGS = 34;
+    static final int RECORD_PAYLOAD_LENGTH = 36;
+
+    static final short RECORD_HAS_UUID = 0x0001;
+    static final short RECORD_HAS_PAYLOAD = 0x0002;
+
+    static final int RECORD_ALIGNMENT = 8;
+
+    static final long NO_ADDRESS = MacAddress.NONE;
+    static final byte NO_CODE = -1;
+
+    static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+    private static final String SEGMENT_PREFIX = "gatt-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final FilenameFilter SEGMENT_FILTER =
+            (dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+
+    private static final String[] OPERATION_TYPES = {
+            TYPE_CONNECTION, TYPE_BOND, TYPE_DISCOVER, TYPE_READ,
+            TYPE_WRITE_EMPTY, TYPE_WRITE,
+            TYPE_NOTIFICATION_EMPTY, TYPE_NOTIFICATION,
+            TYPE_INDICATION_EMPTY, TYPE_INDICATION
+    };
+
+    private static final String[] STATES = {
+            STATE_CONNECTED, STATE_DISCONNECTED,
+            GATT_SUCCESS, GATT_FAILURE,
+            BOND_BONDING, BOND_BONDED, BOND_NONE
+    };
+
+
+
+    private GattLogFormat() {
+    }
+
+
+    /**
+     * Bytes taken by a record, its payload and padding.
+     */
+    static int recordStride(short flags, int payloadLength) {
+        if ((flags & RECORD_HAS_PAYLOAD) == 0) {
+            return RECORD_SIZE;
+        }
+        return RECORD_SIZE + (payloadLength + RECORD_ALIGNMENT - 1) / RECORD_ALIGNMENT * RECORD_ALIGNMENT;
+    }
+
+
+    static byte encodeOperationType(String operationType) {
+        return encode(OPERATION_TYPES, operationType);
+    }
+
+
+    static String decodeOperationType(byte code) {
+        return decode(OPERATION_TYPES, code);
+    }
+
+
+    static byte encodeState(String state) {
+        return encode(STATES, state);
+    }
+
+
+    static String decodeState(byte code) {
+        return decode(STATES, code);
+    }
+
+
+    private static byte encode(String[] table, String value) {
+        if (value != null) {
+            for (int i = 0; i < table.length; i++) {
+                if (table[i].equals(value)) {
+                    return (byte) i;
+                }
+            }
+        }
+        return NO_CODE;
+    }
+
+
+    private static String decode(String[] table, byte code) {
+        return code >= 0 && code < table.length ? table[code] : null;
+    }
+
+
+    static long packAddress(String address) {
+        return MacAddress.pack(address);
+    }
+
+
+    static String formatAddress(long bits) {
+        return MacAddress.format(bits);
+    }
+
+
+    static File segmentFile(File directory, long sequence) {
+        return new File(directory, String.format(Locale.US, "%s%016d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+
+
+    static long segmentSequence(File segment) {
+        String name = segment.getName();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+
+    static File[] listSegments(File directory) {
+        File[] segments = directory.listFiles(SEGMENT_FILTER);
+        if (segments == null) {
+            return new File[0];
+        }
+        Arrays.sort(segments);
+        return segments;
+    }
+}
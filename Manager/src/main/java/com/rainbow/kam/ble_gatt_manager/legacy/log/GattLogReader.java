@@ -0,0 +1,225 @@
+package com.rainbow.kam.ble_gatt_manager.legacy.log;
+
+import com.google.common.base.MoreObjects;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import static com.rainbow.kam.ble_gatt_manager.legacy.log.GattLogFormat.*;
+
+/**
+ * Sequential reader over the segments written by {@link GattLogWriter}.
+ * <p>
+ * The reader is a cursor: {@link #next()} moves to the following record and the getters read the
+ * current record straight from the mapping. Segments whose crc does not match are skipped and counted
+ * in {@link #getCorruptedSegmentCount()}.
+ */
+public class GattLogReader implements Closeable {
+
+    private static final int CRC_CHUNK_SIZE = 4096;
+
+    private final File[] segments;
+    private final byte[] chunk = new byte[CRC_CHUNK_SIZE];
+    private final CRC32 crc = new CRC32();
+
+    private int segmentIndex = -1;
+    private MappedByteBuffer segment;
+    private int dataLength;
+    private int recordOffset;
+    private int corruptedSegmentCount;
+
+
+    public GattLogReader(File directory) {
+        this.segments = listSegments(directory);
+    }
+
+
+    public boolean next() throws IOException {
+        if (segment != null) {
+            int nextOffset = recordOffset + recordStride(getFlags(), getPayloadLength());
+            if (nextOffset > recordOffset && nextOffset + RECORD_SIZE <= dataLength) {
+                recordOffset = nextOffset;
+                return true;
+            }
+        }
+        while (openNextSegment()) {
+            if (dataLength > 0) {
+                recordOffset = 0;
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    public long getTimestampNanos() {
+        return segment.getLong(position(RECORD_TIMESTAMP));
+    }
+
+
+    public long getDeviceAddressBits() {
+        return segment.getLong(position(RECORD_ADDRESS));
+    }
+
+
+    public String getDeviceAddress() {
+        return formatAddress(getDeviceAddressBits());
+    }
+
+
+    public boolean hasOperationUUID() {
+        return (getFlags() & RECORD_HAS_UUID) != 0;
+    }
+
+
+    public long getOperationUUIDMostSignificantBits() {
+        return segment.getLong(position(RECORD_UUID_MSB));
+    }
+
+
+    public long getOperationUUIDLeastSignificantBits() {
+        return segment.getLong(position(RECORD_UUID_LSB));
+    }
+
+
+    public UUID getOperationUUID() {
+        return hasOperationUUID() ? new UUID(getOperationUUIDMostSignificantBits(), getOperationUUIDLeastSignificantBits()) : null;
+    }
+
+
+    public String getOperationType() {
+        return decodeOperationType(segment.get(position(RECORD_TYPE)));
+    }
+
+
+    public String getState() {
+        return decodeState(segment.get(position(RECORD_STATE)));
+    }
+
+
+    public int getPayloadLength() {
+        return segment.getInt(position(RECORD_PAYLOAD_LENGTH));
+    }
+
+
+    /**
+     * Whether the payload bytes were stored, which is the case for every record with a value
+     * unless it did not fit into an empty segment.
+     */
+    public boolean hasPayload() {
+        return (getFlags() & RECORD_HAS_PAYLOAD) != 0;
+    }
+
+
+    /**
+     * Copies the stored payload into {@code destination} and returns its length, or -1 when none was stored.
+     */
+    public int readPayload(byte[] destination) {
+        if (!hasPayload()) {
+            return -1;
+        }
+        int length = getPayloadLength();
+        segment.position(position(RECORD_SIZE));
+        segment.get(destination, 0, length);
+        return length;
+    }
+
+
+    public byte[] getPayload() {
+        if (!hasPayload()) {
+            return null;
+        }
+        byte[] payload = new byte[getPayloadLength()];
+        readPayload(payload);
+        return payload;
+    }
+
+
+    public int getCorruptedSegmentCount() {
+        return corruptedSegmentCount;
+    }
+
+
+    @Override public void close() {
+        segment = null;
+        segmentIndex = segments.length;
+    }
+
+
+    private short getFlags() {
+        return segment.getShort(position(RECORD_FLAGS));
+    }
+
+
+    private int position(int field) {
+        return HEADER_SIZE + recordOffset + field;
+    }
+
+
+    private boolean openNextSegment() throws IOException {
+        segment = null;
+        while (++segmentIndex < segments.length) {
+            MappedByteBuffer candidate = map(segments[segmentIndex]);
+            if (candidate != null && isValid(candidate)) {
+                segment = candidate;
+                dataLength = candidate.getInt(HEADER_DATA_LENGTH);
+                return true;
+            }
+            corruptedSegmentCount++;
+        }
+        return false;
+    }
+
+
+    private MappedByteBuffer map(File file) throws IOException {
+        try (RandomAccessFile segmentFile = new RandomAccessFile(file, "r")) {
+            if (segmentFile.length() < HEADER_SIZE) {
+                return null;
+            }
+            MappedByteBuffer buffer = segmentFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, segmentFile.length());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+
+    private boolean isValid(MappedByteBuffer candidate) {
+        if (candidate.getInt(HEADER_MAGIC) != MAGIC || candidate.getShort(HEADER_VERSION) != VERSION) {
+            return false;
+        }
+        int length = candidate.getInt(HEADER_DATA_LENGTH);
+        if (length < 0 || length % RECORD_ALIGNMENT != 0 || HEADER_SIZE + length > candidate.capacity()) {
+            return false;
+        }
+        crc.reset();
+        candidate.position(HEADER_SIZE);
+        for (int remaining = length; remaining > 0; ) {
+            int size = Math.min(remaining, CRC_CHUNK_SIZE);
+            candidate.get(chunk, 0, size);
+            crc.update(chunk, 0, size);
+            remaining -= size;
+        }
+        return (int) crc.getValue() == candidate.getInt(HEADER_CRC);
+    }
+
+
+    @Override public String toString() {
+        if (segment == null) {
+            return MoreObjects.toStringHelper(this).add("segment", null).toString();
+        }
+        return MoreObjects.toStringHelper(this)
+                .add("timestampNanos", getTimestampNanos())
+                .add("deviceAddress", getDeviceAddress())
+                .add("operationType", getOperationType())
+                .add("operationUUID", getOperationUUID())
+                .add("state", getState())
+                .add("payloadLength", getPayloadLength()).toString();
+    }
+}
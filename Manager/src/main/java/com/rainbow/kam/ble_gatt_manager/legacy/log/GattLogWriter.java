@@ -0,0 +1,264 @@
+package com.rainbow.kam.ble_gatt_manager.legacy.log;
+
+import android.util.Log;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.rainbow.kam.ble_gatt_manager.legacy.helper.GattRecoder;
+import com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecord;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import static com.rainbow.kam.ble_gatt_manager.legacy.log.GattLogFormat.*;
+
+/**
+ * {@link GattRecoder} writing fixed layout records into memory mapped, append-only segment files.
+ * <p>
+ * Appending only copies the record and its payload into the mapping and refreshes the
+ * segment header, so a process crash loses nothing that was appended. {@link #flush()} forces the
+ * mapping to the device for power loss safety. A full segment is sealed and the next one is created.
+ */
+public class GattLogWriter implements GattRecoder, Closeable {
+
+    private static final String TAG = GattLogWriter.class.getSimpleName();
+
+    private final File directory;
+    private final int segmentSize;
+
+    private static final byte[] PADDING = new byte[RECORD_ALIGNMENT];
+
+    private final byte[] recordBytes = new byte[RECORD_SIZE];
+    private final ByteBuffer recordBuffer = ByteBuffer.wrap(recordBytes).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32 crc = new CRC32();
+
+    private RandomAccessFile segmentFile;
+    private MappedByteBuffer segment;
+    private long sequence;
+    private int recordCount;
+    private int dataLength;
+    private boolean closed;
+
+
+    public GattLogWriter(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+
+    public GattLogWriter(File directory, int segmentSize) throws IOException {
+        Preconditions.checkArgument(segmentSize >= HEADER_SIZE + RECORD_SIZE, "segmentSize too small");
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("can not create log directory " + directory);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        openLastSegment();
+    }
+
+
+    /**
+     * Appends the record, or drops it once the log is closed, and recycles it either way.
+     */
+    @Override public synchronized void recodeGatt(GattRecord gattRecord) {
+        try {
+            if (!closed) {
+                append(gattRecord);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "append failed", e);
+        } finally {
+            gattRecord.recycle();
+        }
+    }
+
+
+    @Override public void readRecodedGatt() {
+        flush();
+        try (GattLogReader reader = new GattLogReader(directory)) {
+            while (reader.next()) {
+                Log.e("READ", reader.toString());
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "read failed", e);
+        }
+    }
+
+
+    public synchronized void append(GattRecord gattRecord) throws IOException {
+        Preconditions.checkState(!closed, "log is closed");
+        UUID uuid = gattRecord.getOperationUUID();
+        byte[] payload = gattRecord.getPayload();
+        short flags = uuid != null ? RECORD_HAS_UUID : 0;
+        if (payload != null && HEADER_SIZE + recordStride(RECORD_HAS_PAYLOAD, payload.length) <= segmentSize) {
+            flags |= RECORD_HAS_PAYLOAD;
+        }
+        int stride = recordStride(flags, gattRecord.getPayloadLength());
+        if (HEADER_SIZE + dataLength + stride > segment.capacity()) {
+            rollOver();
+        }
+        recordBuffer.clear();
+        recordBuffer.putLong(RECORD_TIMESTAMP, gattRecord.getTimestampNanos());
+        recordBuffer.putLong(RECORD_ADDRESS, packAddress(gattRecord.getDeviceAddress()));
+        recordBuffer.putLong(RECORD_UUID_MSB, uuid != null ? uuid.getMostSignificantBits() : 0);
+        recordBuffer.putLong(RECORD_UUID_LSB, uuid != null ? uuid.getLeastSignificantBits() : 0);
+        recordBuffer.put(RECORD_TYPE, encodeOperationType(gattRecord.getOperationType()));
+        recordBuffer.put(RECORD_STATE, encodeState(gattRecord.getState()));
+        recordBuffer.putShort(RECORD_FLAGS, flags);
+        recordBuffer.putInt(RECORD_PAYLOAD_LENGTH, gattRecord.getPayloadLength());
+
+        segment.position(HEADER_SIZE + dataLength);
+        segment.put(recordBytes, 0, RECORD_SIZE);
+        crc.update(recordBytes, 0, RECORD_SIZE);
+        if ((flags & RECORD_HAS_PAYLOAD) != 0) {
+            int padding = stride - RECORD_SIZE - payload.length;
+            segment.put(payload);
+            segment.put(PADDING, 0, padding);
+            crc.update(payload, 0, payload.length);
+            crc.update(PADDING, 0, padding);
+        }
+        recordCount++;
+        dataLength += stride;
+        writeHeader((short) 0);
+    }
+
+
+    public synchronized void flush() {
+        if (!closed) {
+            segment.force();
+        }
+    }
+
+
+    @Override public synchronized void close() throws IOException {
+        if (!closed) {
+            seal();
+            closed = true;
+        }
+    }
+
+
+    private void openLastSegment() throws IOException {
+        File[] segments = listSegments(directory);
+        if (segments.length == 0) {
+            createSegment(0);
+            return;
+        }
+        File lastSegment = segments[segments.length - 1];
+        sequence = segmentSequence(lastSegment);
+        long length = lastSegment.length();
+        if (length < HEADER_SIZE + RECORD_SIZE || length > Integer.MAX_VALUE) {
+            createSegment(sequence + 1);
+            return;
+        }
+        segmentFile = new RandomAccessFile(lastSegment, "rw");
+        segment = map(segmentFile, (int) length);
+        boolean appendable = segment.getInt(HEADER_MAGIC) == MAGIC
+                && segment.getShort(HEADER_VERSION) == VERSION
+                && (segment.getShort(HEADER_FLAGS) & SEGMENT_SEALED) == 0
+                && segment.getInt(HEADER_DATA_LENGTH) >= 0
+                && segment.getInt(HEADER_DATA_LENGTH) <= length - HEADER_SIZE;
+        if (!appendable) {
+            closeSegment();
+            createSegment(sequence + 1);
+            return;
+        }
+        recordCount = segment.getInt(HEADER_RECORD_COUNT);
+        dataLength = segment.getInt(HEADER_DATA_LENGTH);
+        crc.reset();
+        segment.position(HEADER_SIZE);
+        for (int remaining = dataLength; remaining > 0; ) {
+            int size = Math.min(remaining, RECORD_SIZE);
+            segment.get(recordBytes, 0, size);
+            crc.update(recordBytes, 0, size);
+            remaining -= size;
+        }
+        writeHeader((short) 0);
+    }
+
+
+    /**
+     * Maps the next segment before sealing the current one, so a failure leaves the current segment in place.
+     */
+    private void rollOver() throws IOException {
+        RandomAccessFile nextFile = new RandomAccessFile(segmentFile(directory, sequence + 1), "rw");
+        MappedByteBuffer nextSegment;
+        try {
+            nextSegment = map(nextFile, segmentSize);
+        } catch (IOException e) {
+            nextFile.close();
+            throw e;
+        }
+        try {
+            seal();
+        } finally {
+            segmentFile = nextFile;
+            segment = nextSegment;
+            initSegment(sequence + 1);
+        }
+    }
+
+
+    private void createSegment(long newSequence) throws IOException {
+        segmentFile = new RandomAccessFile(segmentFile(directory, newSequence), "rw");
+        segment = map(segmentFile, segmentSize);
+        initSegment(newSequence);
+    }
+
+
+    private void initSegment(long newSequence) {
+        sequence = newSequence;
+        recordCount = 0;
+        dataLength = 0;
+        crc.reset();
+        segment.putInt(HEADER_MAGIC, MAGIC);
+        segment.putShort(HEADER_VERSION, VERSION);
+        segment.putLong(HEADER_SEQUENCE, sequence);
+        writeHeader((short) 0);
+    }
+
+
+    private static MappedByteBuffer map(RandomAccessFile file, int size) throws IOException {
+        MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+
+    private void writeHeader(short flags) {
+        segment.putShort(HEADER_FLAGS, flags);
+        segment.putInt(HEADER_RECORD_COUNT, recordCount);
+        segment.putInt(HEADER_DATA_LENGTH, dataLength);
+        segment.putInt(HEADER_CRC, (int) crc.getValue());
+    }
+
+
+    private void seal() throws IOException {
+        writeHeader(SEGMENT_SEALED);
+        segment.force();
+        closeSegment();
+    }
+
+
+    private void closeSegment() throws IOException {
+        segmentFile.close();
+        segmentFile = null;
+        segment = null;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("directory", directory)
+                .add("sequence", sequence)
+                .add("recordCount", recordCount)
+                .add("dataLength", dataLength).toString();
+    }
+}
@@ -8,10 +8,11 @@ import android.bluetooth.BluetoothGattService;
 
 import com.google.common.primitives.Bytes;
 import com.rainbow.kam.ble_gatt_manager.exceptions.gatt.GattConnectException;
+import com.rainbow.kam.ble_gatt_manager.legacy.helper.GattRecoder;
 import com.rainbow.kam.ble_gatt_manager.legacy.helper.RealmHelper;
 import com.rainbow.kam.ble_gatt_manager.legacy.manager.rx.GattManager;
 import com.rainbow.kam.ble_gatt_manager.legacy.model.GattObserveData;
-import com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecodeModel;
+import com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecord;
 import com.rainbow.kam.ble_gatt_manager.model.BleDevice;
 import com.rainbow.kam.ble_gatt_manager.model.BluetoothGatts;
 
@@ -29,14 +30,17 @@ import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.*;
  * Created by Kang Young Won on 2016-06-30.
  */
 public class RealmGattManager extends GattManager {
-    private final RealmHelper realmHelper;
-
-    private final GattRecodeModel gattRecodeModel = new GattRecodeModel();
+    private final GattRecoder gattRecoder;
 
 
     @Inject public RealmGattManager(Application application) {
+        this(application, new RealmHelper(application));
+    }
+
+
+    public RealmGattManager(Application application, GattRecoder gattRecoder) {
         super(application);
-        realmHelper = new RealmHelper(application);
+        this.gattRecoder = gattRecoder;
     }
 
 
@@ -48,35 +52,23 @@ public class RealmGattManager extends GattManager {
     @Override
     public Observable<Boolean> observeConnection(BleDevice bleDevice) {
         return super.observeConnection(bleDevice)
-                .doOnSubscribe(() -> gattRecodeModel.setDeviceName(bleDevice.getName()))
-                .doOnSubscribe(() -> gattRecodeModel.setDeviceAddress(bleDevice.getAddress()))
-                .doOnNext(isConnected -> gattRecodeModel.setGattOperationUUID(UUID_NONE))
-                .doOnNext(isConnected -> gattRecodeModel.setGattOperationType(TYPE_CONNECTION))
-                .doOnNext(isConnected -> gattRecodeModel.setGattState(isConnected ? STATE_CONNECTED : STATE_DISCONNECTED))
-                .doOnNext(isConnected -> realmHelper.recodeGatt(gattRecodeModel));
+                .doOnNext(isConnected -> recode(bleDevice, TYPE_CONNECTION, null, isConnected ? STATE_CONNECTED : STATE_DISCONNECTED, null));
     }
 
 
     @Override public Observable<BluetoothDevice> observeBond() throws GattConnectException {
         return super.observeBond()
-                .doOnSubscribe(() -> gattRecodeModel.setGattOperationUUID(UUID_NONE))
-                .doOnSubscribe(() -> gattRecodeModel.setGattOperationType(TYPE_BOND))
-                .doOnNext(device -> gattRecodeModel.setGattState(BOND_BONDING))
-                .doOnCompleted(() -> gattRecodeModel.setGattState(BOND_BONDED))
-                .doOnError(throwable -> gattRecodeModel.setGattState(BOND_NONE))
-                .doOnEach(notification -> realmHelper.recodeGatt(gattRecodeModel));
+                .doOnNext(device -> recode(getBleDevice(), TYPE_BOND, null, BOND_BONDING, null))
+                .doOnCompleted(() -> recode(getBleDevice(), TYPE_BOND, null, BOND_BONDED, null))
+                .doOnError(throwable -> recode(getBleDevice(), TYPE_BOND, null, BOND_NONE, null));
     }
 
 
     @Override
     public Observable<List<BluetoothGattService>> observeDiscoverService() {
         return super.observeDiscoverService()
-                .doOnSubscribe(() -> gattRecodeModel.setGattOperationUUID(UUID_NONE))
-                .doOnSubscribe(() -> gattRecodeModel.setGattOperationType(TYPE_DISCOVER))
-                .doOnNext(device -> gattRecodeModel.setGattState(BOND_BONDING))
-                .doOnNext(device -> realmHelper.recodeGatt(gattRecodeModel))
-                .doOnError(throwable -> gattRecodeModel.setGattState(BOND_NONE))
-                .doOnError(throwable -> realmHelper.recodeGatt(gattRecodeModel));
+                .doOnNext(services -> recode(getBleDevice(), TYPE_DISCOVER, null, GATT_SUCCESS, null))
+                .doOnError(throwable -> recode(getBleDevice(), TYPE_DISCOVER, null, GATT_FAILURE, null));
     }
 
 
@@ -93,12 +85,8 @@ public class RealmGattManager extends GattManager {
     @Override
     public Observable<BluetoothGattCharacteristic> observeRead(BluetoothGattCharacteristic characteristicToRead) {
         return super.observeRead(characteristicToRead)
-                .doOnSubscribe(() -> gattRecodeModel.setGattOperationUUID(characteristicToRead.getUuid()))
-                .doOnSubscribe(() -> gattRecodeModel.setGattOperationType(TYPE_READ))
-                .doOnNext(device -> gattRecodeModel.setGattState(GATT_SUCCESS))
-                .doOnNext(device -> realmHelper.recodeGatt(gattRecodeModel))
-                .doOnError(throwable -> gattRecodeModel.setGattState(GATT_FAILURE))
-                .doOnError(throwable -> realmHelper.recodeGatt(gattRecodeModel));
+                .doOnNext(characteristic -> recode(getBleDevice(), TYPE_READ, characteristic.getUuid(), GATT_SUCCESS, characteristic.getValue()))
+                .doOnError(throwable -> recode(getBleDevice(), TYPE_READ, uuidOf(characteristicToRead), GATT_FAILURE, null));
     }
 
 
@@ -121,12 +109,9 @@ public class RealmGattManager extends GattManager {
     @Override
     public Observable<GattObserveData> observeWrite(BluetoothGattCharacteristic characteristicToWrite, byte[] valuesToWrite) {
         return super.observeWrite(characteristicToWrite, valuesToWrite)
-                .doOnSubscribe(() -> gattRecodeModel.setGattOperationUUID(characteristicToWrite.getUuid()))
-                .doOnNext(gattObserveData -> gattRecodeModel.setGattOperationType(gattObserveData.getState() == STATE_ON_START ? TYPE_WRITE_EMPTY : TYPE_WRITE))
-                .doOnNext(gattObserveData -> gattRecodeModel.setGattState(GATT_SUCCESS))
-                .doOnNext(gattObserveData -> realmHelper.recodeGatt(gattRecodeModel))
-                .doOnError(throwable -> gattRecodeModel.setGattState(GATT_FAILURE))
-                .doOnError(throwable -> realmHelper.recodeGatt(gattRecodeModel));
+                .doOnNext(gattObserveData -> recode(getBleDevice(), gattObserveData.getState() == STATE_ON_START ? TYPE_WRITE_EMPTY : TYPE_WRITE,
+                        uuidOf(characteristicToWrite), GATT_SUCCESS, gattObserveData.getValues()))
+                .doOnError(throwable -> recode(getBleDevice(), TYPE_WRITE, uuidOf(characteristicToWrite), GATT_FAILURE, null));
     }
 
 
@@ -139,12 +124,9 @@ public class RealmGattManager extends GattManager {
     @Override
     public Observable<GattObserveData> observeNotification(BluetoothGattCharacteristic characteristicToNotification, boolean enableNotification) {
         return super.observeNotification(characteristicToNotification, enableNotification)
-                .doOnSubscribe(() -> gattRecodeModel.setGattOperationUUID(characteristicToNotification.getUuid()))
-                .doOnNext(gattObserveData -> gattRecodeModel.setGattOperationType(gattObserveData.getState() == STATE_ON_START ? TYPE_NOTIFICATION_EMPTY : TYPE_NOTIFICATION))
-                .doOnNext(gattObserveData -> gattRecodeModel.setGattState(GATT_SUCCESS))
-                .doOnNext(gattObserveData -> realmHelper.recodeGatt(gattRecodeModel))
-                .doOnError(throwable -> gattRecodeModel.setGattState(GATT_FAILURE))
-                .doOnError(throwable -> realmHelper.recodeGatt(gattRecodeModel));
+                .doOnNext(gattObserveData -> recode(getBleDevice(), gattObserveData.getState() == STATE_ON_START ? TYPE_NOTIFICATION_EMPTY : TYPE_NOTIFICATION,
+                        uuidOf(characteristicToNotification), GATT_SUCCESS, gattObserveData.getValues()))
+                .doOnError(throwable -> recode(getBleDevice(), TYPE_NOTIFICATION, uuidOf(characteristicToNotification), GATT_FAILURE, null));
     }
 
 
@@ -157,12 +139,9 @@ public class RealmGattManager extends GattManager {
     @Override
     public Observable<GattObserveData> observeIndication(BluetoothGattCharacteristic characteristicToIndication) {
         return super.observeIndication(characteristicToIndication)
-                .doOnSubscribe(() -> gattRecodeModel.setGattOperationUUID(characteristicToIndication.getUuid()))
-                .doOnNext(gattObserveData -> gattRecodeModel.setGattOperationType(gattObserveData.getState() == STATE_ON_START ? TYPE_INDICATION_EMPTY : TYPE_INDICATION))
-                .doOnNext(gattObserveData -> gattRecodeModel.setGattState(GATT_SUCCESS))
-                .doOnNext(gattObserveData -> realmHelper.recodeGatt(gattRecodeModel))
-                .doOnError(throwable -> gattRecodeModel.setGattState(GATT_FAILURE))
-                .doOnError(throwable -> realmHelper.recodeGatt(gattRecodeModel));
+                .doOnNext(gattObserveData -> recode(getBleDevice(), gattObserveData.getState() == STATE_ON_START ? TYPE_INDICATION_EMPTY : TYPE_INDICATION,
+                        uuidOf(characteristicToIndication), GATT_SUCCESS, gattObserveData.getValues()))
+                .doOnError(throwable -> recode(getBleDevice(), TYPE_INDICATION, uuidOf(characteristicToIndication), GATT_FAILURE, null));
     }
 
 
@@ -183,6 +162,16 @@ public class RealmGattManager extends GattManager {
 
 
     public void showRecode() {
-        realmHelper.readRecodedGatt();
+        gattRecoder.readRecodedGatt();
+    }
+
+
+    private void recode(BleDevice bleDevice, String operationType, UUID operationUUID, String state, byte[] payload) {
+        gattRecoder.recodeGatt(GattRecord.obtain(bleDevice, operationType, operationUUID, state, payload));
+    }
+
+
+    private static UUID uuidOf(BluetoothGattCharacteristic characteristic) {
+        return characteristic != null ? characteristic.getUuid() : null;
     }
 }
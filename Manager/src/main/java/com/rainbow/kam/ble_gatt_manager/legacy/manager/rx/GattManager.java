@@ -15,7 +15,7 @@ import android.content.Context;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.primitives.Bytes;
-import com.rainbow.kam.ble_gatt_manager.broadcast.BondDeviceBroadcastReceiver;
+import com.rainbow.kam.ble_gatt_manager.broadcast.BondStateMultiplexer;
 import com.rainbow.kam.ble_gatt_manager.exceptions.gatt.GattConnectException;
 import com.rainbow.kam.ble_gatt_manager.exceptions.gatt.GattDisconnectException;
 import com.rainbow.kam.ble_gatt_manager.exceptions.gatt.GattNotificationCharacteristicException;
@@ -164,8 +164,7 @@ public class GattManager implements IGattManager {
     @Override public Observable<BluetoothDevice> observeBond()
             throws GattConnectException {
         if (isConnected()) {
-            final BondDeviceBroadcastReceiver receiver = new BondDeviceBroadcastReceiver(application);
-            return Observable.create(receiver).doOnSubscribe(() -> bleDevice.getDevice().createBond());
+            return BondStateMultiplexer.shared(application).observeBond(bleDevice);
         } else {
             throw GATT_NOT_CONNECTED;
         }
@@ -3,21 +3,58 @@ package com.rainbow.kam.ble_gatt_manager.legacy.model;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
 import com.rainbow.kam.ble_gatt_manager.model.BleDevice;
+import com.rainbow.kam.ble_gatt_manager.model.BleUuid;
 
 import java.util.UUID;
 
 import io.realm.RealmObject;
+import io.realm.annotations.Index;
+import io.realm.annotations.PrimaryKey;
+
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.UUID_NONE;
 
 /**
  * Created by Kang Young Won on 2016-07-01.
  */
 public class GattRecodeModel extends RealmObject {
+    public static final String FIELD_ID = "id";
+    public static final String FIELD_DEVICE_ADDRESS = "deviceAddress";
+    public static final String FIELD_OPERATION_TYPE = "gattOperationType";
+    public static final String FIELD_OPERATION_UUID = "gattOperationUUID";
+    public static final String FIELD_STATE = "gattState";
+    public static final String FIELD_TIMESTAMP = "timestamp";
+
+    @PrimaryKey private long id;
+
     private String deviceName;
-    private String deviceAddress;
+    @Index private String deviceAddress;
+
+    @Index private String gattOperationType;
+    @Index private String gattOperationUUID;
+    @Index private String gattState;
 
-    private String gattOperationType;
-    private String gattOperationUUID;
-    private String gattState;
+    @Index private long timestamp;
+    private int payloadLength;
+    private byte[] payload;
+
+
+    public static GattRecodeModel from(long id, GattRecord gattRecord) {
+        GattRecodeModel model = new GattRecodeModel();
+        model.id = id;
+        model.deviceName = gattRecord.getDeviceName();
+        model.deviceAddress = gattRecord.getDeviceAddress();
+        model.gattOperationType = gattRecord.getOperationType();
+        model.gattOperationUUID = gattRecord.getOperationUUID() != null ? BleUuid.format(gattRecord.getOperationUUID()) : UUID_NONE;
+        model.gattState = gattRecord.getState();
+        model.timestamp = gattRecord.getTimestampNanos();
+        model.payloadLength = gattRecord.getPayloadLength();
+        model.payload = gattRecord.getPayload();
+        return model;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
 
 
     public void setDeviceAddress(String deviceAddress) {
@@ -53,7 +90,7 @@ public class GattRecodeModel extends RealmObject {
 
 
     public void setGattOperationUUID(UUID gattOperationUUID) {
-        this.gattOperationUUID = gattOperationUUID.toString();
+        this.gattOperationUUID = BleUuid.format(gattOperationUUID);
     }
 
 
@@ -62,6 +99,26 @@ public class GattRecodeModel extends RealmObject {
     }
 
 
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+
+    public void setPayloadLength(int payloadLength) {
+        this.payloadLength = payloadLength;
+    }
+
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+
+
+    public long getId() {
+        return id;
+    }
+
+
     public String getDeviceName() {
         return deviceName;
     }
@@ -87,30 +144,49 @@ public class GattRecodeModel extends RealmObject {
     }
 
 
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+
+    public int getPayloadLength() {
+        return payloadLength;
+    }
+
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+
     @Override public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
         GattRecodeModel that = (GattRecodeModel) o;
-        return Objects.equal(this.deviceName, that.deviceName)
-                || Objects.equal(this.deviceAddress, that.deviceAddress)
-                || Objects.equal(this.gattOperationType, that.gattOperationType)
-                || Objects.equal(this.gattOperationUUID, that.gattOperationUUID)
-                || Objects.equal(this.gattState, that.gattState);
+        return timestamp == that.timestamp
+                && Objects.equal(this.deviceName, that.deviceName)
+                && Objects.equal(this.deviceAddress, that.deviceAddress)
+                && Objects.equal(this.gattOperationType, that.gattOperationType)
+                && Objects.equal(this.gattOperationUUID, that.gattOperationUUID)
+                && Objects.equal(this.gattState, that.gattState);
     }
 
 
     @Override public int hashCode() {
-        return Objects.hashCode(deviceName, deviceAddress, gattOperationType, gattOperationUUID, gattState);
+        return Objects.hashCode(deviceName, deviceAddress, gattOperationType, gattOperationUUID, gattState, timestamp);
     }
 
 
     @Override public String toString() {
         return MoreObjects.toStringHelper(this)
+                .add("id", id)
                 .add("deviceName", deviceName)
                 .add("deviceAddress", deviceAddress)
                 .add("gattOperationType", gattOperationType)
                 .add("gattOperationUUID", gattOperationUUID)
-                .add("gattState", gattState).toString();
+                .add("gattState", gattState)
+                .add("timestamp", timestamp)
+                .add("payloadLength", payloadLength).toString();
     }
 }
\ No newline at end of file
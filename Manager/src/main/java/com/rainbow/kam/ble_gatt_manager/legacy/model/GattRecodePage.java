@@ -0,0 +1,48 @@
+package com.rainbow.kam.ble_gatt_manager.legacy.model;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.List;
+
+/**
+ * One page of recoded gatt history. The items are detached copies and may be used on any thread.
+ * Pass {@link #getNextCursor()} back to read the following page.
+ */
+public class GattRecodePage {
+
+    public static final long FIRST_CURSOR = -1L;
+
+    private final List<GattRecodeModel> items;
+    private final long nextCursor;
+    private final boolean hasNext;
+
+
+    public GattRecodePage(List<GattRecodeModel> items, long nextCursor, boolean hasNext) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+
+
+    public List<GattRecodeModel> getItems() {
+        return items;
+    }
+
+
+    public long getNextCursor() {
+        return nextCursor;
+    }
+
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("items", items.size())
+                .add("nextCursor", nextCursor)
+                .add("hasNext", hasNext).toString();
+    }
+}
@@ -0,0 +1,107 @@
+package com.rainbow.kam.ble_gatt_manager.legacy.model;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.UUID;
+
+import io.realm.RealmQuery;
+
+import static com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecodeModel.FIELD_DEVICE_ADDRESS;
+import static com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecodeModel.FIELD_OPERATION_TYPE;
+import static com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecodeModel.FIELD_OPERATION_UUID;
+import static com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecodeModel.FIELD_STATE;
+import static com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecodeModel.FIELD_TIMESTAMP;
+
+/**
+ * Filter over recoded gatt history. Every filter is on an indexed {@link GattRecodeModel} field,
+ * unset filters match everything.
+ */
+public class GattRecodeQuery {
+
+    private String deviceAddress;
+    private String operationType;
+    private String operationUUID;
+    private String state;
+    private long fromNanos = Long.MIN_VALUE;
+    private long toNanos = Long.MAX_VALUE;
+    private boolean newestFirst = true;
+
+
+    public static GattRecodeQuery all() {
+        return new GattRecodeQuery();
+    }
+
+
+    public GattRecodeQuery deviceAddress(String deviceAddress) {
+        this.deviceAddress = deviceAddress;
+        return this;
+    }
+
+
+    public GattRecodeQuery operationType(String operationType) {
+        this.operationType = operationType;
+        return this;
+    }
+
+
+    public GattRecodeQuery operationUUID(UUID operationUUID) {
+        this.operationUUID = operationUUID.toString();
+        return this;
+    }
+
+
+    public GattRecodeQuery state(String state) {
+        this.state = state;
+        return this;
+    }
+
+
+    public GattRecodeQuery between(long fromNanos, long toNanos) {
+        this.fromNanos = fromNanos;
+        this.toNanos = toNanos;
+        return this;
+    }
+
+
+    public GattRecodeQuery oldestFirst() {
+        this.newestFirst = false;
+        return this;
+    }
+
+
+    public boolean isNewestFirst() {
+        return newestFirst;
+    }
+
+
+    public RealmQuery<GattRecodeModel> apply(RealmQuery<GattRecodeModel> query) {
+        if (deviceAddress != null) {
+            query.equalTo(FIELD_DEVICE_ADDRESS, deviceAddress);
+        }
+        if (operationType != null) {
+            query.equalTo(FIELD_OPERATION_TYPE, operationType);
+        }
+        if (operationUUID != null) {
+            query.equalTo(FIELD_OPERATION_UUID, operationUUID);
+        }
+        if (state != null) {
+            query.equalTo(FIELD_STATE, state);
+        }
+        if (fromNanos != Long.MIN_VALUE || toNanos != Long.MAX_VALUE) {
+            query.between(FIELD_TIMESTAMP, fromNanos, toNanos);
+        }
+        return query;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("deviceAddress", deviceAddress)
+                .add("operationType", operationType)
+                .add("operationUUID", operationUUID)
+                .add("state", state)
+                .add("fromNanos", fromNanos)
+                .add("toNanos", toNanos)
+                .add("newestFirst", newestFirst).toString();
+    }
+}
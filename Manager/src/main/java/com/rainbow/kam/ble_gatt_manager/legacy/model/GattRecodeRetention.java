@@ -0,0 +1,114 @@
+package com.rainbow.kam.ble_gatt_manager.legacy.model;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits for recoded gatt history, enforced by {@link com.rainbow.kam.ble_gatt_manager.legacy.helper.GattRecodeCompactor}.
+ * <p>
+ * The total size is bounded by record count: Realm files only shrink when every instance is closed,
+ * so the number of rows is what keeps queries and writes fast on a running gateway.
+ */
+public class GattRecodeRetention {
+
+    public static final int DEFAULT_BATCH_SIZE = 200;
+    public static final int UNLIMITED = -1;
+
+    private long maxAgeNanos = UNLIMITED;
+    private long maxRecords = UNLIMITED;
+    private long maxRecordsPerDevice = UNLIMITED;
+    private long downsampleAfterNanos = UNLIMITED;
+    private int downsampleKeepOneOf = 1;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+
+    public static GattRecodeRetention create() {
+        return new GattRecodeRetention();
+    }
+
+
+    public GattRecodeRetention maxAge(long maxAge, TimeUnit unit) {
+        Preconditions.checkArgument(maxAge > 0, "maxAge must be positive");
+        this.maxAgeNanos = unit.toNanos(maxAge);
+        return this;
+    }
+
+
+    public GattRecodeRetention maxRecords(long maxRecords) {
+        Preconditions.checkArgument(maxRecords > 0, "maxRecords must be positive");
+        this.maxRecords = maxRecords;
+        return this;
+    }
+
+
+    public GattRecodeRetention maxRecordsPerDevice(long maxRecordsPerDevice) {
+        Preconditions.checkArgument(maxRecordsPerDevice > 0, "maxRecordsPerDevice must be positive");
+        this.maxRecordsPerDevice = maxRecordsPerDevice;
+        return this;
+    }
+
+
+    /**
+     * Notification and indication records older than {@code age} are thinned out to one of every {@code keepOneOf}
+     * of each device, operation and characteristic series.
+     */
+    public GattRecodeRetention downsample(long age, TimeUnit unit, int keepOneOf) {
+        Preconditions.checkArgument(keepOneOf > 1, "keepOneOf must be greater than 1");
+        this.downsampleAfterNanos = unit.toNanos(age);
+        this.downsampleKeepOneOf = keepOneOf;
+        return this;
+    }
+
+
+    /**
+     * Maximum records inspected by one compaction pass, kept or not; the ones it deletes go in one write transaction.
+     */
+    public GattRecodeRetention batchSize(int batchSize) {
+        Preconditions.checkArgument(batchSize > 0, "batchSize must be positive");
+        this.batchSize = batchSize;
+        return this;
+    }
+
+
+    public long getMaxAgeNanos() {
+        return maxAgeNanos;
+    }
+
+
+    public long getMaxRecords() {
+        return maxRecords;
+    }
+
+
+    public long getMaxRecordsPerDevice() {
+        return maxRecordsPerDevice;
+    }
+
+
+    public long getDownsampleAfterNanos() {
+        return downsampleAfterNanos;
+    }
+
+
+    public int getDownsampleKeepOneOf() {
+        return downsampleKeepOneOf;
+    }
+
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("maxAgeNanos", maxAgeNanos)
+                .add("maxRecords", maxRecords)
+                .add("maxRecordsPerDevice", maxRecordsPerDevice)
+                .add("downsampleAfterNanos", downsampleAfterNanos)
+                .add("downsampleKeepOneOf", downsampleKeepOneOf)
+                .add("batchSize", batchSize).toString();
+    }
+}
@@ -0,0 +1,133 @@
+package com.rainbow.kam.ble_gatt_manager.legacy.model;
+
+import android.support.v4.util.Pools;
+
+import com.google.common.base.MoreObjects;
+import com.rainbow.kam.ble_gatt_manager.legacy.util.RecodeClock;
+import com.rainbow.kam.ble_gatt_manager.model.BleDevice;
+
+import java.util.UUID;
+
+/**
+ * One recoded gatt event, captured at the moment it happened.
+ * Instances are taken from a shared pool with {@link #obtain} and given back with {@link #recycle}
+ * once the recoder has persisted them. Values never change between obtain and recycle.
+ * The payload is copied into a buffer owned by the record, reused while payload lengths stay the same.
+ */
+public final class GattRecord {
+
+    private static final int POOL_SIZE = 64;
+    private static final Pools.SynchronizedPool<GattRecord> POOL = new Pools.SynchronizedPool<>(POOL_SIZE);
+
+    private String deviceName;
+    private String deviceAddress;
+    private String operationType;
+    private UUID operationUUID;
+    private String state;
+    private long timestampNanos;
+    private int payloadLength;
+    private byte[] payload;
+    private boolean hasPayload;
+
+
+    private GattRecord() {
+    }
+
+
+    public static GattRecord obtain(BleDevice bleDevice, String operationType, UUID operationUUID, String state, byte[] payload) {
+        GattRecord record = POOL.acquire();
+        if (record == null) {
+            record = new GattRecord();
+        }
+        record.timestampNanos = RecodeClock.currentTimeNanos();
+        record.deviceName = bleDevice != null ? bleDevice.getName() : null;
+        record.deviceAddress = bleDevice != null ? bleDevice.getAddress() : null;
+        record.operationType = operationType;
+        record.operationUUID = operationUUID;
+        record.state = state;
+        record.payloadLength = payload != null ? payload.length : 0;
+        record.hasPayload = payload != null;
+        record.payload = copyPayload(record.payload, payload);
+        return record;
+    }
+
+
+    public void recycle() {
+        deviceName = null;
+        deviceAddress = null;
+        operationType = null;
+        operationUUID = null;
+        state = null;
+        timestampNanos = 0;
+        payloadLength = 0;
+        hasPayload = false;
+        POOL.release(this);
+    }
+
+
+    private static byte[] copyPayload(byte[] buffer, byte[] payload) {
+        if (payload == null) {
+            return buffer;
+        }
+        if (buffer == null || buffer.length != payload.length) {
+            buffer = new byte[payload.length];
+        }
+        System.arraycopy(payload, 0, buffer, 0, payload.length);
+        return buffer;
+    }
+
+
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+
+    public String getDeviceAddress() {
+        return deviceAddress;
+    }
+
+
+    public String getOperationType() {
+        return operationType;
+    }
+
+
+    public UUID getOperationUUID() {
+        return operationUUID;
+    }
+
+
+    public String getState() {
+        return state;
+    }
+
+
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+
+    public int getPayloadLength() {
+        return payloadLength;
+    }
+
+
+    /**
+     * The captured value, or {@code null} when the event had none. Only valid until {@link #recycle()}.
+     */
+    public byte[] getPayload() {
+        return hasPayload ? payload : null;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("deviceName", deviceName)
+                .add("deviceAddress", deviceAddress)
+                .add("operationType", operationType)
+                .add("operationUUID", operationUUID)
+                .add("state", state)
+                .add("timestampNanos", timestampNanos)
+                .add("payloadLength", payloadLength).toString();
+    }
+}
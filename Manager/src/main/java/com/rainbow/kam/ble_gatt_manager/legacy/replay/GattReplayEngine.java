@@ -0,0 +1,140 @@
+package com.rainbow.kam.ble_gatt_manager.legacy.replay;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+
+/**
+ * Replays recoded gatt sessions into a {@link SimulatedPeripheral}, keeping the recoded gaps between events
+ * scaled by a speed factor.
+ * <pre>{@code
+ * GattManagerCallBack callBack = new GattManagerCallBack();
+ * callBack.setNotifyListener(...);
+ * new GattReplayEngine(new SimulatedPeripheral(callBack, null))
+ *         .replay(ReplayEvents.fromLog(logDirectory), GattReplayEngine.SPEED_MAX)
+ *         .subscribe(report -> Log.i(TAG, report.toString()));
+ * }</pre>
+ * With {@link #SPEED_MAX} events are dispatched back to back, which measures how far above real time
+ * the callback and everything behind it can go.
+ */
+public class GattReplayEngine {
+
+    public static final double SPEED_REAL_TIME = 1;
+    public static final double SPEED_MAX = Double.POSITIVE_INFINITY;
+
+    private final SimulatedPeripheral peripheral;
+    private final Scheduler scheduler;
+
+
+    public GattReplayEngine(SimulatedPeripheral peripheral) {
+        this(peripheral, Schedulers.computation());
+    }
+
+
+    /**
+     * @param scheduler the events are dispatched and waited for on
+     */
+    public GattReplayEngine(SimulatedPeripheral peripheral, Scheduler scheduler) {
+        this.peripheral = peripheral;
+        this.scheduler = scheduler;
+    }
+
+
+    /**
+     * Dispatches every event in order and emits one report when the source completes.
+     * Unsubscribing stops the replay after the event being dispatched.
+     */
+    public Observable<ReplayReport> replay(Observable<ReplayEvent> events, double speed) {
+        Preconditions.checkArgument(speed > 0, "speed must be positive");
+        return Observable.defer(() -> {
+            Session session = new Session(speed);
+            Observable<ReplayEvent> scheduled = events.observeOn(scheduler);
+            if (speed != SPEED_MAX) {
+                scheduled = scheduled.concatMap(event -> {
+                    long waitNanos = session.dueNanos(event) - System.nanoTime();
+                    return waitNanos > 0
+                            ? Observable.just(event).delay(waitNanos, TimeUnit.NANOSECONDS, scheduler)
+                            : Observable.just(event);
+                });
+            }
+            return scheduled
+                    .reduce(session, (current, event) -> current.dispatch(event))
+                    .map(Session::toReport);
+        });
+    }
+
+
+    private class Session {
+
+        private final double speed;
+
+        private boolean started;
+        private long firstTimestampNanos;
+        private long lastTimestampNanos;
+        private long wallStartNanos;
+        private long lastDispatchNanos;
+
+        private long dispatchedCount;
+        private long skippedCount;
+        private long maxLagNanos;
+        private long totalLagNanos;
+
+
+        Session(double speed) {
+            this.speed = speed;
+        }
+
+
+        long dueNanos(ReplayEvent event) {
+            if (!started) {
+                return System.nanoTime();
+            }
+            return wallStartNanos + (long) ((event.getTimestampNanos() - firstTimestampNanos) / speed);
+        }
+
+
+        Session dispatch(ReplayEvent event) {
+            long due = dueNanos(event);
+            if (!started) {
+                started = true;
+                firstTimestampNanos = event.getTimestampNanos();
+                lastTimestampNanos = firstTimestampNanos;
+                wallStartNanos = System.nanoTime();
+                due = wallStartNanos;
+            }
+            long lag = Math.max(0, System.nanoTime() - due);
+            if (peripheral.dispatch(event)) {
+                dispatchedCount++;
+            } else {
+                skippedCount++;
+            }
+            lastDispatchNanos = System.nanoTime();
+            lastTimestampNanos = Math.max(lastTimestampNanos, event.getTimestampNanos());
+            if (speed != SPEED_MAX) {
+                maxLagNanos = Math.max(maxLagNanos, lag);
+                totalLagNanos += lag;
+            }
+            return this;
+        }
+
+
+        ReplayReport toReport() {
+            return new ReplayReport(dispatchedCount, skippedCount,
+                    started ? lastTimestampNanos - firstTimestampNanos : 0,
+                    started ? lastDispatchNanos - wallStartNanos : 0,
+                    maxLagNanos, totalLagNanos);
+        }
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("peripheral", peripheral)
+                .add("scheduler", scheduler).toString();
+    }
+}
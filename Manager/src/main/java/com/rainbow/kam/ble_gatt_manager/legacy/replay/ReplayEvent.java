@@ -0,0 +1,81 @@
+package com.rainbow.kam.ble_gatt_manager.legacy.replay;
+
+import com.google.common.base.MoreObjects;
+import com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecodeModel;
+import com.rainbow.kam.ble_gatt_manager.model.BleUuid;
+
+import java.util.UUID;
+
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.UUID_NONE;
+
+/**
+ * One recoded gatt event as it is fed to a {@link SimulatedPeripheral}.
+ */
+public class ReplayEvent {
+
+    private final long timestampNanos;
+    private final String deviceAddress;
+    private final String operationType;
+    private final UUID operationUUID;
+    private final String state;
+    private final byte[] payload;
+
+
+    public ReplayEvent(long timestampNanos, String deviceAddress, String operationType, UUID operationUUID, String state, byte[] payload) {
+        this.timestampNanos = timestampNanos;
+        this.deviceAddress = deviceAddress;
+        this.operationType = operationType;
+        this.operationUUID = operationUUID;
+        this.state = state;
+        this.payload = payload;
+    }
+
+
+    public static ReplayEvent from(GattRecodeModel model) {
+        String uuid = model.getGattOperationUUID();
+        return new ReplayEvent(model.getTimestamp(), model.getDeviceAddress(), model.getGattOperationType(),
+                uuid != null && !UUID_NONE.equals(uuid) ? BleUuid.parse(uuid).toUuid() : null,
+                model.getGattState(), model.getPayload());
+    }
+
+
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+
+    public String getDeviceAddress() {
+        return deviceAddress;
+    }
+
+
+    public String getOperationType() {
+        return operationType;
+    }
+
+
+    public UUID getOperationUUID() {
+        return operationUUID;
+    }
+
+
+    public String getState() {
+        return state;
+    }
+
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("timestampNanos", timestampNanos)
+                .add("deviceAddress", deviceAddress)
+                .add("operationType", operationType)
+                .add("operationUUID", operationUUID)
+                .add("state", state)
+                .add("payloadLength", payload != null ? payload.length : 0).toString();
+    }
+}
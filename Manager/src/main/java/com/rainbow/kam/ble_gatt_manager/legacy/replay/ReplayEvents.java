@@ -0,0 +1,57 @@
+package com.rainbow.kam.ble_gatt_manager.legacy.replay;
+
+import com.rainbow.kam.ble_gatt_manager.legacy.helper.RealmHelper;
+import com.rainbow.kam.ble_gatt_manager.legacy.log.GattLogReader;
+import com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecodeQuery;
+
+import java.io.File;
+import java.io.IOException;
+
+import rx.Observable;
+import rx.exceptions.Exceptions;
+import rx.observables.SyncOnSubscribe;
+
+/**
+ * Sources of {@link ReplayEvent}, oldest first. Both read lazily as the replay requests more events.
+ */
+public final class ReplayEvents {
+
+    private ReplayEvents() {
+    }
+
+
+    /**
+     * Events of a log written by {@link com.rainbow.kam.ble_gatt_manager.legacy.log.GattLogWriter}.
+     * Corrupted segments are skipped, as by {@link GattLogReader}.
+     */
+    public static Observable<ReplayEvent> fromLog(File directory) {
+        return Observable.create(SyncOnSubscribe.<GattLogReader, ReplayEvent>createStateful(
+                () -> new GattLogReader(directory),
+                (reader, observer) -> {
+                    boolean hasNext;
+                    try {
+                        hasNext = reader.next();
+                    } catch (IOException e) {
+                        throw Exceptions.propagate(e);
+                    }
+                    if (hasNext) {
+                        observer.onNext(new ReplayEvent(reader.getTimestampNanos(), reader.getDeviceAddress(),
+                                reader.getOperationType(), reader.getOperationUUID(), reader.getState(), reader.getPayload()));
+                    } else {
+                        observer.onCompleted();
+                    }
+                    return reader;
+                },
+                GattLogReader::close));
+    }
+
+
+    /**
+     * Events of the Realm history matching {@code query}, read page by page on the thread that created the helper.
+     */
+    public static Observable<ReplayEvent> fromRealm(RealmHelper realmHelper, GattRecodeQuery query) {
+        return realmHelper.observeRecodedGatt(query.oldestFirst(), RealmHelper.DEFAULT_PAGE_SIZE)
+                .concatMapIterable(page -> page.getItems())
+                .map(ReplayEvent::from);
+    }
+}
@@ -0,0 +1,92 @@
+package com.rainbow.kam.ble_gatt_manager.legacy.replay;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Outcome of one replay. Lag is how late an event reached the callback compared to its scaled recoded time.
+ */
+public class ReplayReport {
+
+    private final long dispatchedCount;
+    private final long skippedCount;
+    private final long sessionNanos;
+    private final long wallNanos;
+    private final long maxLagNanos;
+    private final long totalLagNanos;
+
+
+    ReplayReport(long dispatchedCount, long skippedCount, long sessionNanos, long wallNanos, long maxLagNanos, long totalLagNanos) {
+        this.dispatchedCount = dispatchedCount;
+        this.skippedCount = skippedCount;
+        this.sessionNanos = sessionNanos;
+        this.wallNanos = wallNanos;
+        this.maxLagNanos = maxLagNanos;
+        this.totalLagNanos = totalLagNanos;
+    }
+
+
+    public long getDispatchedCount() {
+        return dispatchedCount;
+    }
+
+
+    /**
+     * Events without a matching gatt callback, such as bond changes.
+     */
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+
+    /**
+     * Time between the first and the last event as recoded.
+     */
+    public long getSessionNanos() {
+        return sessionNanos;
+    }
+
+
+    /**
+     * Time the replay took from the first to the last event.
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+
+    /**
+     * How many times faster than real time the session was replayed.
+     */
+    public double getAchievedSpeed() {
+        return wallNanos > 0 ? (double) sessionNanos / wallNanos : 0;
+    }
+
+
+    public double getEventsPerSecond() {
+        return wallNanos > 0 ? (dispatchedCount + skippedCount) * 1e9 / wallNanos : 0;
+    }
+
+
+    public long getMaxLagNanos() {
+        return maxLagNanos;
+    }
+
+
+    public long getMeanLagNanos() {
+        long count = dispatchedCount + skippedCount;
+        return count > 0 ? totalLagNanos / count : 0;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("dispatchedCount", dispatchedCount)
+                .add("skippedCount", skippedCount)
+                .add("sessionNanos", sessionNanos)
+                .add("wallNanos", wallNanos)
+                .add("achievedSpeed", getAchievedSpeed())
+                .add("eventsPerSecond", getEventsPerSecond())
+                .add("maxLagNanos", maxLagNanos)
+                .add("meanLagNanos", getMeanLagNanos()).toString();
+    }
+}
@@ -0,0 +1,138 @@
+package com.rainbow.kam.ble_gatt_manager.legacy.replay;
+
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.BluetoothGattCallback;
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.bluetooth.BluetoothGattDescriptor;
+import android.bluetooth.BluetoothGattService;
+import android.bluetooth.BluetoothProfile;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.Maps;
+import com.rainbow.kam.ble_gatt_manager.model.BluetoothGatts;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.GATT_SUCCESS;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.STATE_CONNECTED;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_CONNECTION;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_DISCOVER;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_INDICATION;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_INDICATION_EMPTY;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_NOTIFICATION;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_NOTIFICATION_EMPTY;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_READ;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_WRITE;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_WRITE_EMPTY;
+
+/**
+ * Plays {@link ReplayEvent}s into a {@link BluetoothGattCallback} as if a peripheral had produced them.
+ * <p>
+ * Characteristics are created on first use unless they were registered with {@link #addService} before,
+ * which is needed when the code under test compares the characteristic instances it discovered.
+ * Events map back to the callback they were recorded from: a successful write is the response notification and
+ * the empty write is the write itself, while failed writes, notifications and indications are the failed
+ * characteristic or descriptor write. Bond events have no gatt callback and are not dispatched.
+ * Not thread safe; the replay drives it from one thread.
+ */
+public class SimulatedPeripheral {
+
+    private static final int PROPERTIES = BluetoothGattCharacteristic.PROPERTY_READ
+            | BluetoothGattCharacteristic.PROPERTY_WRITE
+            | BluetoothGattCharacteristic.PROPERTY_NOTIFY
+            | BluetoothGattCharacteristic.PROPERTY_INDICATE;
+    private static final int PERMISSIONS = BluetoothGattCharacteristic.PERMISSION_READ
+            | BluetoothGattCharacteristic.PERMISSION_WRITE;
+
+    private final BluetoothGattCallback callback;
+    private final BluetoothGatt bluetoothGatt;
+    private final Map<UUID, BluetoothGattCharacteristic> characteristics = Maps.newHashMap();
+
+
+    /**
+     * @param bluetoothGatt passed through to the callback, may be {@code null} when service discovery is not replayed
+     */
+    public SimulatedPeripheral(BluetoothGattCallback callback, BluetoothGatt bluetoothGatt) {
+        this.callback = callback;
+        this.bluetoothGatt = bluetoothGatt;
+    }
+
+
+    public SimulatedPeripheral addService(BluetoothGattService service) {
+        for (BluetoothGattCharacteristic characteristic : service.getCharacteristics()) {
+            characteristics.put(characteristic.getUuid(), characteristic);
+        }
+        return this;
+    }
+
+
+    /**
+     * Dispatches one event and returns whether it reached the callback.
+     */
+    public boolean dispatch(ReplayEvent event) {
+        String type = event.getOperationType();
+        int status = GATT_SUCCESS.equals(event.getState()) ? BluetoothGatt.GATT_SUCCESS : BluetoothGatt.GATT_FAILURE;
+        if (TYPE_CONNECTION.equals(type)) {
+            callback.onConnectionStateChange(bluetoothGatt, BluetoothGatt.GATT_SUCCESS,
+                    STATE_CONNECTED.equals(event.getState()) ? BluetoothProfile.STATE_CONNECTED : BluetoothProfile.STATE_DISCONNECTED);
+            return true;
+        }
+        if (TYPE_DISCOVER.equals(type)) {
+            if (bluetoothGatt == null) {
+                return false;
+            }
+            callback.onServicesDiscovered(bluetoothGatt, status);
+            return true;
+        }
+        if (event.getOperationUUID() == null) {
+            return false;
+        }
+        BluetoothGattCharacteristic characteristic = characteristic(event.getOperationUUID());
+        boolean failed = status != BluetoothGatt.GATT_SUCCESS;
+        if (TYPE_READ.equals(type)) {
+            characteristic.setValue(event.getPayload());
+            callback.onCharacteristicRead(bluetoothGatt, characteristic, status);
+        } else if (TYPE_WRITE_EMPTY.equals(type) || (failed && TYPE_WRITE.equals(type))) {
+            characteristic.setValue(event.getPayload());
+            callback.onCharacteristicWrite(bluetoothGatt, characteristic, status);
+        } else if (TYPE_NOTIFICATION_EMPTY.equals(type) || TYPE_INDICATION_EMPTY.equals(type)
+                || (failed && (TYPE_NOTIFICATION.equals(type) || TYPE_INDICATION.equals(type)))) {
+            callback.onDescriptorWrite(bluetoothGatt, configDescriptor(characteristic), status);
+        } else if (TYPE_WRITE.equals(type) || TYPE_NOTIFICATION.equals(type) || TYPE_INDICATION.equals(type)) {
+            characteristic.setValue(event.getPayload());
+            callback.onCharacteristicChanged(bluetoothGatt, characteristic);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+
+    private BluetoothGattCharacteristic characteristic(UUID uuid) {
+        BluetoothGattCharacteristic characteristic = characteristics.get(uuid);
+        if (characteristic == null) {
+            characteristic = new BluetoothGattCharacteristic(uuid, PROPERTIES, PERMISSIONS);
+            characteristics.put(uuid, characteristic);
+        }
+        return characteristic;
+    }
+
+
+    private BluetoothGattDescriptor configDescriptor(BluetoothGattCharacteristic characteristic) {
+        BluetoothGattDescriptor descriptor = characteristic.getDescriptor(BluetoothGatts.CLIENT_CHARACTERISTIC_CONFIG);
+        if (descriptor == null) {
+            descriptor = new BluetoothGattDescriptor(BluetoothGatts.CLIENT_CHARACTERISTIC_CONFIG,
+                    BluetoothGattDescriptor.PERMISSION_READ | BluetoothGattDescriptor.PERMISSION_WRITE);
+            characteristic.addDescriptor(descriptor);
+        }
+        return descriptor;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("callback", callback)
+                .add("characteristics", characteristics.keySet()).toString();
+    }
+}
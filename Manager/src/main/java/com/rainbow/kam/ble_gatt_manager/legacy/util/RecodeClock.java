@@ -0,0 +1,25 @@
+package com.rainbow.kam.ble_gatt_manager.legacy.util;
+
+import android.os.SystemClock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall clock with nanosecond resolution for recoded gatt events.
+ * The epoch offset is taken once, later reads only use the monotonic elapsed clock.
+ */
+public class RecodeClock {
+
+    private static final long EPOCH_OFFSET_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - SystemClock.elapsedRealtimeNanos();
+
+
+    public static long currentTimeNanos() {
+        return EPOCH_OFFSET_NANOS + SystemClock.elapsedRealtimeNanos();
+    }
+
+
+    @Override public String toString() {
+        return "RecodeClock{long currentTimeNanos()}";
+    }
+}
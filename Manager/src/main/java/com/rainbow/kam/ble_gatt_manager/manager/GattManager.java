@@ -7,13 +7,14 @@ import android.bluetooth.BluetoothGattCharacteristic;
 import android.bluetooth.BluetoothGattDescriptor;
 import android.bluetooth.BluetoothGattService;
 import android.bluetooth.BluetoothManager;
-import android.bluetooth.BluetoothProfile;
 import android.content.Context;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.primitives.Bytes;
-import com.rainbow.kam.ble_gatt_manager.broadcast.BondDeviceBroadcastReceiver;
+import com.rainbow.kam.ble_gatt_manager.broadcast.BluetoothEvent;
+import com.rainbow.kam.ble_gatt_manager.broadcast.BluetoothEventBus;
+import com.rainbow.kam.ble_gatt_manager.broadcast.BondStateMultiplexer;
 import com.rainbow.kam.ble_gatt_manager.exceptions.gatt.GattConnectException;
 import com.rainbow.kam.ble_gatt_manager.exceptions.gatt.GattException;
 import com.rainbow.kam.ble_gatt_manager.exceptions.gatt.GattNotificationCharacteristicException;
@@ -33,7 +34,6 @@ import javax.inject.Inject;
 import rx.Observable;
 import rx.Subscription;
 
-import static android.bluetooth.BluetoothProfile.GATT;
 import static com.rainbow.kam.ble_gatt_manager.exceptions.gatt.GattConnectException.NONE_ADDRESS;
 import static com.rainbow.kam.ble_gatt_manager.exceptions.gatt.GattConnectException.NONE_APPLICATION;
 import static com.rainbow.kam.ble_gatt_manager.exceptions.gatt.GattConnectException.NONE_BLE_DEVICE;
@@ -59,6 +59,7 @@ public class GattManager implements IGattManager {
 
     private final Context context;
     private final GattManagerCallBack gattManagerCallBack;
+    private final BluetoothEventBus eventBus;
     private BluetoothManager bluetoothManager;
     private BluetoothAdapter bluetoothAdapter;
     private BluetoothGatt bluetoothGatt;
@@ -75,6 +76,7 @@ public class GattManager implements IGattManager {
         Preconditions.checkArgument(context != null, NONE_APPLICATION);
         this.context = context;
         this.gattManagerCallBack = new GattManagerCallBack();
+        this.eventBus = BluetoothEventBus.shared(context);
         setBluetooth();
     }
 
@@ -100,7 +102,7 @@ public class GattManager implements IGattManager {
             } else {
                 setBluetooth();
             }
-            if (!bluetoothAdapter.isEnabled()) {
+            if (!eventBus.isEnabled()) {
                 subscriber.onError(new GattConnectException(NONE_BT));
             }
             if (bleDevice == null) {
@@ -113,6 +115,13 @@ public class GattManager implements IGattManager {
                 }
             }
 
+            final long connectingAddress = this.bleDevice.getAddressBits();
+            final boolean connected = isConnected();
+            if (!connected && bluetoothGatt != null) {
+                closeGatt();
+                bluetoothGatt = null;
+            }
+
             gattManagerCallBack.setConnectionListener(new GattConnectionOnSubscribe() {
                 @Override public void onGattConnected() {
                     subscriber.onNext(true);
@@ -123,24 +132,32 @@ public class GattManager implements IGattManager {
                     subscriber.onNext(false);
                 }
             });
+            subscriber.add(eventBus.observeEvents()
+                    .filter(event -> event.isAdapterOff()
+                            || (event.getType() == BluetoothEvent.Type.ACL_DISCONNECTED && event.getAddressBits() == connectingAddress))
+                    .subscribe(event -> gattManagerCallBack.onLinkLost(connectingAddress)));
 
-            if (isConnected()) {
+            if (connected) {
                 subscriber.onNext(true);
             } else {
+                gattManagerCallBack.onConnecting(connectingAddress);
                 bluetoothGatt = this.bleDevice.getDevice().connectGatt(context, false, gattManagerCallBack);
             }
         }).doOnUnsubscribe(() -> gattManagerCallBack.setConnectionListener(null)).doOnUnsubscribe(this::disconnect);
     }
 
 
+    /**
+     * Reads the state kept from the gatt callback and the {@link BluetoothEventBus}, without IPC.
+     */
     @Override public boolean isConnected() {
-        return bluetoothManager.getConnectionState(bleDevice.getDevice(), GATT) == BluetoothProfile.STATE_CONNECTED;
+        return bleDevice != null && gattManagerCallBack.isConnected(bleDevice.getAddressBits());
     }
 
 
     @Override public void disconnect() {
         if (bluetoothGatt != null && bluetoothAdapter != null) {
-            if (bluetoothAdapter.isEnabled() && isConnected()) {
+            if (eventBus.isEnabled() && isConnected()) {
                 bluetoothGatt.disconnect();
             } else {
                 closeGatt();
@@ -153,14 +170,14 @@ public class GattManager implements IGattManager {
         if (bluetoothGatt != null) {
             bluetoothGatt.close();
         }
+        gattManagerCallBack.onLinkLost();
     }
 
 
     @Override public Observable<BluetoothDevice> observeBond()
             throws GattConnectException {
         if (isConnected()) {
-            final BondDeviceBroadcastReceiver receiver = new BondDeviceBroadcastReceiver(context);
-            return Observable.create(receiver).doOnSubscribe(() -> bleDevice.getDevice().createBond());
+            return BondStateMultiplexer.shared(context).observeBond(bleDevice);
         } else {
             throw new GattConnectException(NOT_CONNECTED);
         }
@@ -6,6 +6,8 @@ import android.bluetooth.BluetoothGattCharacteristic;
 import android.bluetooth.BluetoothGattDescriptor;
 import android.bluetooth.BluetoothProfile;
 
+import com.rainbow.kam.ble_gatt_manager.model.MacAddress;
+
 import static com.rainbow.kam.ble_gatt_manager.manager.RxGattListeners.*;
 
 public class GattManagerCallBack extends BluetoothGattCallback {
@@ -18,6 +20,13 @@ public class GattManagerCallBack extends BluetoothGattCallback {
     private GattNotifyCharacteristicOnSubscribe notifyListener;
     private GattIndicateCharacteristicOnSubscribe indicateListener;
 
+    private static final int LINK_NONE = 0;
+    private static final int LINK_CONNECTING = 1;
+    private static final int LINK_CONNECTED = 2;
+
+    private long linkAddress = MacAddress.NONE;
+    private int linkState = LINK_NONE;
+
 
     public void setConnectionListener(GattConnectionOnSubscribe connectionListener) {
         this.connectionListener = connectionListener;
@@ -54,15 +63,74 @@ public class GattManagerCallBack extends BluetoothGattCallback {
     }
 
 
+    /**
+     * Whether the gatt of this callback is connected to the device with {@code addressBits}, without asking the system.
+     */
+    public synchronized boolean isConnected(long addressBits) {
+        return linkState == LINK_CONNECTED && linkAddress == addressBits;
+    }
+
+
+    /**
+     * Marks a {@code connectGatt} to the device with {@code addressBits} as started, so that its failure is reported.
+     */
+    public synchronized void onConnecting(long addressBits) {
+        linkAddress = addressBits;
+        linkState = LINK_CONNECTING;
+    }
+
+
+    /**
+     * Reports a disconnection the gatt callback will not, such as the gatt being closed or the adapter turning off.
+     */
+    public void onLinkLost() {
+        long addressBits;
+        synchronized (this) {
+            addressBits = linkAddress;
+        }
+        onLinkLost(addressBits);
+    }
+
+
+    /**
+     * Reports the loss of the link to the device with {@code addressBits}, such as its ACL link dropping.
+     */
+    public void onLinkLost(long addressBits) {
+        if (resetLink(addressBits) && connectionListener != null) {
+            connectionListener.onGattDisconnected();
+        }
+    }
+
+
     @Override public void onConnectionStateChange(
             final BluetoothGatt bluetoothGatt, final int status, final int newState) {
-        if (connectionListener != null) {
-            if (status == BluetoothGatt.GATT_SUCCESS && newState == BluetoothProfile.STATE_CONNECTED) {
+        long addressBits = MacAddress.pack(bluetoothGatt.getDevice().getAddress());
+        if (status == BluetoothGatt.GATT_SUCCESS && newState == BluetoothProfile.STATE_CONNECTED) {
+            boolean connected;
+            synchronized (this) {
+                connected = linkState != LINK_CONNECTED || linkAddress != addressBits;
+                linkAddress = addressBits;
+                linkState = LINK_CONNECTED;
+            }
+            if (connected && connectionListener != null) {
                 connectionListener.onGattConnected();
-            } else {
-                connectionListener.onGattDisconnected();
             }
+        } else {
+            onLinkLost(addressBits);
+        }
+    }
+
+
+    /**
+     * Clears the link to {@code addressBits} and returns whether it was connected or connecting until now.
+     */
+    private synchronized boolean resetLink(long addressBits) {
+        if (linkState == LINK_NONE || linkAddress != addressBits) {
+            return false;
         }
+        linkState = LINK_NONE;
+        linkAddress = MacAddress.NONE;
+        return true;
     }
 
 
@@ -0,0 +1,76 @@
+package com.rainbow.kam.ble_gatt_manager.manager;
+
+import com.google.common.base.MoreObjects;
+import com.rainbow.kam.ble_gatt_manager.model.BleDevice;
+
+/**
+ * The connection won by a {@link ScanConnector}, with how long it took to get there.
+ */
+public class ScanConnection {
+
+    private final GattManager gattManager;
+    private final BleDevice bleDevice;
+    private final int candidateCount;
+    private final long scanMillis;
+    private final long connectMillis;
+
+
+    ScanConnection(GattManager gattManager, BleDevice bleDevice, int candidateCount, long scanMillis, long connectMillis) {
+        this.gattManager = gattManager;
+        this.bleDevice = bleDevice;
+        this.candidateCount = candidateCount;
+        this.scanMillis = scanMillis;
+        this.connectMillis = connectMillis;
+    }
+
+
+    /**
+     * The connected manager. The connection lasts as long as the {@link ScanConnector} subscription.
+     */
+    public GattManager getGattManager() {
+        return gattManager;
+    }
+
+
+    public BleDevice getBleDevice() {
+        return bleDevice;
+    }
+
+
+    /**
+     * How many candidates were racing, the winner included.
+     */
+    public int getCandidateCount() {
+        return candidateCount;
+    }
+
+
+    /**
+     * From subscribing until the winner's advertisement arrived.
+     */
+    public long getScanMillis() {
+        return scanMillis;
+    }
+
+
+    /**
+     * From the winner's advertisement until it was connected.
+     */
+    public long getConnectMillis() {
+        return connectMillis;
+    }
+
+
+    public long getTimeToConnectMillis() {
+        return scanMillis + connectMillis;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("bleDevice", bleDevice)
+                .add("candidateCount", candidateCount)
+                .add("scanMillis", scanMillis)
+                .add("connectMillis", connectMillis).toString();
+    }
+}
@@ -0,0 +1,113 @@
+package com.rainbow.kam.ble_gatt_manager.manager;
+
+import android.os.SystemClock;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.rainbow.kam.ble_gatt_manager.model.BleDevice;
+import com.rainbow.kam.ble_gatt_manager.scanner.AdvertisementParser;
+import com.rainbow.kam.ble_gatt_manager.scanner.RxBleScanner;
+import com.rainbow.kam.ble_gatt_manager.scanner.ScanBackpressure;
+import com.rainbow.kam.ble_gatt_manager.scanner.ScanOptions;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+import rx.Observable;
+import rx.exceptions.CompositeException;
+import rx.schedulers.Schedulers;
+import rx.subjects.PublishSubject;
+import rx.subjects.Subject;
+
+/**
+ * Scans for a target and connects from the scan callback as soon as a matching connectable advertisement arrives,
+ * instead of stopping the scan first.
+ * <pre>{@code
+ * scanConnector.observeConnection(ScanOptions.create().serviceUuid(HEART_RATE), 3)
+ *         .subscribe(scanConnection -> scanConnection.getGattManager().observeDiscoverService()...);
+ * }</pre>
+ * Up to {@code maxCandidates} devices race, each on its own {@link GattManager}. The first one to connect wins
+ * by claiming the winner address atomically, so of two candidates connecting at once exactly one is kept;
+ * the others are disconnected and the scan is stopped on a background worker so the connection does not wait for it.
+ * The stream completes when the winner disconnects; unsubscribing disconnects it. When no candidate connected,
+ * it fails with the connection error of the candidates, combined in a {@link CompositeException} for several.
+ */
+public class ScanConnector {
+
+    private final RxBleScanner rxBleScanner;
+    private final Provider<GattManager> gattManagerProvider;
+
+
+    @Inject public ScanConnector(RxBleScanner rxBleScanner, Provider<GattManager> gattManagerProvider) {
+        this.rxBleScanner = rxBleScanner;
+        this.gattManagerProvider = gattManagerProvider;
+    }
+
+
+    public Observable<ScanConnection> observeConnection(ScanOptions target) {
+        return observeConnection(target, 1);
+    }
+
+
+    public Observable<ScanConnection> observeConnection(ScanOptions target, int maxCandidates) {
+        Preconditions.checkArgument(maxCandidates > 0, "maxCandidates must be positive");
+        return Observable.defer(() -> {
+            long startMillis = SystemClock.elapsedRealtime();
+            AdvertisementParser parser = new AdvertisementParser();
+            AtomicInteger candidateCount = new AtomicInteger();
+            AtomicReference<String> winnerAddress = new AtomicReference<>();
+            Subject<String, String> winner = PublishSubject.<String>create().toSerialized();
+            List<Throwable> failures = new CopyOnWriteArrayList<>();
+
+            return rxBleScanner.observeScan(target, ScanBackpressure.latestPerDevice())
+                    .filter(bleDevice -> isConnectable(parser, bleDevice))
+                    .distinct(BleDevice::getAddress)
+                    .take(maxCandidates)
+                    .takeUntil(winner)
+                    .unsubscribeOn(Schedulers.io())
+                    .flatMap(bleDevice -> {
+                        candidateCount.incrementAndGet();
+                        long seenMillis = SystemClock.elapsedRealtime();
+                        GattManager gattManager = gattManagerProvider.get();
+                        return gattManager.observeConnection(bleDevice)
+                                .takeUntil(winner.filter(address -> !address.equals(bleDevice.getAddress())))
+                                .takeWhile(connected -> connected)
+                                .distinctUntilChanged()
+                                .takeWhile(connected -> winnerAddress.compareAndSet(null, bleDevice.getAddress()))
+                                .doOnNext(connected -> winner.onNext(bleDevice.getAddress()))
+                                .map(connected -> new ScanConnection(gattManager, bleDevice, candidateCount.get(),
+                                        seenMillis - startMillis, SystemClock.elapsedRealtime() - seenMillis))
+                                .doOnError(failures::add)
+                                .onErrorResumeNext(Observable.empty());
+                    })
+                    .concatWith(Observable.defer(() -> winnerAddress.get() == null && !failures.isEmpty()
+                            ? Observable.<ScanConnection>error(combine(failures))
+                            : Observable.<ScanConnection>empty()));
+        });
+    }
+
+
+    /**
+     * Scan results do not say whether the advertisement was connectable before API 26, so only beacon frames,
+     * which are not, are skipped. Everything else is tried, whether it advertises a discoverable mode or not.
+     */
+    static boolean isConnectable(AdvertisementParser parser, BleDevice bleDevice) {
+        return !parser.reset(bleDevice.getScanRecord()) || !(parser.isIBeacon() || parser.isEddystone());
+    }
+
+
+    private static Throwable combine(List<Throwable> failures) {
+        return failures.size() == 1 ? failures.get(0) : new CompositeException(failures);
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("rxBleScanner", rxBleScanner).toString();
+    }
+}
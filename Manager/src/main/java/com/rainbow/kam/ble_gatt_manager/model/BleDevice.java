@@ -1,6 +1,7 @@
 package com.rainbow.kam.ble_gatt_manager.model;
 
 import android.bluetooth.BluetoothDevice;
+import android.bluetooth.le.ScanRecord;
 import android.bluetooth.le.ScanResult;
 import android.support.annotation.NonNull;
 
@@ -11,33 +12,61 @@ import com.rainbow.kam.ble_gatt_manager.BuildConfig;
 
 /**
  * Created by Kang Young Won on 2016-05-23.
+ * <p>
+ * Address, and its packed {@link MacAddress} as hash and ordering key, are taken once at creation.
+ * Name and type are read from the {@link BluetoothDevice} on first use and kept, bond state is kept until
+ * {@link #refreshBondState()}, so collections of devices do not go through Binder on every comparison.
  */
 public class BleDevice implements Comparable<BleDevice> {
 
     private final static String UNKNOWN = BuildConfig.UNKNOWN;
 
     private final BluetoothDevice device;
+    private final String address;
+    private final long addressBits;
+    private final int hashCode;
     private final int rssi;
+    private final byte[] scanRecord;
 
+    private volatile String name;
+    private volatile String type;
+    private volatile String bondState;
 
-    private BleDevice(BluetoothDevice device, int rssi) {
+
+    private BleDevice(BluetoothDevice device, int rssi, byte[] scanRecord, String name) {
         this.device = device;
+        this.address = device.getAddress();
+        this.addressBits = MacAddress.pack(address);
+        this.hashCode = addressBits != MacAddress.NONE ? (int) (addressBits ^ (addressBits >>> 32)) : Objects.hashCode(address);
         this.rssi = rssi;
+        this.scanRecord = scanRecord;
+        this.name = Strings.isNullOrEmpty(name) ? null : name;
     }
 
 
     public static BleDevice create(BluetoothDevice device, int rssi) {
-        return new BleDevice(device, rssi);
+        return new BleDevice(device, rssi, null, null);
+    }
+
+
+    public static BleDevice create(BluetoothDevice device, int rssi, byte[] scanRecord) {
+        return new BleDevice(device, rssi, scanRecord, null);
     }
 
 
     public static BleDevice create(BluetoothDevice device) {
-        return new BleDevice(device, 0);
+        return new BleDevice(device, 0, null, null);
     }
 
 
+    /**
+     * Takes the name from the advertisement when it has one, without asking the system.
+     */
     public static BleDevice create(ScanResult result) {
-        return create(result.getDevice(), result.getRssi());
+        ScanRecord scanRecord = result.getScanRecord();
+        return scanRecord != null
+                ? new BleDevice(result.getDevice(), result.getRssi(), scanRecord.getBytes(), scanRecord.getDeviceName())
+                : new BleDevice(result.getDevice(), result.getRssi(), null, null);
     }
 
 
@@ -47,26 +76,65 @@ public class BleDevice implements Comparable<BleDevice> {
 
 
     public String getName() {
-        String deviceName = device.getName();
-        if (Strings.isNullOrEmpty(deviceName)) {
-            return UNKNOWN;
+        String deviceName = name;
+        if (deviceName == null) {
+            deviceName = device.getName();
+            if (Strings.isNullOrEmpty(deviceName)) {
+                deviceName = UNKNOWN;
+            }
+            name = deviceName;
         }
         return deviceName;
     }
 
 
     public String getAddress() {
-        return device.getAddress();
+        return address;
+    }
+
+
+    /**
+     * The address packed by {@link MacAddress#pack(String)}, as key for primitive keyed collections.
+     */
+    public long getAddressBits() {
+        return addressBits;
     }
 
 
     public String getType() {
-        return BluetoothDevices.getType(device.getType());
+        String deviceType = type;
+        if (deviceType == null) {
+            deviceType = BluetoothDevices.getType(device.getType());
+            type = deviceType;
+        }
+        return deviceType;
     }
 
 
+    /**
+     * Bond state as of the first call, the last {@link #refreshBondState()} or {@link #updateBondState(int)}.
+     */
     public String getBondState() {
-        return BluetoothDevices.getBond(device.getBondState());
+        String deviceBondState = bondState;
+        return deviceBondState != null ? deviceBondState : refreshBondState();
+    }
+
+
+    /**
+     * Reads the bond state from the system again, after a bond was created or removed.
+     */
+    public String refreshBondState() {
+        String deviceBondState = BluetoothDevices.getBond(device.getBondState());
+        bondState = deviceBondState;
+        return deviceBondState;
+    }
+
+
+    /**
+     * Takes the bond state from a bond state broadcast instead of reading it from the system.
+     */
+    public void updateBondState(int bondState) {
+        this.bondState = BluetoothDevices.getBond(bondState);
     }
 
 
@@ -80,6 +148,15 @@ public class BleDevice implements Comparable<BleDevice> {
     }
 
 
+    /**
+     * Raw advertisement data of the scan that found this device, for {@link com.rainbow.kam.ble_gatt_manager.scanner.AdvertisementParser}.
+     * {@code null} when the device was not created from a scan.
+     */
+    public byte[] getScanRecord() {
+        return scanRecord;
+    }
+
+
     @Override public boolean equals(Object object) {
         if (object == this) {
             return true;
@@ -87,7 +164,9 @@ public class BleDevice implements Comparable<BleDevice> {
 
         if (object instanceof BleDevice) {
             BleDevice other = (BleDevice) object;
-            return Objects.equal(this.getAddress(), other.getAddress());
+            return addressBits != MacAddress.NONE
+                    ? addressBits == other.addressBits
+                    : hashCode == other.hashCode && Objects.equal(address, other.address);
         } else {
             return false;
         }
@@ -97,7 +176,7 @@ public class BleDevice implements Comparable<BleDevice> {
     @Override public String toString() {
         return MoreObjects.toStringHelper(this)
                 .add("name", getName())
-                .add("address", getAddress())
+                .add("address", address)
                 .add("bondState", getBondState())
                 .add("type", getType())
                 .add("rssi", rssi).toString();
@@ -105,11 +184,14 @@ public class BleDevice implements Comparable<BleDevice> {
 
 
     @Override public int hashCode() {
-        return Objects.hashCode(getAddress());
+        return hashCode;
     }
 
 
     @Override public int compareTo(@NonNull final BleDevice anotherDevice) {
-        return getAddress().compareTo(anotherDevice.getAddress());
+        if (addressBits != MacAddress.NONE && anotherDevice.addressBits != MacAddress.NONE) {
+            return Long.compare(addressBits, anotherDevice.addressBits);
+        }
+        return address.compareTo(anotherDevice.address);
     }
-}
\ No newline at end of file
+}
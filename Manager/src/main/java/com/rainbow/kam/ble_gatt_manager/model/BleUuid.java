@@ -0,0 +1,286 @@
+package com.rainbow.kam.ble_gatt_manager.model;
+
+import com.google.common.base.Preconditions;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A Bluetooth uuid that knows whether it is a 16 or 32 bit short form of the Bluetooth base uuid.
+ * <p>
+ * Conversions to and from {@link UUID} and short forms are bit arithmetic, and formatting and parsing use
+ * lookup tables instead of regular expressions. Short forms in the SIG service, declaration, descriptor and
+ * characteristic ranges are interned, so resolving them again returns the same instance. A short form only
+ * stores its 32 bits and builds the 128 bit form on demand.
+ */
+public abstract class BleUuid {
+
+    private static final long BASE_LEAST_SIGNIFICANT_BITS = BluetoothGatts.BASE_UUID_LEAST_SIGNIFICANT_BITS;
+    private static final long BASE_MOST_SIGNIFICANT_BITS = 0x1000L;
+    private static final long SHORT_MASK = 0xFFFFFFFF00000000L;
+
+    private static final char[] LOWER_HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final char[] UPPER_HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final int[] DASHES = {8, 13, 18, 23};
+
+    private static final int INTERNED_SERVICES = 0x1800;
+    private static final int INTERNED_ATTRIBUTES = 0x2800;
+    private static final int INTERNED_SERVICE_COUNT = 0x100;
+    private static final int INTERNED_ATTRIBUTE_COUNT = 0x400;
+    private static final AtomicReferenceArray<BleUuid> INTERNED =
+            new AtomicReferenceArray<>(INTERNED_SERVICE_COUNT + INTERNED_ATTRIBUTE_COUNT);
+
+
+    private BleUuid() {
+    }
+
+
+    /**
+     * The uuid of a 16 or 32 bit short form.
+     */
+    public static BleUuid fromShortForm(long shortForm) {
+        Preconditions.checkArgument(shortForm >= 0 && shortForm <= 0xFFFFFFFFL, "not a short form: %s", shortForm);
+        int index = internIndex(shortForm);
+        if (index < 0) {
+            return new ShortUuid((int) shortForm);
+        }
+        BleUuid uuid = INTERNED.get(index);
+        if (uuid == null) {
+            INTERNED.compareAndSet(index, null, new ShortUuid((int) shortForm));
+            uuid = INTERNED.get(index);
+        }
+        return uuid;
+    }
+
+
+    public static BleUuid from(long mostSignificantBits, long leastSignificantBits) {
+        if (leastSignificantBits == BASE_LEAST_SIGNIFICANT_BITS && (mostSignificantBits & ~SHORT_MASK) == BASE_MOST_SIGNIFICANT_BITS) {
+            return fromShortForm(mostSignificantBits >>> 32);
+        }
+        return new FullUuid(mostSignificantBits, leastSignificantBits);
+    }
+
+
+    public static BleUuid from(UUID uuid) {
+        return from(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+
+    /**
+     * Parses a full uuid, or a 4 or 8 digit short form with or without {@code 0x}, in either case.
+     *
+     * @throws IllegalArgumentException if {@code uuid} is none of those
+     */
+    public static BleUuid parse(CharSequence uuid) {
+        int length = uuid.length();
+        if (length == 36) {
+            long mostSignificantBits = 0;
+            long leastSignificantBits = 0;
+            int digits = 0;
+            int dash = 0;
+            for (int i = 0; i < length; i++) {
+                char c = uuid.charAt(i);
+                if (dash < DASHES.length && i == DASHES[dash]) {
+                    Preconditions.checkArgument(c == '-', "not a uuid: %s", uuid);
+                    dash++;
+                    continue;
+                }
+                int digit = hexDigit(c, uuid);
+                if (digits++ < 16) {
+                    mostSignificantBits = mostSignificantBits << 4 | digit;
+                } else {
+                    leastSignificantBits = leastSignificantBits << 4 | digit;
+                }
+            }
+            return from(mostSignificantBits, leastSignificantBits);
+        }
+        int start = length > 2 && uuid.charAt(0) == '0' && (uuid.charAt(1) == 'x' || uuid.charAt(1) == 'X') ? 2 : 0;
+        Preconditions.checkArgument(length - start == 4 || length - start == 8, "not a uuid: %s", uuid);
+        long shortForm = 0;
+        for (int i = start; i < length; i++) {
+            shortForm = shortForm << 4 | hexDigit(uuid.charAt(i), uuid);
+        }
+        return fromShortForm(shortForm);
+    }
+
+
+    /**
+     * The same string as {@link UUID#toString()}, without allocating anything but the result.
+     */
+    public static String format(UUID uuid) {
+        return format(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+
+    private static String format(long mostSignificantBits, long leastSignificantBits) {
+        char[] chars = new char[36];
+        int position = 0;
+        int dash = 0;
+        for (int digit = 0; digit < 32; digit++) {
+            if (dash < DASHES.length && position == DASHES[dash]) {
+                chars[position++] = '-';
+                dash++;
+            }
+            long bits = digit < 16 ? mostSignificantBits : leastSignificantBits;
+            chars[position++] = LOWER_HEX_DIGITS[(int) (bits >>> (60 - (digit % 16) * 4)) & 0x0F];
+        }
+        return new String(chars);
+    }
+
+
+    private static int hexDigit(char c, CharSequence uuid) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        throw new IllegalArgumentException("not a uuid: " + uuid);
+    }
+
+
+    private static int internIndex(long shortForm) {
+        if (shortForm >= INTERNED_SERVICES && shortForm < INTERNED_SERVICES + INTERNED_SERVICE_COUNT) {
+            return (int) (shortForm - INTERNED_SERVICES);
+        }
+        if (shortForm >= INTERNED_ATTRIBUTES && shortForm < INTERNED_ATTRIBUTES + INTERNED_ATTRIBUTE_COUNT) {
+            return INTERNED_SERVICE_COUNT + (int) (shortForm - INTERNED_ATTRIBUTES);
+        }
+        return -1;
+    }
+
+
+    public UUID toUuid() {
+        return new UUID(getMostSignificantBits(), getLeastSignificantBits());
+    }
+
+
+    public abstract long getMostSignificantBits();
+
+
+    public abstract long getLeastSignificantBits();
+
+
+    /**
+     * 16 or 32 for short forms of the Bluetooth base uuid, 128 otherwise.
+     */
+    public abstract int getBitWidth();
+
+
+    /**
+     * The 16 or 32 bit short form, or -1 for a 128 bit uuid.
+     */
+    public abstract long getShortForm();
+
+
+    /**
+     * {@code 0x180D} for 16 bit, eight digits for 32 bit and the full form for 128 bit uuids.
+     */
+    public String toShortString() {
+        int bitWidth = getBitWidth();
+        if (bitWidth == 128) {
+            return toString();
+        }
+        int digits = bitWidth / 4;
+        char[] chars = new char[2 + digits];
+        chars[0] = '0';
+        chars[1] = 'x';
+        long shortForm = getShortForm();
+        for (int i = 0; i < digits; i++) {
+            chars[2 + i] = UPPER_HEX_DIGITS[(int) (shortForm >>> ((digits - 1 - i) * 4)) & 0x0F];
+        }
+        return new String(chars);
+    }
+
+
+    @Override public boolean equals(Object object) {
+        if (object == this) {
+            return true;
+        }
+        if (object instanceof BleUuid) {
+            BleUuid other = (BleUuid) object;
+            return getMostSignificantBits() == other.getMostSignificantBits()
+                    && getLeastSignificantBits() == other.getLeastSignificantBits();
+        }
+        return false;
+    }
+
+
+    @Override public int hashCode() {
+        long hash = getMostSignificantBits() ^ getLeastSignificantBits();
+        return (int) (hash >> 32) ^ (int) hash;
+    }
+
+
+    @Override public String toString() {
+        return format(getMostSignificantBits(), getLeastSignificantBits());
+    }
+
+
+    private static final class ShortUuid extends BleUuid {
+
+        // unsigned, so 32 bit short forms above 0x7FFFFFFF fit as well
+        private final int shortForm;
+
+
+        ShortUuid(int shortForm) {
+            this.shortForm = shortForm;
+        }
+
+
+        @Override public long getMostSignificantBits() {
+            return getShortForm() << 32 | BASE_MOST_SIGNIFICANT_BITS;
+        }
+
+
+        @Override public long getLeastSignificantBits() {
+            return BASE_LEAST_SIGNIFICANT_BITS;
+        }
+
+
+        @Override public int getBitWidth() {
+            return (shortForm & 0xFFFF0000) == 0 ? 16 : 32;
+        }
+
+
+        @Override public long getShortForm() {
+            return shortForm & 0xFFFFFFFFL;
+        }
+    }
+
+
+    private static final class FullUuid extends BleUuid {
+
+        private final long mostSignificantBits;
+        private final long leastSignificantBits;
+
+
+        FullUuid(long mostSignificantBits, long leastSignificantBits) {
+            this.mostSignificantBits = mostSignificantBits;
+            this.leastSignificantBits = leastSignificantBits;
+        }
+
+
+        @Override public long getMostSignificantBits() {
+            return mostSignificantBits;
+        }
+
+
+        @Override public long getLeastSignificantBits() {
+            return leastSignificantBits;
+        }
+
+
+        @Override public int getBitWidth() {
+            return 128;
+        }
+
+
+        @Override public long getShortForm() {
+            return -1;
+        }
+    }
+}
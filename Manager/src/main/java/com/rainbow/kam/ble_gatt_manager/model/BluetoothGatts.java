@@ -24,8 +24,6 @@ import com.google.common.collect.Maps;
 import com.rainbow.kam.ble_gatt_manager.BuildConfig;
 
 import java.util.LinkedHashMap;
-import java.util.Locale;
-import java.util.Map;
 import java.util.UUID;
 
 import static android.bluetooth.BluetoothGattCharacteristic.*;
@@ -44,118 +42,18 @@ public class BluetoothGatts {
     public final static String SERVICE_TYPE_PRIMARY = "PRIMARY";
     public final static String SERVICE_TYPE_SECONDARY = "SECONDARY";
 
-    private final static Map<String, String> SERVICES = Maps.newHashMap();
-    private final static Map<String, String> CHARACTERISTICS = Maps.newHashMap();
+    /**
+     * Low bits of the Bluetooth base uuid {@code 0000xxxx-0000-1000-8000-00805F9B34FB}.
+     */
+    public final static long BASE_UUID_LEAST_SIGNIFICANT_BITS = 0x800000805F9B34FBL;
+    private final static long BASE_UUID_MOST_SIGNIFICANT_BITS = 0x0000000000001000L;
+    private final static long SHORT_UUID_MASK = 0x0000FFFF00000000L;
+    private final static int APPEARANCE_SUBCATEGORY_MASK = 0x3F;
 
     private final static SparseArray<String> VALUE_FORMATS = new SparseArray<>();
     private final static LinkedHashMap<Integer, String> PROPERTIES = Maps.newLinkedHashMap();
 
     static {
-        SERVICES.put("00001811-0000-1000-8000-00805F9B34FB", "Alert Notification Service");
-        SERVICES.put(BATTERY_SERVICE_UUID.toString(), "Battery Service");
-        SERVICES.put("00001810-0000-1000-8000-00805F9B34FB", "Blood Pressure");
-        SERVICES.put("00001805-0000-1000-8000-00805F9B34FB", "Current Time Service");
-        SERVICES.put("00001818-0000-1000-8000-00805F9B34FB", "Cycling Power");
-        SERVICES.put("00001816-0000-1000-8000-00805F9B34FB", "Cycling Speed and Cadence");
-        SERVICES.put("0000180A-0000-1000-8000-00805F9B34FB", "Device Information");
-        SERVICES.put("00001800-0000-1000-8000-00805F9B34FB", "Generic Access");
-        SERVICES.put("00001801-0000-1000-8000-00805F9B34FB", "Generic Attribute");
-        SERVICES.put("00001808-0000-1000-8000-00805F9B34FB", "Glucose");
-        SERVICES.put("00001809-0000-1000-8000-00805F9B34FB", "Health Thermometer");
-        SERVICES.put("0000180D-0000-1000-8000-00805F9B34FB", "Heart Rate");
-        SERVICES.put("00001812-0000-1000-8000-00805F9B34FB", "Human Interface Device");
-        SERVICES.put("00001802-0000-1000-8000-00805F9B34FB", "Immediate Alert");
-        SERVICES.put("00001803-0000-1000-8000-00805F9B34FB", "Link Loss");
-        SERVICES.put("00001819-0000-1000-8000-00805F9B34FB", "Location and Navigation");
-        SERVICES.put("00001807-0000-1000-8000-00805F9B34FB", "Next DST Change Service");
-        SERVICES.put("0000180E-0000-1000-8000-00805F9B34FB", "Phone Alert Status Service");
-        SERVICES.put("00001806-0000-1000-8000-00805F9B34FB", "Reference Time Update Service");
-        SERVICES.put("00001814-0000-1000-8000-00805F9B34FB", "Running Speed and Cadence");
-        SERVICES.put("00001813-0000-1000-8000-00805F9B34FB", "Scan Parameters");
-        SERVICES.put("00001804-0000-1000-8000-00805F9B34FB", "Tx Power");
-
-        CHARACTERISTICS.put("00002A43-0000-1000-8000-00805F9B34FB", "Alert Category ID");
-        CHARACTERISTICS.put("00002A42-0000-1000-8000-00805F9B34FB", "Alert Category ID Bit Mask");
-        CHARACTERISTICS.put("00002A06-0000-1000-8000-00805F9B34FB", "Alert Level");
-        CHARACTERISTICS.put("00002A44-0000-1000-8000-00805F9B34FB", "Alert Notification Control Point");
-        CHARACTERISTICS.put("00002A3F-0000-1000-8000-00805F9B34FB", "Alert Status");
-        CHARACTERISTICS.put("00002A01-0000-1000-8000-00805F9B34FB", "Appearance");
-        CHARACTERISTICS.put(BATTERY_CHARACTERISTIC_UUID.toString(), "Battery Level");
-        CHARACTERISTICS.put("00002A49-0000-1000-8000-00805F9B34FB", "Blood Pressure Feature");
-        CHARACTERISTICS.put("00002A35-0000-1000-8000-00805F9B34FB", "Blood Pressure Measurement");
-        CHARACTERISTICS.put("00002A38-0000-1000-8000-00805F9B34FB", "Body Sensor Location");
-        CHARACTERISTICS.put("00002A22-0000-1000-8000-00805F9B34FB", "Boot Keyboard Input Report");
-        CHARACTERISTICS.put("00002A32-0000-1000-8000-00805F9B34FB", "Boot Keyboard Output Report");
-        CHARACTERISTICS.put("00002A33-0000-1000-8000-00805F9B34FB", "Boot Mouse Input Report");
-        CHARACTERISTICS.put("00002A5C-0000-1000-8000-00805F9B34FB", "CSC Feature");
-        CHARACTERISTICS.put("00002A5B-0000-1000-8000-00805F9B34FB", "CSC Measurement");
-        CHARACTERISTICS.put("00002A2B-0000-1000-8000-00805F9B34FB", "Current Time");
-        CHARACTERISTICS.put("00002A66-0000-1000-8000-00805F9B34FB", "Cycling Power Control Point");
-        CHARACTERISTICS.put("00002A65-0000-1000-8000-00805F9B34FB", "Cycling Power Feature");
-        CHARACTERISTICS.put("00002A63-0000-1000-8000-00805F9B34FB", "Cycling Power Measurement");
-        CHARACTERISTICS.put("00002A64-0000-1000-8000-00805F9B34FB", "Cycling Power Vector");
-        CHARACTERISTICS.put("00002A08-0000-1000-8000-00805F9B34FB", "Date Time");
-        CHARACTERISTICS.put("00002A0A-0000-1000-8000-00805F9B34FB", "Day Date Time");
-        CHARACTERISTICS.put("00002A09-0000-1000-8000-00805F9B34FB", "Day of Week");
-        CHARACTERISTICS.put("00002A00-0000-1000-8000-00805F9B34FB", "Device Name");
-        CHARACTERISTICS.put("00002A0D-0000-1000-8000-00805F9B34FB", "DST Offset");
-        CHARACTERISTICS.put("00002A0C-0000-1000-8000-00805F9B34FB", "Exact Time 256");
-        CHARACTERISTICS.put("00002A26-0000-1000-8000-00805F9B34FB", "Firmware Revision String");
-        CHARACTERISTICS.put("00002A51-0000-1000-8000-00805F9B34FB", "Glucose Feature");
-        CHARACTERISTICS.put("00002A18-0000-1000-8000-00805F9B34FB", "Glucose Measurement");
-        CHARACTERISTICS.put("00002A34-0000-1000-8000-00805F9B34FB", "Glucose Measurement Context");
-        CHARACTERISTICS.put("00002A27-0000-1000-8000-00805F9B34FB", "Hardware Revision String");
-        CHARACTERISTICS.put("00002A39-0000-1000-8000-00805F9B34FB", "Heart Rate Control Point");
-        CHARACTERISTICS.put("00002A37-0000-1000-8000-00805F9B34FB", "Heart Rate Measurement");
-        CHARACTERISTICS.put("00002A4C-0000-1000-8000-00805F9B34FB", "HID Control Point");
-        CHARACTERISTICS.put("00002A4A-0000-1000-8000-00805F9B34FB", "HID Information");
-        CHARACTERISTICS.put("00002A2A-0000-1000-8000-00805F9B34FB", "IEEE 11073-20601 Regulatory Certification Data List");
-        CHARACTERISTICS.put("00002A36-0000-1000-8000-00805F9B34FB", "Intermediate Cuff Pressure");
-        CHARACTERISTICS.put("00002A1E-0000-1000-8000-00805F9B34FB", "Intermediate Temperature");
-        CHARACTERISTICS.put("00002A6B-0000-1000-8000-00805F9B34FB", "LN Control Point");
-        CHARACTERISTICS.put("00002A6A-0000-1000-8000-00805F9B34FB", "LN Feature");
-        CHARACTERISTICS.put("00002A0F-0000-1000-8000-00805F9B34FB", "Local Time Information");
-        CHARACTERISTICS.put("00002A67-0000-1000-8000-00805F9B34FB", "Location and Speed");
-        CHARACTERISTICS.put("00002A29-0000-1000-8000-00805F9B34FB", "Manufacturer Name String");
-        CHARACTERISTICS.put("00002A21-0000-1000-8000-00805F9B34FB", "Measurement Interval");
-        CHARACTERISTICS.put("00002A24-0000-1000-8000-00805F9B34FB", "Model Number String");
-        CHARACTERISTICS.put("00002A68-0000-1000-8000-00805F9B34FB", "Navigation");
-        CHARACTERISTICS.put("00002A46-0000-1000-8000-00805F9B34FB", "New Alert");
-        CHARACTERISTICS.put("00002A04-0000-1000-8000-00805F9B34FB", "Peripheral Preferred Connection Parameters");
-        CHARACTERISTICS.put("00002A02-0000-1000-8000-00805F9B34FB", "Peripheral Privacy Flag");
-        CHARACTERISTICS.put("00002A50-0000-1000-8000-00805F9B34FB", "PnP ID");
-        CHARACTERISTICS.put("00002A69-0000-1000-8000-00805F9B34FB", "Position Quality");
-        CHARACTERISTICS.put("00002A4E-0000-1000-8000-00805F9B34FB", "Protocol Mode");
-        CHARACTERISTICS.put("00002A03-0000-1000-8000-00805F9B34FB", "Reconnection Address");
-        CHARACTERISTICS.put("00002A52-0000-1000-8000-00805F9B34FB", "Record Access Control Point");
-        CHARACTERISTICS.put("00002A14-0000-1000-8000-00805F9B34FB", "Reference Time Information");
-        CHARACTERISTICS.put("00002A4D-0000-1000-8000-00805F9B34FB", "Report");
-        CHARACTERISTICS.put("00002A4B-0000-1000-8000-00805F9B34FB", "Report Map");
-        CHARACTERISTICS.put("00002A40-0000-1000-8000-00805F9B34FB", "Ringer Control Point");
-        CHARACTERISTICS.put("00002A41-0000-1000-8000-00805F9B34FB", "Ringer Setting");
-        CHARACTERISTICS.put("00002A54-0000-1000-8000-00805F9B34FB", "RSC Feature");
-        CHARACTERISTICS.put("00002A53-0000-1000-8000-00805F9B34FB", "RSC Measurement");
-        CHARACTERISTICS.put("00002A55-0000-1000-8000-00805F9B34FB", "SC Control Point");
-        CHARACTERISTICS.put("00002A4F-0000-1000-8000-00805F9B34FB", "Scan Interval Window");
-        CHARACTERISTICS.put("00002A31-0000-1000-8000-00805F9B34FB", "Scan Refresh");
-        CHARACTERISTICS.put("00002A5D-0000-1000-8000-00805F9B34FB", "Sensor Location");
-        CHARACTERISTICS.put("00002A25-0000-1000-8000-00805F9B34FB", "Serial Number String");
-        CHARACTERISTICS.put("00002A05-0000-1000-8000-00805F9B34FB", "Service Changed");
-        CHARACTERISTICS.put("00002A28-0000-1000-8000-00805F9B34FB", "Software Revision String");
-        CHARACTERISTICS.put("00002A47-0000-1000-8000-00805F9B34FB", "Supported New Alert Category");
-        CHARACTERISTICS.put("00002A48-0000-1000-8000-00805F9B34FB", "Supported Unread Alert Category");
-        CHARACTERISTICS.put("00002A23-0000-1000-8000-00805F9B34FB", "System ID");
-        CHARACTERISTICS.put("00002A1C-0000-1000-8000-00805F9B34FB", "Temperature Measurement");
-        CHARACTERISTICS.put("00002A1D-0000-1000-8000-00805F9B34FB", "Temperature Type");
-        CHARACTERISTICS.put("00002A12-0000-1000-8000-00805F9B34FB", "Time Accuracy");
-        CHARACTERISTICS.put("00002A13-0000-1000-8000-00805F9B34FB", "Time Source");
-        CHARACTERISTICS.put("00002A16-0000-1000-8000-00805F9B34FB", "Time Update Control Point");
-        CHARACTERISTICS.put("00002A17-0000-1000-8000-00805F9B34FB", "Time Update State");
-        CHARACTERISTICS.put("00002A11-0000-1000-8000-00805F9B34FB", "Time with DST");
-        CHARACTERISTICS.put("00002A0E-0000-1000-8000-00805F9B34FB", "Time Zone");
-        CHARACTERISTICS.put("00002A07-0000-1000-8000-00805F9B34FB", "Tx Power Level");
-        CHARACTERISTICS.put("00002A45-0000-1000-8000-00805F9B34FB", "Unread Alert Status");
-
         VALUE_FORMATS.put(FORMAT_FLOAT, "32bit float");
         VALUE_FORMATS.put(FORMAT_SFLOAT, "16bit float");
         VALUE_FORMATS.put(FORMAT_SINT16, "16bit signed int");
@@ -176,14 +74,90 @@ public class BluetoothGatts {
     }
 
     public static String resolveServiceName(final String uuid) {
-        String res = SERVICES.get(uuid.toUpperCase(Locale.getDefault()));
-        return res == null ? UNKNOWN : res;
+        return resolve(GattRegistry.SERVICE, toShortUuid(uuid));
+    }
+
+
+    public static String resolveServiceName(final UUID uuid) {
+        return resolve(GattRegistry.SERVICE, toShortUuid(uuid));
     }
 
 
     public static String resolveCharacteristicName(final String uuid) {
-        String res = CHARACTERISTICS.get(uuid.toUpperCase(Locale.getDefault()));
-        return res == null ? UNKNOWN : res;
+        return resolve(GattRegistry.CHARACTERISTIC, toShortUuid(uuid));
+    }
+
+
+    public static String resolveCharacteristicName(final UUID uuid) {
+        return resolve(GattRegistry.CHARACTERISTIC, toShortUuid(uuid));
+    }
+
+
+    public static String resolveDescriptorName(final UUID uuid) {
+        return resolve(GattRegistry.DESCRIPTOR, toShortUuid(uuid));
+    }
+
+
+    /**
+     * Name of the company identifier of manufacturer specific data.
+     */
+    public static String resolveCompanyName(final int companyId) {
+        return resolve(GattRegistry.COMPANY, companyId);
+    }
+
+
+    /**
+     * Name of a gap appearance value, or of its category when the subcategory is not known.
+     */
+    public static String resolveAppearance(final int appearance) {
+        String name = GattRegistry.getInstance().resolve(GattRegistry.APPEARANCE, appearance);
+        return name != null ? name : resolve(GattRegistry.APPEARANCE, appearance & ~APPEARANCE_SUBCATEGORY_MASK);
+    }
+
+
+    private static String resolve(int kind, int key) {
+        String name = key >= 0 ? GattRegistry.getInstance().resolve(kind, key) : null;
+        return name != null ? name : UNKNOWN;
+    }
+
+
+    /**
+     * The 16 bit short form of a uuid built on the Bluetooth base uuid, or -1.
+     */
+    public static int toShortUuid(final UUID uuid) {
+        if (uuid == null || uuid.getLeastSignificantBits() != BASE_UUID_LEAST_SIGNIFICANT_BITS) {
+            return -1;
+        }
+        long mostSignificantBits = uuid.getMostSignificantBits();
+        if ((mostSignificantBits & ~SHORT_UUID_MASK) != BASE_UUID_MOST_SIGNIFICANT_BITS) {
+            return -1;
+        }
+        return (int) ((mostSignificantBits & SHORT_UUID_MASK) >>> 32);
+    }
+
+
+    /**
+     * The 16 bit short form of a uuid string in either case, or -1, without parsing it into a {@link UUID}.
+     */
+    public static int toShortUuid(final String uuid) {
+        if (uuid == null || uuid.length() != 36 || !uuid.startsWith("0000")
+                || !uuid.regionMatches(true, 8, UUID_LABEL, 0, UUID_LABEL.length())) {
+            return -1;
+        }
+        int shortUuid = 0;
+        for (int i = 4; i < 8; i++) {
+            int digit = Character.digit(uuid.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            shortUuid = (shortUuid << 4) | digit;
+        }
+        return shortUuid;
+    }
+
+
+    public static UUID fromShortUuid(final int shortUuid) {
+        return new UUID(BASE_UUID_MOST_SIGNIFICANT_BITS | ((long) shortUuid & 0xFFFF) << 32, BASE_UUID_LEAST_SIGNIFICANT_BITS);
     }
 
 
@@ -0,0 +1,153 @@
+package com.rainbow.kam.ble_gatt_manager.model;
+
+import android.util.Log;
+import android.util.SparseArray;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.io.ByteStreams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Bluetooth assigned numbers, read from the {@code gatt_registry.bin} resource generated from
+ * {@code src/main/registry} by the {@code generateGattRegistry} task.
+ * <p>
+ * The resource is loaded on first use into a single array and searched in place with binary search.
+ * Names are decoded only when looked up, and kept, so a registry of thousands of entries costs
+ * one array plus the names actually shown.
+ */
+public final class GattRegistry {
+
+    public static final int SERVICE = 1;
+    public static final int CHARACTERISTIC = 2;
+    public static final int DESCRIPTOR = 3;
+    public static final int COMPANY = 4;
+    public static final int APPEARANCE = 5;
+
+    private static final String TAG = GattRegistry.class.getSimpleName();
+    private static final String RESOURCE = "gatt_registry.bin";
+    private static final int MAGIC = 0x47524547;
+    private static final int VERSION = 1;
+    private static final int KIND_COUNT = APPEARANCE + 1;
+    private static final int ENTRY_SIZE = 8;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String MISSING = new String("");
+
+    private final ByteBuffer buffer;
+    private final int[] counts = new int[KIND_COUNT];
+    private final int[] offsets = new int[KIND_COUNT];
+    private final SparseArray<SparseArray<String>> resolved = new SparseArray<>();
+
+
+    GattRegistry(byte[] bytes) {
+        this.buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length < 8 || buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION) {
+            return;
+        }
+        int tableCount = buffer.getShort(6);
+        for (int i = 0; i < tableCount; i++) {
+            int directory = 8 + i * 12;
+            int kind = buffer.getInt(directory);
+            if (kind > 0 && kind < KIND_COUNT) {
+                counts[kind] = buffer.getInt(directory + 4);
+                offsets[kind] = buffer.getInt(directory + 8);
+            }
+        }
+    }
+
+
+    public static GattRegistry getInstance() {
+        return Holder.INSTANCE;
+    }
+
+
+    /**
+     * The name of {@code key} in the table of {@code kind}, or null.
+     */
+    public synchronized String resolve(int kind, int key) {
+        if (kind <= 0 || kind >= KIND_COUNT) {
+            return null;
+        }
+        SparseArray<String> names = resolved.get(kind);
+        if (names == null) {
+            names = new SparseArray<>();
+            resolved.put(kind, names);
+        }
+        String name = names.get(key);
+        if (name == null) {
+            int entry = search(kind, key);
+            name = entry >= 0 ? readName(buffer.getInt(entry + 4)) : MISSING;
+            names.put(key, name);
+        }
+        return name != MISSING ? name : null;
+    }
+
+
+    public int size(int kind) {
+        return kind > 0 && kind < KIND_COUNT ? counts[kind] : 0;
+    }
+
+
+    private int search(int kind, int key) {
+        int low = 0;
+        int high = counts[kind] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = offsets[kind] + middle * ENTRY_SIZE;
+            int middleKey = buffer.getInt(entry);
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+
+    private String readName(int offset) {
+        int length = buffer.getShort(offset) & 0xFFFF;
+        return new String(buffer.array(), offset + 2, length, UTF_8);
+    }
+
+
+    private static GattRegistry load() {
+        InputStream inputStream = GattRegistry.class.getResourceAsStream(RESOURCE);
+        if (inputStream == null) {
+            Log.w(TAG, RESOURCE + " is missing, assigned numbers resolve to nothing");
+            return new GattRegistry(new byte[0]);
+        }
+        try {
+            return new GattRegistry(ByteStreams.toByteArray(inputStream));
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read " + RESOURCE, e);
+            return new GattRegistry(new byte[0]);
+        } finally {
+            try {
+                inputStream.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("services", counts[SERVICE])
+                .add("characteristics", counts[CHARACTERISTIC])
+                .add("descriptors", counts[DESCRIPTOR])
+                .add("companies", counts[COMPANY])
+                .add("appearances", counts[APPEARANCE]).toString();
+    }
+
+
+    private static class Holder {
+
+        private static final GattRegistry INSTANCE = load();
+    }
+}
@@ -0,0 +1,131 @@
+package com.rainbow.kam.ble_gatt_manager.model;
+
+import android.support.annotation.NonNull;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A 48 bit Bluetooth device address packed into the low bits of a {@code long}, most significant octet first,
+ * so packed addresses order the same as their upper case strings.
+ * <p>
+ * The static {@link #pack(String)} and {@link #format(long)} work on plain longs for primitive keyed collections
+ * such as {@link com.rainbow.kam.ble_gatt_manager.util.LongHashMap}.
+ */
+public final class MacAddress implements Comparable<MacAddress> {
+
+    /**
+     * Returned by {@link #pack(String)} for anything that is not an address; no address packs to it.
+     */
+    public static final long NONE = -1L;
+
+    private static final long MASK = 0xFFFFFFFFFFFFL;
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final long bits;
+
+
+    private MacAddress(long bits) {
+        this.bits = bits;
+    }
+
+
+    public static MacAddress of(long bits) {
+        Preconditions.checkArgument((bits & ~MASK) == 0, "not a 48 bit address: %s", bits);
+        return new MacAddress(bits);
+    }
+
+
+    /**
+     * @throws IllegalArgumentException if {@code address} is not in the form {@code 00:11:22:AA:BB:CC}
+     */
+    public static MacAddress parse(String address) {
+        long bits = pack(address);
+        Preconditions.checkArgument(bits != NONE, "not an address: %s", address);
+        return new MacAddress(bits);
+    }
+
+
+    /**
+     * Packs {@code 00:11:22:AA:BB:CC}, in either case, or {@link #NONE} if {@code address} is null or malformed.
+     */
+    public static long pack(String address) {
+        if (address == null || address.length() != 17) {
+            return NONE;
+        }
+        long bits = 0;
+        for (int i = 0; i < 17; i++) {
+            char c = address.charAt(i);
+            if (i % 3 == 2) {
+                if (c != ':') {
+                    return NONE;
+                }
+                continue;
+            }
+            int digit = hexDigit(c);
+            if (digit < 0) {
+                return NONE;
+            }
+            bits = (bits << 4) | digit;
+        }
+        return bits;
+    }
+
+
+    /**
+     * Formats packed bits as an upper case address, or returns null for {@link #NONE}.
+     */
+    public static String format(long bits) {
+        if (bits == NONE) {
+            return null;
+        }
+        char[] chars = new char[17];
+        for (int i = 0; i < 6; i++) {
+            int octet = (int) (bits >>> (40 - i * 8)) & 0xFF;
+            chars[i * 3] = HEX[octet >>> 4];
+            chars[i * 3 + 1] = HEX[octet & 0x0F];
+            if (i < 5) {
+                chars[i * 3 + 2] = ':';
+            }
+        }
+        return new String(chars);
+    }
+
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+
+    public long toLong() {
+        return bits;
+    }
+
+
+    @Override public boolean equals(Object object) {
+        return object == this || object instanceof MacAddress && ((MacAddress) object).bits == bits;
+    }
+
+
+    @Override public int hashCode() {
+        return (int) (bits ^ (bits >>> 32));
+    }
+
+
+    @Override public int compareTo(@NonNull MacAddress another) {
+        return Long.compare(bits, another.bits);
+    }
+
+
+    @Override public String toString() {
+        return format(bits);
+    }
+}
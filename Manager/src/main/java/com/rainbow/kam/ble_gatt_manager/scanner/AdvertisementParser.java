@@ -0,0 +1,493 @@
+package com.rainbow.kam.ble_gatt_manager.scanner;
+
+import com.google.common.base.MoreObjects;
+
+import java.nio.charset.Charset;
+import java.util.UUID;
+
+/**
+ * Flyweight reader over raw advertisement data, as returned by {@code ScanRecord.getBytes()}.
+ * <p>
+ * {@link #reset} walks the AD structures once and remembers where each known field starts; the accessors
+ * then read straight from the caller's array. One parser is meant to be reused for every advertisement,
+ * and nothing but {@link #getLocalName()} and {@link #getServiceUuid128(int)} allocates.
+ * Fields that appear in more than one structure are read from the first one, except service data, where an
+ * Eddystone structure wins over any other so beacons that also advertise other service data are recognised.
+ * <pre>{@code
+ * if (parser.reset(bleDevice.getScanRecord()) && parser.isIBeacon()) {
+ *     int major = parser.getIBeaconMajor();
+ * }
+ * }</pre>
+ */
+public class AdvertisementParser {
+
+    public static final int TYPE_FLAGS = 0x01;
+    public static final int TYPE_UUID16_INCOMPLETE = 0x02;
+    public static final int TYPE_UUID16_COMPLETE = 0x03;
+    public static final int TYPE_UUID32_INCOMPLETE = 0x04;
+    public static final int TYPE_UUID32_COMPLETE = 0x05;
+    public static final int TYPE_UUID128_INCOMPLETE = 0x06;
+    public static final int TYPE_UUID128_COMPLETE = 0x07;
+    public static final int TYPE_NAME_SHORT = 0x08;
+    public static final int TYPE_NAME_COMPLETE = 0x09;
+    public static final int TYPE_TX_POWER = 0x0A;
+    public static final int TYPE_SERVICE_DATA_UUID16 = 0x16;
+    public static final int TYPE_MANUFACTURER_DATA = 0xFF;
+
+    public static final int NOT_PRESENT = Integer.MIN_VALUE;
+
+    public static final int APPLE_COMPANY_ID = 0x004C;
+    public static final int EDDYSTONE_SERVICE_UUID = 0xFEAA;
+
+    public static final int EDDYSTONE_UID = 0x00;
+    public static final int EDDYSTONE_URL = 0x10;
+    public static final int EDDYSTONE_TLM = 0x20;
+    public static final int EDDYSTONE_EID = 0x30;
+
+    private static final int EDDYSTONE_UID_LENGTH = 18;
+    private static final int EDDYSTONE_URL_MIN_LENGTH = 3;
+    private static final int EDDYSTONE_TLM_LENGTH = 14;
+    private static final int EDDYSTONE_EID_LENGTH = 10;
+
+    private static final int IBEACON_TYPE = 0x02;
+    private static final int IBEACON_LENGTH = 0x15;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final byte[] EMPTY = new byte[0];
+
+    private byte[] bytes;
+    private int end;
+
+    private int flagsOffset = -1;
+    private int txPowerOffset = -1;
+    private int nameOffset = -1;
+    private int nameLength;
+    private int uuid16Offset = -1;
+    private int uuid16Length;
+    private int uuid32Offset = -1;
+    private int uuid32Length;
+    private int uuid128Offset = -1;
+    private int uuid128Length;
+    private int manufacturerOffset = -1;
+    private int manufacturerLength;
+    private int serviceDataOffset = -1;
+    private int serviceDataLength;
+
+
+    public boolean reset(byte[] bytes) {
+        return bytes != null ? reset(bytes, 0, bytes.length) : reset(EMPTY, 0, 0);
+    }
+
+
+    /**
+     * Points the parser at {@code length} bytes of advertisement data and returns whether any AD structure was found.
+     * Trailing zero padding and a truncated last structure are ignored.
+     */
+    public boolean reset(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.end = offset + length;
+        flagsOffset = txPowerOffset = -1;
+        nameOffset = uuid16Offset = uuid32Offset = uuid128Offset = manufacturerOffset = serviceDataOffset = -1;
+        nameLength = uuid16Length = uuid32Length = uuid128Length = manufacturerLength = serviceDataLength = 0;
+
+        boolean found = false;
+        int position = offset;
+        while (position < end) {
+            int structureLength = bytes[position] & 0xFF;
+            if (structureLength == 0 || position + 1 + structureLength > end) {
+                break;
+            }
+            int type = bytes[position + 1] & 0xFF;
+            int dataOffset = position + 2;
+            int dataLength = structureLength - 1;
+            index(type, dataOffset, dataLength);
+            found = true;
+            position += 1 + structureLength;
+        }
+        return found;
+    }
+
+
+    private void index(int type, int dataOffset, int dataLength) {
+        switch (type) {
+            case TYPE_FLAGS:
+                if (flagsOffset < 0 && dataLength >= 1) {
+                    flagsOffset = dataOffset;
+                }
+                break;
+            case TYPE_TX_POWER:
+                if (txPowerOffset < 0 && dataLength >= 1) {
+                    txPowerOffset = dataOffset;
+                }
+                break;
+            case TYPE_NAME_SHORT:
+            case TYPE_NAME_COMPLETE:
+                if (nameOffset < 0 || type == TYPE_NAME_COMPLETE) {
+                    nameOffset = dataOffset;
+                    nameLength = dataLength;
+                }
+                break;
+            case TYPE_UUID16_INCOMPLETE:
+            case TYPE_UUID16_COMPLETE:
+                if (uuid16Offset < 0) {
+                    uuid16Offset = dataOffset;
+                    uuid16Length = dataLength;
+                }
+                break;
+            case TYPE_UUID32_INCOMPLETE:
+            case TYPE_UUID32_COMPLETE:
+                if (uuid32Offset < 0) {
+                    uuid32Offset = dataOffset;
+                    uuid32Length = dataLength;
+                }
+                break;
+            case TYPE_UUID128_INCOMPLETE:
+            case TYPE_UUID128_COMPLETE:
+                if (uuid128Offset < 0) {
+                    uuid128Offset = dataOffset;
+                    uuid128Length = dataLength;
+                }
+                break;
+            case TYPE_SERVICE_DATA_UUID16:
+                if (dataLength >= 2 && (serviceDataOffset < 0 || !isEddystoneServiceData(serviceDataOffset)
+                        && isEddystoneServiceData(dataOffset))) {
+                    serviceDataOffset = dataOffset;
+                    serviceDataLength = dataLength;
+                }
+                break;
+            case TYPE_MANUFACTURER_DATA:
+                if (manufacturerOffset < 0 && dataLength >= 2) {
+                    manufacturerOffset = dataOffset;
+                    manufacturerLength = dataLength;
+                }
+                break;
+        }
+    }
+
+
+    private boolean isEddystoneServiceData(int offset) {
+        return uint16(offset) == EDDYSTONE_SERVICE_UUID;
+    }
+
+
+    /**
+     * The array the parser currently reads, for the {@code *Offset} accessors.
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+
+    /**
+     * The flags byte, or {@link #NOT_PRESENT}.
+     */
+    public int getFlags() {
+        return flagsOffset >= 0 ? bytes[flagsOffset] & 0xFF : NOT_PRESENT;
+    }
+
+
+    /**
+     * Advertised tx power level in dBm, or {@link #NOT_PRESENT}.
+     */
+    public int getTxPowerLevel() {
+        return txPowerOffset >= 0 ? bytes[txPowerOffset] : NOT_PRESENT;
+    }
+
+
+    public String getLocalName() {
+        return nameOffset >= 0 ? new String(bytes, nameOffset, nameLength, UTF_8) : null;
+    }
+
+
+    public int getServiceUuid16Count() {
+        return uuid16Length / 2;
+    }
+
+
+    public int getServiceUuid16(int index) {
+        return uint16(uuid16Offset + index * 2);
+    }
+
+
+    public int getServiceUuid32Count() {
+        return uuid32Length / 4;
+    }
+
+
+    public long getServiceUuid32(int index) {
+        return uint32(uuid32Offset + index * 4);
+    }
+
+
+    public int getServiceUuid128Count() {
+        return uuid128Length / 16;
+    }
+
+
+    public long getServiceUuid128MostSignificantBits(int index) {
+        return int64(uuid128Offset + index * 16 + 8);
+    }
+
+
+    public long getServiceUuid128LeastSignificantBits(int index) {
+        return int64(uuid128Offset + index * 16);
+    }
+
+
+    public UUID getServiceUuid128(int index) {
+        return new UUID(getServiceUuid128MostSignificantBits(index), getServiceUuid128LeastSignificantBits(index));
+    }
+
+
+    public boolean hasServiceUuid16(int uuid16) {
+        for (int i = 0, count = getServiceUuid16Count(); i < count; i++) {
+            if (getServiceUuid16(i) == uuid16) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    public boolean hasServiceUuid128(UUID uuid) {
+        for (int i = 0, count = getServiceUuid128Count(); i < count; i++) {
+            if (getServiceUuid128MostSignificantBits(i) == uuid.getMostSignificantBits()
+                    && getServiceUuid128LeastSignificantBits(i) == uuid.getLeastSignificantBits()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Company identifier of the manufacturer data, or {@link #NOT_PRESENT}.
+     */
+    public int getManufacturerId() {
+        return manufacturerOffset >= 0 ? uint16(manufacturerOffset) : NOT_PRESENT;
+    }
+
+
+    /**
+     * Offset of the manufacturer specific data after the company identifier, or -1.
+     */
+    public int getManufacturerDataOffset() {
+        return manufacturerOffset >= 0 ? manufacturerOffset + 2 : -1;
+    }
+
+
+    public int getManufacturerDataLength() {
+        return manufacturerOffset >= 0 ? manufacturerLength - 2 : 0;
+    }
+
+
+    /**
+     * 16 bit service uuid of the service data, or {@link #NOT_PRESENT}.
+     */
+    public int getServiceDataUuid16() {
+        return serviceDataOffset >= 0 ? uint16(serviceDataOffset) : NOT_PRESENT;
+    }
+
+
+    public int getServiceDataOffset() {
+        return serviceDataOffset >= 0 ? serviceDataOffset + 2 : -1;
+    }
+
+
+    public int getServiceDataLength() {
+        return serviceDataOffset >= 0 ? serviceDataLength - 2 : 0;
+    }
+
+
+    public boolean isIBeacon() {
+        int offset = getManufacturerDataOffset();
+        return getManufacturerId() == APPLE_COMPANY_ID
+                && getManufacturerDataLength() >= 2 + IBEACON_LENGTH
+                && bytes[offset] == IBEACON_TYPE
+                && bytes[offset + 1] == IBEACON_LENGTH;
+    }
+
+
+    public long getIBeaconUuidMostSignificantBits() {
+        return int64BigEndian(getManufacturerDataOffset() + 2);
+    }
+
+
+    public long getIBeaconUuidLeastSignificantBits() {
+        return int64BigEndian(getManufacturerDataOffset() + 10);
+    }
+
+
+    public int getIBeaconMajor() {
+        return uint16BigEndian(getManufacturerDataOffset() + 18);
+    }
+
+
+    public int getIBeaconMinor() {
+        return uint16BigEndian(getManufacturerDataOffset() + 20);
+    }
+
+
+    /**
+     * Calibrated rssi at one meter in dBm.
+     */
+    public int getIBeaconTxPower() {
+        return bytes[getManufacturerDataOffset() + 22];
+    }
+
+
+    public boolean isEddystone() {
+        return getServiceDataUuid16() == EDDYSTONE_SERVICE_UUID && getServiceDataLength() >= 1;
+    }
+
+
+    /**
+     * One of {@link #EDDYSTONE_UID}, {@link #EDDYSTONE_URL}, {@link #EDDYSTONE_TLM} or {@link #EDDYSTONE_EID},
+     * or {@link #NOT_PRESENT} without an Eddystone frame.
+     */
+    public int getEddystoneFrameType() {
+        return isEddystone() ? bytes[getServiceDataOffset()] & 0xF0 : NOT_PRESENT;
+    }
+
+
+    /**
+     * Calibrated tx power at zero meters in dBm of a uid, url or eid frame, or {@link #NOT_PRESENT}.
+     */
+    public int getEddystoneTxPower() {
+        if (!isEddystone()) {
+            return NOT_PRESENT;
+        }
+        switch (getEddystoneFrameType()) {
+            case EDDYSTONE_UID:
+            case EDDYSTONE_URL:
+            case EDDYSTONE_EID:
+                return hasEddystoneFrame(getEddystoneFrameType()) ? bytes[getServiceDataOffset() + 1] : NOT_PRESENT;
+            default:
+                return NOT_PRESENT;
+        }
+    }
+
+
+    /**
+     * Copies the 10 byte namespace of a uid frame into {@code destination}, returning false for any other frame.
+     */
+    public boolean getEddystoneNamespace(byte[] destination) {
+        if (!hasEddystoneFrame(EDDYSTONE_UID)) {
+            return false;
+        }
+        System.arraycopy(bytes, getServiceDataOffset() + 2, destination, 0, 10);
+        return true;
+    }
+
+
+    /**
+     * Copies the 6 byte instance of a uid frame into {@code destination}, returning false for any other frame.
+     */
+    public boolean getEddystoneInstance(byte[] destination) {
+        if (!hasEddystoneFrame(EDDYSTONE_UID)) {
+            return false;
+        }
+        System.arraycopy(bytes, getServiceDataOffset() + 12, destination, 0, 6);
+        return true;
+    }
+
+
+    /**
+     * Battery voltage of a tlm frame, or {@link #NOT_PRESENT}.
+     */
+    public int getEddystoneTlmBatteryMillivolts() {
+        return hasEddystoneFrame(EDDYSTONE_TLM) ? uint16BigEndian(getServiceDataOffset() + 2) : NOT_PRESENT;
+    }
+
+
+    /**
+     * Beacon temperature in degrees Celsius from the signed 8.8 fixed point value of a tlm frame, or NaN.
+     */
+    public float getEddystoneTlmTemperature() {
+        if (!hasEddystoneFrame(EDDYSTONE_TLM)) {
+            return Float.NaN;
+        }
+        int offset = getServiceDataOffset() + 4;
+        return (short) ((bytes[offset] << 8) | (bytes[offset + 1] & 0xFF)) / 256f;
+    }
+
+
+    /**
+     * Advertisement count of a tlm frame, or {@link #NOT_PRESENT}.
+     */
+    public long getEddystoneTlmAdvertisementCount() {
+        return hasEddystoneFrame(EDDYSTONE_TLM) ? uint32BigEndian(getServiceDataOffset() + 6) : NOT_PRESENT;
+    }
+
+
+    /**
+     * Uptime of a tlm frame, or {@link #NOT_PRESENT}.
+     */
+    public long getEddystoneTlmUptimeDeciseconds() {
+        return hasEddystoneFrame(EDDYSTONE_TLM) ? uint32BigEndian(getServiceDataOffset() + 10) : NOT_PRESENT;
+    }
+
+
+    /**
+     * Whether the service data is an Eddystone frame of {@code frameType} long enough for all its fields.
+     */
+    private boolean hasEddystoneFrame(int frameType) {
+        if (!isEddystone() || getEddystoneFrameType() != frameType) {
+            return false;
+        }
+        int length = getServiceDataLength();
+        switch (frameType) {
+            case EDDYSTONE_UID:
+                return length >= EDDYSTONE_UID_LENGTH;
+            case EDDYSTONE_URL:
+                return length >= EDDYSTONE_URL_MIN_LENGTH;
+            case EDDYSTONE_TLM:
+                return length >= EDDYSTONE_TLM_LENGTH;
+            case EDDYSTONE_EID:
+                return length >= EDDYSTONE_EID_LENGTH;
+            default:
+                return false;
+        }
+    }
+
+
+    private int uint16(int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8;
+    }
+
+
+    private long uint32(int offset) {
+        return uint16(offset) | (long) uint16(offset + 2) << 16;
+    }
+
+
+    private long int64(int offset) {
+        return uint32(offset) | uint32(offset + 4) << 32;
+    }
+
+
+    private int uint16BigEndian(int offset) {
+        return (bytes[offset] & 0xFF) << 8 | (bytes[offset + 1] & 0xFF);
+    }
+
+
+    private long uint32BigEndian(int offset) {
+        return (long) uint16BigEndian(offset) << 16 | uint16BigEndian(offset + 2);
+    }
+
+
+    private long int64BigEndian(int offset) {
+        return uint32BigEndian(offset) << 32 | uint32BigEndian(offset + 4);
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("flags", getFlags())
+                .add("txPowerLevel", getTxPowerLevel())
+                .add("serviceUuid16Count", getServiceUuid16Count())
+                .add("serviceUuid32Count", getServiceUuid32Count())
+                .add("serviceUuid128Count", getServiceUuid128Count())
+                .add("manufacturerId", getManufacturerId())
+                .add("serviceDataUuid16", getServiceDataUuid16()).toString();
+    }
+}
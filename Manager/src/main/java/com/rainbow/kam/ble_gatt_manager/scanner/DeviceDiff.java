@@ -0,0 +1,73 @@
+package com.rainbow.kam.ble_gatt_manager.scanner;
+
+import com.google.common.base.MoreObjects;
+import com.rainbow.kam.ble_gatt_manager.model.BleDevice;
+
+/**
+ * One change of a {@link DeviceTable} since the previous flush.
+ */
+public class DeviceDiff {
+
+    public enum Type {
+        ADDED, UPDATED, REMOVED
+    }
+
+    private final Type type;
+    private final BleDevice bleDevice;
+    private final long lastSeenNanos;
+    private final int advertisementCount;
+    private final DeviceProximity proximity;
+
+
+    DeviceDiff(Type type, BleDevice bleDevice, long lastSeenNanos, int advertisementCount, DeviceProximity proximity) {
+        this.type = type;
+        this.bleDevice = bleDevice;
+        this.lastSeenNanos = lastSeenNanos;
+        this.advertisementCount = advertisementCount;
+        this.proximity = proximity;
+    }
+
+
+    public Type getType() {
+        return type;
+    }
+
+
+    /**
+     * The device as of its last advertisement before the flush.
+     */
+    public BleDevice getBleDevice() {
+        return bleDevice;
+    }
+
+
+    /**
+     * {@link android.os.SystemClock#elapsedRealtimeNanos()} of the last advertisement.
+     */
+    public long getLastSeenNanos() {
+        return lastSeenNanos;
+    }
+
+
+    /**
+     * Advertisements merged into this diff since the previous flush.
+     */
+    public int getAdvertisementCount() {
+        return advertisementCount;
+    }
+
+
+    public DeviceProximity getProximity() {
+        return proximity;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("type", type)
+                .add("bleDevice", bleDevice)
+                .add("lastSeenNanos", lastSeenNanos)
+                .add("advertisementCount", advertisementCount)
+                .add("proximity", proximity).toString();
+    }
+}
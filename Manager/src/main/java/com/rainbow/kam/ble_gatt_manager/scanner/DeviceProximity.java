@@ -0,0 +1,58 @@
+package com.rainbow.kam.ble_gatt_manager.scanner;
+
+import com.google.common.base.MoreObjects;
+import com.rainbow.kam.ble_gatt_manager.model.BleDevice;
+
+/**
+ * Smoothed rssi and estimated distance of a device in a {@link DeviceTable}.
+ */
+public class DeviceProximity {
+
+    private final BleDevice bleDevice;
+    private final double smoothedRssi;
+    private final int measuredPower;
+    private final double distanceMeters;
+
+
+    DeviceProximity(BleDevice bleDevice, double smoothedRssi, int measuredPower, double distanceMeters) {
+        this.bleDevice = bleDevice;
+        this.smoothedRssi = smoothedRssi;
+        this.measuredPower = measuredPower;
+        this.distanceMeters = distanceMeters;
+    }
+
+
+    /**
+     * The device with the raw rssi of its last advertisement.
+     */
+    public BleDevice getBleDevice() {
+        return bleDevice;
+    }
+
+
+    public double getSmoothedRssi() {
+        return smoothedRssi;
+    }
+
+
+    /**
+     * Rssi at one meter the distance was estimated from, advertised or {@link ProximityModel#defaultMeasuredPower(int) default}.
+     */
+    public int getMeasuredPower() {
+        return measuredPower;
+    }
+
+
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("bleDevice", bleDevice)
+                .add("smoothedRssi", smoothedRssi)
+                .add("measuredPower", measuredPower)
+                .add("distanceMeters", distanceMeters).toString();
+    }
+}
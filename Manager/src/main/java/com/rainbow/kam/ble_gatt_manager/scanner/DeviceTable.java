@@ -0,0 +1,219 @@
+package com.rainbow.kam.ble_gatt_manager.scanner;
+
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.le.ScanRecord;
+import android.bluetooth.le.ScanResult;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.Lists;
+import com.rainbow.kam.ble_gatt_manager.model.BleDevice;
+import com.rainbow.kam.ble_gatt_manager.model.MacAddress;
+import com.rainbow.kam.ble_gatt_manager.util.LongHashMap;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Devices seen by a scan, keyed by address and updated in place by every advertisement.
+ * <p>
+ * Changes are collected between calls to {@link #drain(long)}, which returns at most one diff per device
+ * no matter how many advertisements it sent in the meantime. Devices not seen for the ttl are removed on drain.
+ * Expiry runs on a {@link TimingWheel} and a drain only visits the devices that advertised since the previous one,
+ * so its cost does not grow with the number of devices tracked.
+ * <p>
+ * Every advertisement also updates the device's {@link DeviceProximity} through the {@link ProximityModel},
+ * and moves the device within a ranking by path loss, the smoothed rssi against the device's own measured power,
+ * so {@link #getNearest(int)} does not sort the table.
+ */
+public class DeviceTable {
+
+    private static final Comparator<Entry> NEAREST_FIRST = (left, right) -> {
+        int compare = Double.compare(left.getPathLoss(), right.getPathLoss());
+        return compare != 0 ? compare : Long.compare(left.addressBits, right.addressBits);
+    };
+
+    private final long ttlNanos;
+    private final ProximityModel proximityModel;
+    private final LongHashMap<Entry> entries = new LongHashMap<>();
+    private final NavigableSet<Entry> ranking = new TreeSet<>(NEAREST_FIRST);
+    private final TimingWheel<Entry> expiry;
+    private final List<Entry> touched = Lists.newArrayList();
+    private final AdvertisementParser parser = new AdvertisementParser();
+
+
+    public DeviceTable(long ttlNanos) {
+        this(ttlNanos, ProximityModel.create());
+    }
+
+
+    public DeviceTable(long ttlNanos, ProximityModel proximityModel) {
+        this.ttlNanos = ttlNanos;
+        this.proximityModel = proximityModel;
+        this.expiry = new TimingWheel<>(ttlNanos);
+    }
+
+
+    public synchronized void update(ScanResult result) {
+        BluetoothDevice device = result.getDevice();
+        ScanRecord scanRecord = result.getScanRecord();
+        byte[] advertisement = scanRecord != null ? scanRecord.getBytes() : null;
+        long addressBits = MacAddress.pack(device.getAddress());
+        Entry entry = entries.get(addressBits);
+        boolean advertisementChanged = true;
+        if (entry == null) {
+            entry = new Entry(device, addressBits, proximityModel.newFilter());
+            entry.added = true;
+            entries.put(addressBits, entry);
+        } else {
+            advertisementChanged = !Arrays.equals(entry.advertisement, advertisement);
+            if (entry.rssi != result.getRssi() || advertisementChanged) {
+                entry.changed = true;
+            }
+            ranking.remove(entry);
+        }
+        if (advertisementChanged) {
+            parser.reset(advertisement);
+            entry.measuredPower = proximityModel.measuredPower(parser);
+        }
+        entry.filter.update(result.getRssi());
+        ranking.add(entry);
+        entry.rssi = result.getRssi();
+        entry.advertisement = advertisement;
+        entry.lastSeenNanos = result.getTimestampNanos();
+        entry.deadlineNanos = entry.lastSeenNanos + ttlNanos;
+        if (entry.pendingCount++ == 0) {
+            touched.add(entry);
+        }
+        if (entry.slot < 0) {
+            expiry.schedule(entry);
+        }
+    }
+
+
+    /**
+     * Changes since the previous drain, with devices last seen before {@code nowNanos - ttl} removed.
+     *
+     * @param nowNanos current {@link android.os.SystemClock#elapsedRealtimeNanos()}
+     */
+    public synchronized List<DeviceDiff> drain(long nowNanos) {
+        List<Entry> expired = Lists.newArrayList();
+        expiry.advance(nowNanos, expired);
+        List<DeviceDiff> diffs = Lists.newArrayListWithCapacity(expired.size() + touched.size());
+        for (Entry entry : expired) {
+            entries.remove(entry.addressBits);
+            ranking.remove(entry);
+            entry.removed = true;
+            if (!entry.added) {
+                diffs.add(entry.toDiff(DeviceDiff.Type.REMOVED));
+            }
+        }
+        for (Entry entry : touched) {
+            if (entry.removed) {
+                continue;
+            }
+            if (entry.added) {
+                diffs.add(entry.toDiff(DeviceDiff.Type.ADDED));
+            } else if (entry.changed) {
+                diffs.add(entry.toDiff(DeviceDiff.Type.UPDATED));
+            }
+            entry.added = false;
+            entry.changed = false;
+            entry.pendingCount = 0;
+        }
+        touched.clear();
+        return diffs;
+    }
+
+
+    public synchronized List<BleDevice> getDevices() {
+        List<BleDevice> devices = Lists.newArrayListWithCapacity(entries.size());
+        for (Entry entry : entries.values()) {
+            devices.add(entry.toBleDevice());
+        }
+        return devices;
+    }
+
+
+    /**
+     * Up to {@code count} devices with the lowest path loss from their measured power, nearest first.
+     */
+    public synchronized List<DeviceProximity> getNearest(int count) {
+        List<DeviceProximity> nearest = Lists.newArrayListWithCapacity(Math.min(count, ranking.size()));
+        for (Iterator<Entry> iterator = ranking.iterator(); iterator.hasNext() && nearest.size() < count; ) {
+            nearest.add(iterator.next().toProximity());
+        }
+        return nearest;
+    }
+
+
+    public synchronized DeviceProximity getProximity(String address) {
+        Entry entry = entries.get(MacAddress.pack(address));
+        return entry != null ? entry.toProximity() : null;
+    }
+
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+
+    @Override public synchronized String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("ttlNanos", ttlNanos)
+                .add("proximityModel", proximityModel)
+                .add("size", entries.size())
+                .add("expiry", expiry).toString();
+    }
+
+
+    private class Entry extends TimingWheel.Node {
+
+        private final BluetoothDevice device;
+        private final long addressBits;
+        private final RssiFilter filter;
+        private int rssi;
+        private byte[] advertisement;
+        private int measuredPower;
+        private long lastSeenNanos;
+        private int pendingCount;
+        private boolean added;
+        private boolean changed;
+        private boolean removed;
+
+
+        Entry(BluetoothDevice device, long addressBits, RssiFilter filter) {
+            this.device = device;
+            this.addressBits = addressBits;
+            this.filter = filter;
+        }
+
+
+        BleDevice toBleDevice() {
+            return BleDevice.create(device, rssi, advertisement);
+        }
+
+
+        /**
+         * Decibels lost since one meter; only changes while the entry is out of the ranking.
+         */
+        double getPathLoss() {
+            return measuredPower - filter.getEstimate();
+        }
+
+
+        DeviceProximity toProximity() {
+            double smoothedRssi = filter.getEstimate();
+            return new DeviceProximity(toBleDevice(), smoothedRssi, measuredPower,
+                    proximityModel.distanceMeters(smoothedRssi, measuredPower));
+        }
+
+
+        DeviceDiff toDiff(DeviceDiff.Type type) {
+            return new DeviceDiff(type, toBleDevice(), lastSeenNanos, pendingCount, toProximity());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.rainbow.kam.ble_gatt_manager.scanner;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+/**
+ * How a {@link DeviceTable} turns raw rssi into a smoothed rssi and a distance.
+ * <p>
+ * Rssi is smoothed per device by a one dimensional Kalman filter, or by an exponential moving average.
+ * Distance follows the log distance path loss model {@code d = 10 ^ ((measuredPower - rssi) / (10 * n))},
+ * with the measured power at one meter taken from the advertisement when the device advertises it.
+ */
+public class ProximityModel {
+
+    /**
+     * Signal lost between zero and one meter, to get the measured power from a tx power advertised at zero meters.
+     */
+    public static final int LOSS_AT_ONE_METER = 41;
+
+    private boolean kalman = true;
+    private double processNoise = 0.5;
+    private double measurementNoise = 8;
+    private double alpha;
+    private double pathLossExponent = 2;
+    private int defaultMeasuredPower = -59;
+
+
+    public static ProximityModel create() {
+        return new ProximityModel();
+    }
+
+
+    /**
+     * Smooths with a Kalman filter; {@code processNoise} is how fast the real rssi drifts and
+     * {@code measurementNoise} how much a single reading jitters, both as variances in dBm².
+     */
+    public ProximityModel kalman(double processNoise, double measurementNoise) {
+        Preconditions.checkArgument(processNoise > 0 && measurementNoise > 0, "noise must be positive");
+        this.kalman = true;
+        this.processNoise = processNoise;
+        this.measurementNoise = measurementNoise;
+        return this;
+    }
+
+
+    /**
+     * Smooths with an exponential moving average giving {@code alpha} weight to every new reading.
+     */
+    public ProximityModel ema(double alpha) {
+        Preconditions.checkArgument(alpha > 0 && alpha <= 1, "alpha must be in (0, 1]");
+        this.kalman = false;
+        this.alpha = alpha;
+        return this;
+    }
+
+
+    /**
+     * 2 in free space, up to 4 indoors with obstacles.
+     */
+    public ProximityModel pathLossExponent(double pathLossExponent) {
+        Preconditions.checkArgument(pathLossExponent > 0, "pathLossExponent must be positive");
+        this.pathLossExponent = pathLossExponent;
+        return this;
+    }
+
+
+    /**
+     * Rssi at one meter in dBm for devices that advertise no tx power.
+     */
+    public ProximityModel defaultMeasuredPower(int defaultMeasuredPower) {
+        this.defaultMeasuredPower = defaultMeasuredPower;
+        return this;
+    }
+
+
+    RssiFilter newFilter() {
+        return kalman ? new RssiFilter(processNoise, measurementNoise) : new RssiFilter(alpha);
+    }
+
+
+    /**
+     * Rssi at one meter advertised by the data {@code parser} points at, or the default.
+     */
+    int measuredPower(AdvertisementParser parser) {
+        if (parser.isIBeacon()) {
+            return parser.getIBeaconTxPower();
+        }
+        int eddystoneTxPower = parser.getEddystoneTxPower();
+        if (eddystoneTxPower != AdvertisementParser.NOT_PRESENT) {
+            return eddystoneTxPower - LOSS_AT_ONE_METER;
+        }
+        int txPowerLevel = parser.getTxPowerLevel();
+        if (txPowerLevel != AdvertisementParser.NOT_PRESENT) {
+            return txPowerLevel - LOSS_AT_ONE_METER;
+        }
+        return defaultMeasuredPower;
+    }
+
+
+    double distanceMeters(double rssi, int measuredPower) {
+        return Math.pow(10, (measuredPower - rssi) / (10 * pathLossExponent));
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("kalman", kalman)
+                .add("processNoise", processNoise)
+                .add("measurementNoise", measurementNoise)
+                .add("alpha", alpha)
+                .add("pathLossExponent", pathLossExponent)
+                .add("defaultMeasuredPower", defaultMeasuredPower).toString();
+    }
+}
@@ -0,0 +1,54 @@
+package com.rainbow.kam.ble_gatt_manager.scanner;
+
+/**
+ * Smoothing state of one device, created by {@link ProximityModel#newFilter()}.
+ */
+class RssiFilter {
+
+    private final boolean kalman;
+    private final double processNoise;
+    private final double measurementNoise;
+    private final double alpha;
+
+    private double estimate;
+    private double variance;
+    private boolean initialized;
+
+
+    RssiFilter(double processNoise, double measurementNoise) {
+        this.kalman = true;
+        this.processNoise = processNoise;
+        this.measurementNoise = measurementNoise;
+        this.alpha = 0;
+    }
+
+
+    RssiFilter(double alpha) {
+        this.kalman = false;
+        this.processNoise = 0;
+        this.measurementNoise = 0;
+        this.alpha = alpha;
+    }
+
+
+    double update(int rssi) {
+        if (!initialized) {
+            estimate = rssi;
+            variance = measurementNoise;
+            initialized = true;
+        } else if (kalman) {
+            double predicted = variance + processNoise;
+            double gain = predicted / (predicted + measurementNoise);
+            estimate += gain * (rssi - estimate);
+            variance = (1 - gain) * predicted;
+        } else {
+            estimate += alpha * (rssi - estimate);
+        }
+        return estimate;
+    }
+
+
+    double getEstimate() {
+        return estimate;
+    }
+}
@@ -1,91 +1,113 @@
 package com.rainbow.kam.ble_gatt_manager.scanner;
 
-import android.bluetooth.BluetoothAdapter;
-import android.bluetooth.le.BluetoothLeScanner;
-import android.bluetooth.le.ScanCallback;
 import android.bluetooth.le.ScanResult;
+import android.content.Context;
+import android.os.SystemClock;
 
 import com.rainbow.kam.ble_gatt_manager.exceptions.scan.ScanException;
 import com.rainbow.kam.ble_gatt_manager.model.BleDevice;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import javax.inject.Inject;
 
 import rx.Observable;
-import rx.Subscriber;
-import rx.android.MainThreadSubscription;
-
-import static com.rainbow.kam.ble_gatt_manager.exceptions.scan.ScanException.STATUS_BLE_NOT_ENABLED;
-import static com.rainbow.kam.ble_gatt_manager.exceptions.scan.ScanException.STATUS_BLE_NOT_SUPPORTED;
-import static com.rainbow.kam.ble_gatt_manager.helper.BluetoothHelper.IS_BLE_SUPPORTED;
 
 /**
  * Created by Kang Young Won on 2016-05-24.
  */
 public class RxBleScanner {
 
-    @Inject public RxBleScanner() {
+    private final ScanSession scanSession;
+
+
+    @Inject public RxBleScanner(Context context) {
+        this(ScanSession.shared(context));
+    }
+
+
+    public RxBleScanner(ScanSession scanSession) {
+        this.scanSession = scanSession;
     }
 
 
     public Observable<BleDevice> observeScan() {
-        return Observable.create(new RxBleScannerOnSubscribe()).onBackpressureBuffer();
+        return observeScan(ScanOptions.create());
+    }
+
+
+    /**
+     * Scans with the filters and settings of {@code scanOptions}, so filtering and batching happen in the controller.
+     * Results of a batch are emitted one by one. A failing scan is reported as a {@link ScanException}
+     * with the {@code ScanCallback} error code.
+     * <p>
+     * All subscriptions share the {@link ScanSession} of this scanner, so subscribing does not necessarily
+     * start a new hardware scan.
+     */
+    public Observable<BleDevice> observeScan(ScanOptions scanOptions) {
+        return observeScanResults(scanOptions).map(BleDevice::create).onBackpressureBuffer();
+    }
+
+
+    /**
+     * Like {@link #observeScan(ScanOptions)}, with {@code backpressure} bounding what is held for a slow consumer
+     * instead of an unbounded buffer.
+     */
+    public Observable<BleDevice> observeScan(ScanOptions scanOptions, ScanBackpressure backpressure) {
+        return observeScanResults(scanOptions).map(BleDevice::create).compose(backpressure);
+    }
+
+
+    /**
+     * Scans into a {@link DeviceTable} and emits its changes at most once every {@code interval}.
+     * Devices not advertising for {@code ttl} are emitted as {@link DeviceDiff.Type#REMOVED}.
+     * Flushes without any change are not emitted.
+     */
+    public Observable<List<DeviceDiff>> observeDeviceDiffs(long interval, TimeUnit intervalUnit, long ttl, TimeUnit ttlUnit) {
+        return observeDeviceDiffs(ScanOptions.create(), interval, intervalUnit, ttl, ttlUnit);
+    }
+
+
+    public Observable<List<DeviceDiff>> observeDeviceDiffs(ScanOptions scanOptions,
+                                                           long interval, TimeUnit intervalUnit, long ttl, TimeUnit ttlUnit) {
+        return Observable.defer(() -> {
+            DeviceTable deviceTable = new DeviceTable(ttlUnit.toNanos(ttl));
+            Observable<List<DeviceDiff>> flushes = Observable.interval(interval, interval, intervalUnit)
+                    .map(tick -> deviceTable.drain(SystemClock.elapsedRealtimeNanos()));
+            return observeScanResults(scanOptions)
+                    .doOnNext(deviceTable::update)
+                    .ignoreElements()
+                    .map(result -> Collections.<DeviceDiff>emptyList())
+                    .mergeWith(flushes)
+                    .filter(diffs -> !diffs.isEmpty());
+        });
+    }
+
+
+    /**
+     * Scans into a {@link DeviceTable} and emits its {@code count} nearest devices, nearest first,
+     * at most once every {@code interval} and only while any device is in range.
+     */
+    public Observable<List<DeviceProximity>> observeNearest(ScanOptions scanOptions, ProximityModel proximityModel,
+                                                            int count, long interval, TimeUnit intervalUnit, long ttl, TimeUnit ttlUnit) {
+        return Observable.defer(() -> {
+            DeviceTable deviceTable = new DeviceTable(ttlUnit.toNanos(ttl), proximityModel);
+            Observable<List<DeviceProximity>> rankings = Observable.interval(interval, interval, intervalUnit)
+                    .doOnNext(tick -> deviceTable.drain(SystemClock.elapsedRealtimeNanos()))
+                    .map(tick -> deviceTable.getNearest(count));
+            return observeScanResults(scanOptions)
+                    .doOnNext(deviceTable::update)
+                    .ignoreElements()
+                    .map(result -> Collections.<DeviceProximity>emptyList())
+                    .mergeWith(rankings)
+                    .filter(nearest -> !nearest.isEmpty());
+        });
     }
 
 
-    private class RxBleScannerOnSubscribe implements Observable.OnSubscribe<BleDevice> {
-        private BluetoothAdapter bluetoothAdapter;
-        private BluetoothLeScanner scanner;
-
-
-        @Override public void call(Subscriber<? super BleDevice> subscriber) {
-            setAdapter();
-            setScanner();
-
-            if (!IS_BLE_SUPPORTED) {
-                subscriber.onError(new ScanException(STATUS_BLE_NOT_SUPPORTED));
-            }
-            if (!isBleEnabled()) {
-                subscriber.onError(new ScanException(STATUS_BLE_NOT_ENABLED));
-            }
-
-            final ScanCallback callback = new ScanCallback() {
-                @Override
-                public void onScanResult(int callbackType, ScanResult result) {
-                    super.onScanResult(callbackType, result);
-                    BleDevice discoveredDevice = BleDevice.create(result);
-                    subscriber.onNext(discoveredDevice);
-                }
-            };
-
-            subscriber.add(new MainThreadSubscription() {
-                @Override protected void onUnsubscribe() {
-                    if (scanner != null && IS_BLE_SUPPORTED && isBleEnabled()) {
-                        scanner.stopScan(callback);
-                        scanner = null;
-                    }
-                }
-            });
-            scanner.stopScan(callback);
-            scanner.startScan(callback);
-        }
-
-
-        private void setAdapter() {
-            if (bluetoothAdapter == null) {
-                bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
-            }
-        }
-
-
-        private void setScanner() {
-            if (scanner == null) {
-                scanner = bluetoothAdapter.getBluetoothLeScanner();
-            }
-        }
-
-
-        private boolean isBleEnabled() {
-            return bluetoothAdapter != null && bluetoothAdapter.isEnabled();
-        }
+    private Observable<ScanResult> observeScanResults(ScanOptions scanOptions) {
+        return Observable.create(subscriber -> scanSession.register(scanOptions, subscriber));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,370 @@
+package com.rainbow.kam.ble_gatt_manager.scanner;
+
+import android.os.SystemClock;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import com.rainbow.kam.ble_gatt_manager.model.BleDevice;
+import com.rainbow.kam.ble_gatt_manager.util.LongHashMap;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import rx.Observable;
+import rx.Subscriber;
+
+/**
+ * Bounded backpressure for scan streams, to use instead of an unbounded buffer when the consumer
+ * can fall behind the advertisements.
+ * <pre>{@code
+ * ScanBackpressure backpressure = ScanBackpressure.latestPerDevice();
+ * rxBleScanner.observeScan(ScanOptions.create(), backpressure)
+ *         .observeOn(AndroidSchedulers.mainThread())
+ *         .subscribe(...);
+ * backpressure.getDroppedCount();
+ * }</pre>
+ * While the consumer keeps up, every result passes through unchanged. Counters cover all subscriptions.
+ */
+public class ScanBackpressure implements Observable.Transformer<BleDevice, BleDevice> {
+
+    private static final int LATEST_PER_DEVICE = 0;
+    private static final int DROP_OLDEST = 1;
+    private static final int SAMPLE_PER_DEVICE = 2;
+
+    private final int strategy;
+    private final int capacity;
+    private final long intervalMillis;
+
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong deliveredCount = new AtomicLong();
+
+
+    private ScanBackpressure(int strategy, int capacity, long intervalMillis) {
+        this.strategy = strategy;
+        this.capacity = capacity;
+        this.intervalMillis = intervalMillis;
+    }
+
+
+    /**
+     * Keeps only the newest pending result of every device; memory is bounded by the number of devices in range.
+     */
+    public static ScanBackpressure latestPerDevice() {
+        return new ScanBackpressure(LATEST_PER_DEVICE, 0, 0);
+    }
+
+
+    /**
+     * Keeps at most {@code capacity} pending results and drops the oldest one when full.
+     */
+    public static ScanBackpressure dropOldest(int capacity) {
+        Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+        return new ScanBackpressure(DROP_OLDEST, capacity, 0);
+    }
+
+
+    /**
+     * Passes the first result of every device in each {@code interval} and drops the rest,
+     * then holds pending results as {@link #latestPerDevice()} does.
+     */
+    public static ScanBackpressure samplePerDevice(long interval, TimeUnit unit) {
+        Preconditions.checkArgument(interval > 0, "interval must be positive");
+        return new ScanBackpressure(SAMPLE_PER_DEVICE, 0, unit.toMillis(interval));
+    }
+
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+
+    public long getDeliveredCount() {
+        return deliveredCount.get();
+    }
+
+
+    @Override public Observable<BleDevice> call(Observable<BleDevice> source) {
+        return source.lift(child -> {
+            BackpressureSubscriber parent = new BackpressureSubscriber(child, newBuffer());
+            child.add(parent);
+            child.setProducer(parent::onRequest);
+            return parent;
+        });
+    }
+
+
+    private Buffer newBuffer() {
+        switch (strategy) {
+            case DROP_OLDEST:
+                return new RingBuffer(capacity);
+            case SAMPLE_PER_DEVICE:
+                return new SamplingBuffer(intervalMillis);
+            default:
+                return new LatestBuffer();
+        }
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("strategy", strategy)
+                .add("capacity", capacity)
+                .add("intervalMillis", intervalMillis)
+                .add("droppedCount", droppedCount)
+                .add("deliveredCount", deliveredCount).toString();
+    }
+
+
+    private interface Buffer {
+
+        /**
+         * Adds a result and returns how many results were dropped for it.
+         */
+        int offer(BleDevice bleDevice);
+
+        BleDevice poll();
+
+        boolean isEmpty();
+    }
+
+
+    private static class LatestBuffer implements Buffer {
+
+        private final Map<String, BleDevice> pending = Maps.newLinkedHashMap();
+
+
+        @Override public int offer(BleDevice bleDevice) {
+            return pending.put(bleDevice.getAddress(), bleDevice) != null ? 1 : 0;
+        }
+
+
+        @Override public BleDevice poll() {
+            Iterator<BleDevice> iterator = pending.values().iterator();
+            if (!iterator.hasNext()) {
+                return null;
+            }
+            BleDevice bleDevice = iterator.next();
+            iterator.remove();
+            return bleDevice;
+        }
+
+
+        @Override public boolean isEmpty() {
+            return pending.isEmpty();
+        }
+    }
+
+
+    private static class RingBuffer implements Buffer {
+
+        private final int capacity;
+        private final ArrayDeque<BleDevice> pending;
+
+
+        RingBuffer(int capacity) {
+            this.capacity = capacity;
+            this.pending = new ArrayDeque<>(capacity);
+        }
+
+
+        @Override public int offer(BleDevice bleDevice) {
+            int dropped = 0;
+            if (pending.size() == capacity) {
+                pending.pollFirst();
+                dropped = 1;
+            }
+            pending.offerLast(bleDevice);
+            return dropped;
+        }
+
+
+        @Override public BleDevice poll() {
+            return pending.pollFirst();
+        }
+
+
+        @Override public boolean isEmpty() {
+            return pending.isEmpty();
+        }
+    }
+
+
+    private static class SamplingBuffer extends LatestBuffer {
+
+        private final long intervalMillis;
+        private final LongHashMap<Accepted> lastAccepted = new LongHashMap<>();
+        private final ArrayDeque<Accepted> acceptedOrder = new ArrayDeque<>();
+
+
+        SamplingBuffer(long intervalMillis) {
+            this.intervalMillis = intervalMillis;
+        }
+
+
+        @Override public int offer(BleDevice bleDevice) {
+            long now = SystemClock.elapsedRealtime();
+            evictBefore(now - intervalMillis);
+            if (lastAccepted.containsKey(bleDevice.getAddressBits())) {
+                return 1;
+            }
+            Accepted accepted = new Accepted(bleDevice.getAddressBits(), now);
+            lastAccepted.put(accepted.addressBits, accepted);
+            acceptedOrder.offerLast(accepted);
+            return super.offer(bleDevice);
+        }
+
+
+        /**
+         * Forgets devices accepted before {@code oldestMillis}, so only the last interval's devices are remembered.
+         */
+        private void evictBefore(long oldestMillis) {
+            while (!acceptedOrder.isEmpty() && acceptedOrder.peekFirst().acceptedMillis <= oldestMillis) {
+                Accepted accepted = acceptedOrder.pollFirst();
+                if (lastAccepted.get(accepted.addressBits) == accepted) {
+                    lastAccepted.remove(accepted.addressBits);
+                }
+            }
+        }
+    }
+
+
+    private static class Accepted {
+
+        private final long addressBits;
+        private final long acceptedMillis;
+
+
+        Accepted(long addressBits, long acceptedMillis) {
+            this.addressBits = addressBits;
+            this.acceptedMillis = acceptedMillis;
+        }
+    }
+
+
+    private class BackpressureSubscriber extends Subscriber<BleDevice> {
+
+        private final Subscriber<? super BleDevice> child;
+        private final Buffer buffer;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile boolean done;
+        private Throwable error;
+
+
+        BackpressureSubscriber(Subscriber<? super BleDevice> child, Buffer buffer) {
+            this.child = child;
+            this.buffer = buffer;
+        }
+
+
+        @Override public void onStart() {
+            request(Long.MAX_VALUE);
+        }
+
+
+        @Override public void onNext(BleDevice bleDevice) {
+            int dropped;
+            synchronized (buffer) {
+                dropped = buffer.offer(bleDevice);
+            }
+            if (dropped > 0) {
+                droppedCount.addAndGet(dropped);
+            }
+            drain();
+        }
+
+
+        @Override public void onError(Throwable e) {
+            error = e;
+            done = true;
+            drain();
+        }
+
+
+        @Override public void onCompleted() {
+            done = true;
+            drain();
+        }
+
+
+        void onRequest(long n) {
+            Preconditions.checkArgument(n >= 0, "n >= 0 required");
+            if (n == 0) {
+                return;
+            }
+            while (true) {
+                long current = requested.get();
+                long next = current + n < 0 ? Long.MAX_VALUE : current + n;
+                if (requested.compareAndSet(current, next)) {
+                    break;
+                }
+            }
+            drain();
+        }
+
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                long demand = requested.get();
+                long emitted = 0;
+                while (emitted != demand) {
+                    if (child.isUnsubscribed()) {
+                        return;
+                    }
+                    boolean terminated = done;
+                    BleDevice next;
+                    synchronized (buffer) {
+                        next = buffer.poll();
+                    }
+                    if (next == null) {
+                        if (terminated) {
+                            deliveredCount.addAndGet(emitted);
+                            terminate();
+                            return;
+                        }
+                        break;
+                    }
+                    child.onNext(next);
+                    emitted++;
+                }
+                if (emitted == demand && done) {
+                    boolean empty;
+                    synchronized (buffer) {
+                        empty = buffer.isEmpty();
+                    }
+                    if (empty) {
+                        deliveredCount.addAndGet(emitted);
+                        terminate();
+                        return;
+                    }
+                }
+                if (emitted > 0) {
+                    deliveredCount.addAndGet(emitted);
+                    if (demand != Long.MAX_VALUE) {
+                        requested.addAndGet(-emitted);
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+
+        private void terminate() {
+            if (error != null) {
+                child.onError(error);
+            } else {
+                child.onCompleted();
+            }
+        }
+    }
+}
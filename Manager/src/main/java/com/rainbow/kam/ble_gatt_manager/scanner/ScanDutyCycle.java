@@ -0,0 +1,81 @@
+package com.rainbow.kam.ble_gatt_manager.scanner;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * On and off windows for a {@link ScanScheduler}.
+ * <p>
+ * The off window starts at its minimum, doubles after every scan window that found no new device and halves
+ * again when one did, staying between minimum and maximum. Windows are stretched so that one on and off cycle
+ * never takes less than {@link #MIN_CYCLE_MILLIS}, which keeps the scheduler inside the {@link ScanStartBudget}.
+ */
+public class ScanDutyCycle {
+
+    public static final long MIN_CYCLE_MILLIS = ScanStartBudget.WINDOW_MILLIS / ScanStartBudget.MAX_STARTS;
+
+    private long scanWindowMillis = 4000;
+    private long minOffMillis = 2000;
+    private long maxOffMillis = 60000;
+    private long forgetAfterMillis = 300000;
+
+
+    public static ScanDutyCycle create() {
+        return new ScanDutyCycle();
+    }
+
+
+    public ScanDutyCycle scanWindow(long scanWindow, TimeUnit unit) {
+        Preconditions.checkArgument(scanWindow > 0, "scanWindow must be positive");
+        this.scanWindowMillis = unit.toMillis(scanWindow);
+        return this;
+    }
+
+
+    public ScanDutyCycle offWindow(long minOff, long maxOff, TimeUnit unit) {
+        Preconditions.checkArgument(minOff >= 0 && maxOff >= minOff, "offWindow must satisfy 0 <= minOff <= maxOff");
+        this.minOffMillis = unit.toMillis(minOff);
+        this.maxOffMillis = unit.toMillis(maxOff);
+        return this;
+    }
+
+
+    /**
+     * A device not seen for this long counts as new when it shows up again.
+     */
+    public ScanDutyCycle forgetAfter(long forgetAfter, TimeUnit unit) {
+        this.forgetAfterMillis = unit.toMillis(forgetAfter);
+        return this;
+    }
+
+
+    public long getScanWindowMillis() {
+        return scanWindowMillis;
+    }
+
+
+    public long getMinOffMillis() {
+        return Math.max(minOffMillis, MIN_CYCLE_MILLIS - scanWindowMillis);
+    }
+
+
+    public long getMaxOffMillis() {
+        return Math.max(maxOffMillis, getMinOffMillis());
+    }
+
+
+    public long getForgetAfterMillis() {
+        return forgetAfterMillis;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("scanWindowMillis", scanWindowMillis)
+                .add("minOffMillis", getMinOffMillis())
+                .add("maxOffMillis", getMaxOffMillis())
+                .add("forgetAfterMillis", forgetAfterMillis).toString();
+    }
+}
@@ -0,0 +1,149 @@
+package com.rainbow.kam.ble_gatt_manager.scanner;
+
+import android.bluetooth.le.ScanFilter;
+import android.bluetooth.le.ScanSettings;
+import android.os.Build;
+import android.os.ParcelUuid;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filters and settings handed to the controller when a scan starts.
+ * <p>
+ * Every filter method adds one {@link ScanFilter}; an advertisement is reported when it matches any of them.
+ * Without filters every advertisement is reported. A report delay lets the controller batch results
+ * into {@code onBatchScanResults}, and is ignored where offloaded batching is not supported.
+ */
+public class ScanOptions {
+
+    private final List<ScanFilter> filters = Lists.newArrayList();
+    private int scanMode = ScanSettings.SCAN_MODE_LOW_POWER;
+    private int matchMode = ScanSettings.MATCH_MODE_AGGRESSIVE;
+    private long reportDelayMillis;
+
+
+    public static ScanOptions create() {
+        return new ScanOptions();
+    }
+
+
+    public ScanOptions filter(ScanFilter filter) {
+        filters.add(filter);
+        return this;
+    }
+
+
+    public ScanOptions serviceUuid(UUID serviceUuid) {
+        return filter(new ScanFilter.Builder().setServiceUuid(new ParcelUuid(serviceUuid)).build());
+    }
+
+
+    public ScanOptions address(String address) {
+        return filter(new ScanFilter.Builder().setDeviceAddress(address).build());
+    }
+
+
+    public ScanOptions name(String name) {
+        return filter(new ScanFilter.Builder().setDeviceName(name).build());
+    }
+
+
+    public ScanOptions manufacturerData(int manufacturerId, byte[] data) {
+        return filter(new ScanFilter.Builder().setManufacturerData(manufacturerId, data).build());
+    }
+
+
+    public ScanOptions manufacturerData(int manufacturerId, byte[] data, byte[] mask) {
+        return filter(new ScanFilter.Builder().setManufacturerData(manufacturerId, data, mask).build());
+    }
+
+
+    /**
+     * One of the {@code ScanSettings.SCAN_MODE_*} values.
+     */
+    public ScanOptions scanMode(int scanMode) {
+        this.scanMode = scanMode;
+        return this;
+    }
+
+
+    /**
+     * One of the {@code ScanSettings.MATCH_MODE_*} values, applied from Marshmallow on.
+     */
+    public ScanOptions matchMode(int matchMode) {
+        this.matchMode = matchMode;
+        return this;
+    }
+
+
+    public ScanOptions reportDelay(long reportDelay, TimeUnit unit) {
+        Preconditions.checkArgument(reportDelay >= 0, "reportDelay must not be negative");
+        this.reportDelayMillis = unit.toMillis(reportDelay);
+        return this;
+    }
+
+
+    public List<ScanFilter> getFilters() {
+        return ImmutableList.copyOf(filters);
+    }
+
+
+    public int getScanMode() {
+        return scanMode;
+    }
+
+
+    public int getMatchMode() {
+        return matchMode;
+    }
+
+
+    public long getReportDelayMillis() {
+        return reportDelayMillis;
+    }
+
+
+    ScanSettings buildSettings(boolean batchingSupported) {
+        ScanSettings.Builder builder = new ScanSettings.Builder()
+                .setScanMode(scanMode)
+                .setReportDelay(batchingSupported ? reportDelayMillis : 0);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            builder.setMatchMode(matchMode);
+        }
+        return builder.build();
+    }
+
+
+    @Override public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ScanOptions that = (ScanOptions) o;
+        return scanMode == that.scanMode
+                && matchMode == that.matchMode
+                && reportDelayMillis == that.reportDelayMillis
+                && Objects.equal(filters, that.filters);
+    }
+
+
+    @Override public int hashCode() {
+        return Objects.hashCode(filters, scanMode, matchMode, reportDelayMillis);
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("filters", filters)
+                .add("scanMode", scanMode)
+                .add("matchMode", matchMode)
+                .add("reportDelayMillis", reportDelayMillis).toString();
+    }
+}
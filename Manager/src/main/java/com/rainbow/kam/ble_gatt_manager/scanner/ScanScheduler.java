@@ -0,0 +1,154 @@
+package com.rainbow.kam.ble_gatt_manager.scanner;
+
+import android.os.SystemClock;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.Maps;
+import com.rainbow.kam.ble_gatt_manager.model.BleDevice;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+
+/**
+ * Scans in on and off windows following a {@link ScanDutyCycle} instead of continuously.
+ * <pre>{@code
+ * new ScanScheduler(rxBleScanner, ScanDutyCycle.create().scanWindow(5, SECONDS).offWindow(5, 120, SECONDS))
+ *         .observeScan(ScanOptions.create())
+ *         .subscribe(bleDevice -> ...);
+ * }</pre>
+ * Scan windows go through the scanner's {@link ScanSession}, so they also count against its
+ * {@link ScanStartBudget} and share the hardware scan with other subscribers.
+ */
+public class ScanScheduler {
+
+    private final RxBleScanner rxBleScanner;
+    private final ScanDutyCycle dutyCycle;
+    private final Scheduler scheduler;
+
+    private volatile Cycle currentCycle;
+
+
+    public ScanScheduler(RxBleScanner rxBleScanner, ScanDutyCycle dutyCycle) {
+        this(rxBleScanner, dutyCycle, Schedulers.computation());
+    }
+
+
+    public ScanScheduler(RxBleScanner rxBleScanner, ScanDutyCycle dutyCycle, Scheduler scheduler) {
+        this.rxBleScanner = rxBleScanner;
+        this.dutyCycle = dutyCycle;
+        this.scheduler = scheduler;
+    }
+
+
+    /**
+     * Every result seen during the scan windows, until unsubscribed.
+     */
+    public Observable<BleDevice> observeScan(ScanOptions scanOptions) {
+        return Observable.defer(() -> {
+            Cycle cycle = new Cycle();
+            currentCycle = cycle;
+            return Observable.defer(() -> window(cycle, scanOptions)).repeat();
+        });
+    }
+
+
+    /**
+     * Statistics of the latest subscription, or empty ones before the first.
+     */
+    public ScanSchedulerStats getStats() {
+        Cycle cycle = currentCycle;
+        return cycle != null ? cycle.toStats() : new ScanSchedulerStats(0, 0, 0, 0, dutyCycle.getMinOffMillis(), 0, 0);
+    }
+
+
+    private Observable<BleDevice> window(Cycle cycle, ScanOptions scanOptions) {
+        cycle.beginWindow();
+        return rxBleScanner.observeScan(scanOptions)
+                .take(dutyCycle.getScanWindowMillis(), TimeUnit.MILLISECONDS, scheduler)
+                .doOnNext(cycle::track)
+                .concatWith(Observable.defer(() -> Observable.timer(cycle.endWindow(), TimeUnit.MILLISECONDS, scheduler)
+                        .flatMap(tick -> Observable.<BleDevice>empty())));
+    }
+
+
+    private class Cycle {
+
+        private final Map<String, Long> lastSeen = Maps.newHashMap();
+        private final long startMillis = SystemClock.elapsedRealtime();
+
+        private long offMillis = dutyCycle.getMinOffMillis();
+        private long windowStartMillis;
+        private long lastWindowEndMillis = startMillis;
+        private long scanMillis;
+        private int windowCount;
+        private int discoveredInWindow;
+        private int discoveredCount;
+        private long maxDiscoveryLatencyMillis;
+        private long totalDiscoveryLatencyMillis;
+
+
+        synchronized void beginWindow() {
+            windowStartMillis = SystemClock.elapsedRealtime();
+            discoveredInWindow = 0;
+        }
+
+
+        synchronized void track(BleDevice bleDevice) {
+            long now = SystemClock.elapsedRealtime();
+            Long previous = lastSeen.put(bleDevice.getAddress(), now);
+            if (previous == null || now - previous > dutyCycle.getForgetAfterMillis()) {
+                long latency = now - lastWindowEndMillis;
+                maxDiscoveryLatencyMillis = Math.max(maxDiscoveryLatencyMillis, latency);
+                totalDiscoveryLatencyMillis += latency;
+                discoveredInWindow++;
+                discoveredCount++;
+            }
+        }
+
+
+        /**
+         * Ends the current window and returns how long to stay off.
+         */
+        synchronized long endWindow() {
+            long now = SystemClock.elapsedRealtime();
+            scanMillis += now - windowStartMillis;
+            lastWindowEndMillis = now;
+            windowCount++;
+            if (discoveredInWindow > 0) {
+                offMillis = Math.max(dutyCycle.getMinOffMillis(), offMillis / 2);
+            } else {
+                offMillis = Math.min(dutyCycle.getMaxOffMillis(), Math.max(offMillis * 2, ScanDutyCycle.MIN_CYCLE_MILLIS));
+            }
+            forgetStale(now);
+            return offMillis;
+        }
+
+
+        private void forgetStale(long now) {
+            for (Iterator<Long> iterator = lastSeen.values().iterator(); iterator.hasNext(); ) {
+                if (now - iterator.next() > dutyCycle.getForgetAfterMillis()) {
+                    iterator.remove();
+                }
+            }
+        }
+
+
+        synchronized ScanSchedulerStats toStats() {
+            return new ScanSchedulerStats(windowCount, discoveredCount, scanMillis,
+                    SystemClock.elapsedRealtime() - startMillis, offMillis,
+                    maxDiscoveryLatencyMillis, totalDiscoveryLatencyMillis);
+        }
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("dutyCycle", dutyCycle)
+                .add("stats", getStats()).toString();
+    }
+}
@@ -0,0 +1,76 @@
+package com.rainbow.kam.ble_gatt_manager.scanner;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Snapshot of a {@link ScanScheduler}.
+ * <p>
+ * Discovery latency is measured from the end of the last scan window before a device was first seen,
+ * which is the longest it can have been advertising unnoticed.
+ */
+public class ScanSchedulerStats {
+
+    private final int windowCount;
+    private final int discoveredCount;
+    private final long scanMillis;
+    private final long elapsedMillis;
+    private final long currentOffMillis;
+    private final long maxDiscoveryLatencyMillis;
+    private final long totalDiscoveryLatencyMillis;
+
+
+    ScanSchedulerStats(int windowCount, int discoveredCount, long scanMillis, long elapsedMillis,
+                       long currentOffMillis, long maxDiscoveryLatencyMillis, long totalDiscoveryLatencyMillis) {
+        this.windowCount = windowCount;
+        this.discoveredCount = discoveredCount;
+        this.scanMillis = scanMillis;
+        this.elapsedMillis = elapsedMillis;
+        this.currentOffMillis = currentOffMillis;
+        this.maxDiscoveryLatencyMillis = maxDiscoveryLatencyMillis;
+        this.totalDiscoveryLatencyMillis = totalDiscoveryLatencyMillis;
+    }
+
+
+    public int getWindowCount() {
+        return windowCount;
+    }
+
+
+    public int getDiscoveredCount() {
+        return discoveredCount;
+    }
+
+
+    /**
+     * Share of the elapsed time spent scanning.
+     */
+    public double getDutyCycle() {
+        return elapsedMillis > 0 ? (double) scanMillis / elapsedMillis : 0;
+    }
+
+
+    public long getCurrentOffMillis() {
+        return currentOffMillis;
+    }
+
+
+    public long getMaxDiscoveryLatencyMillis() {
+        return maxDiscoveryLatencyMillis;
+    }
+
+
+    public long getMeanDiscoveryLatencyMillis() {
+        return discoveredCount > 0 ? totalDiscoveryLatencyMillis / discoveredCount : 0;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("windowCount", windowCount)
+                .add("discoveredCount", discoveredCount)
+                .add("dutyCycle", getDutyCycle())
+                .add("currentOffMillis", currentOffMillis)
+                .add("maxDiscoveryLatencyMillis", maxDiscoveryLatencyMillis)
+                .add("meanDiscoveryLatencyMillis", getMeanDiscoveryLatencyMillis()).toString();
+    }
+}
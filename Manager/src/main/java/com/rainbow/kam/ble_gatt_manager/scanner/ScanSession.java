@@ -0,0 +1,328 @@
+package com.rainbow.kam.ble_gatt_manager.scanner;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.le.BluetoothLeScanner;
+import android.bluetooth.le.ScanCallback;
+import android.bluetooth.le.ScanFilter;
+import android.bluetooth.le.ScanResult;
+import android.bluetooth.le.ScanSettings;
+import android.content.Context;
+import android.os.SystemClock;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.rainbow.kam.ble_gatt_manager.broadcast.BluetoothEvent;
+import com.rainbow.kam.ble_gatt_manager.broadcast.BluetoothEventBus;
+import com.rainbow.kam.ble_gatt_manager.exceptions.scan.ScanException;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.android.MainThreadSubscription;
+
+import static com.rainbow.kam.ble_gatt_manager.exceptions.scan.ScanException.STATUS_BLE_NOT_ENABLED;
+import static com.rainbow.kam.ble_gatt_manager.exceptions.scan.ScanException.STATUS_BLE_NOT_SUPPORTED;
+import static com.rainbow.kam.ble_gatt_manager.helper.BluetoothHelper.IS_BLE_SUPPORTED;
+
+/**
+ * One hardware scan shared by every scan subscriber of the process.
+ * <p>
+ * The scan starts with the first subscriber and stops with the last one. Its filters are the union of the
+ * subscribers' filters and its settings the most demanding of theirs; the scan is only restarted when that
+ * merged set actually changes. Each subscriber only receives results matching its own filters.
+ * <p>
+ * Every start is taken from a {@link ScanStartBudget}; a start that would trip the platform throttle
+ * is postponed until the budget has room again.
+ * <p>
+ * The adapter state comes from the {@link BluetoothEventBus}: when the adapter turns off, the stack has already
+ * dropped the scan, so the session forgets it and fails every subscriber with {@code STATUS_BLE_NOT_ENABLED}.
+ */
+public class ScanSession {
+
+    private static volatile ScanSession shared;
+
+    private final BluetoothEventBus eventBus;
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+    private final ScanCallback callback = new SessionCallback();
+    private final ScanStartBudget startBudget = new ScanStartBudget();
+
+    private BluetoothAdapter bluetoothAdapter;
+    private BluetoothLeScanner scanner;
+    private ScanOptions runningOptions;
+    private Subscription pendingStart;
+
+
+    ScanSession(BluetoothEventBus eventBus) {
+        this.eventBus = eventBus;
+        eventBus.observeEvents()
+                .filter(BluetoothEvent::isAdapterOff)
+                .subscribe(event -> onAdapterOff());
+    }
+
+
+    /**
+     * The session used by {@link RxBleScanner}s created without one. Android throttles scan starts per app,
+     * so sharing one session is what keeps several scanning features inside that limit.
+     */
+    public static ScanSession shared(Context context) {
+        ScanSession scanSession = shared;
+        if (scanSession == null) {
+            synchronized (ScanSession.class) {
+                scanSession = shared;
+                if (scanSession == null) {
+                    scanSession = new ScanSession(BluetoothEventBus.shared(context));
+                    shared = scanSession;
+                }
+            }
+        }
+        return scanSession;
+    }
+
+
+    void register(ScanOptions scanOptions, Subscriber<? super ScanResult> subscriber) {
+        setAdapter();
+        if (!IS_BLE_SUPPORTED) {
+            subscriber.onError(new ScanException(STATUS_BLE_NOT_SUPPORTED));
+            return;
+        }
+        if (!isBleEnabled()) {
+            subscriber.onError(new ScanException(STATUS_BLE_NOT_ENABLED));
+            return;
+        }
+        Registration registration = new Registration(scanOptions, subscriber);
+        subscriber.add(new MainThreadSubscription() {
+            @Override protected void onUnsubscribe() {
+                unregister(registration);
+            }
+        });
+        synchronized (this) {
+            if (subscriber.isUnsubscribed()) {
+                return;
+            }
+            registrations.add(registration);
+            updateScan();
+        }
+    }
+
+
+    private synchronized void unregister(Registration registration) {
+        if (registrations.remove(registration)) {
+            updateScan();
+        }
+    }
+
+
+    public synchronized int getSubscriberCount() {
+        return registrations.size();
+    }
+
+
+    /**
+     * The filters and settings the hardware currently scans with, or {@code null} when stopped.
+     */
+    public synchronized ScanOptions getRunningOptions() {
+        return runningOptions;
+    }
+
+
+    public ScanStartBudget getStartBudget() {
+        return startBudget;
+    }
+
+
+    /**
+     * Whether a start is waiting for the {@link ScanStartBudget}.
+     */
+    public synchronized boolean isStartPending() {
+        return pendingStart != null;
+    }
+
+
+    private void updateScan() {
+        ScanOptions mergedOptions = registrations.isEmpty() ? null : merge(registrations);
+        if (mergedOptions != null ? mergedOptions.equals(runningOptions) : runningOptions == null) {
+            return;
+        }
+        stopScan();
+        cancelPendingStart();
+        if (mergedOptions != null && isBleEnabled()) {
+            long now = SystemClock.elapsedRealtime();
+            if (!startBudget.tryAcquire(now)) {
+                pendingStart = Observable.timer(startBudget.getNextAvailableMillis(now) - now, TimeUnit.MILLISECONDS)
+                        .subscribe(tick -> startPending());
+                return;
+            }
+            setScanner();
+            scanner.startScan(mergedOptions.getFilters(),
+                    mergedOptions.buildSettings(bluetoothAdapter.isOffloadedScanBatchingSupported()), callback);
+            runningOptions = mergedOptions;
+        }
+    }
+
+
+    private synchronized void startPending() {
+        pendingStart = null;
+        updateScan();
+    }
+
+
+    private void cancelPendingStart() {
+        if (pendingStart != null) {
+            pendingStart.unsubscribe();
+            pendingStart = null;
+        }
+    }
+
+
+    private void stopScan() {
+        if (runningOptions != null) {
+            if (scanner != null && isBleEnabled()) {
+                scanner.stopScan(callback);
+            }
+            runningOptions = null;
+        }
+    }
+
+
+    private static ScanOptions merge(List<Registration> registrations) {
+        ScanOptions merged = ScanOptions.create();
+        Set<ScanFilter> filters = new LinkedHashSet<>();
+        boolean unfiltered = false;
+        int scanMode = ScanSettings.SCAN_MODE_OPPORTUNISTIC;
+        int matchMode = ScanSettings.MATCH_MODE_STICKY;
+        long reportDelayMillis = Long.MAX_VALUE;
+        for (Registration registration : registrations) {
+            ScanOptions options = registration.scanOptions;
+            unfiltered |= options.getFilters().isEmpty();
+            filters.addAll(options.getFilters());
+            scanMode = Math.max(scanMode, options.getScanMode());
+            matchMode = Math.min(matchMode, options.getMatchMode());
+            reportDelayMillis = Math.min(reportDelayMillis, options.getReportDelayMillis());
+        }
+        if (!unfiltered) {
+            for (ScanFilter filter : filters) {
+                merged.filter(filter);
+            }
+        }
+        return merged.scanMode(scanMode)
+                .matchMode(matchMode)
+                .reportDelay(reportDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+
+    private void dispatch(ScanResult result) {
+        for (Registration registration : registrations) {
+            if (registration.matches(result)) {
+                registration.subscriber.onNext(result);
+            }
+        }
+    }
+
+
+    private void onAdapterOff() {
+        synchronized (this) {
+            scanner = null;
+        }
+        fail(new ScanException(STATUS_BLE_NOT_ENABLED));
+    }
+
+
+    private void fail(ScanException exception) {
+        List<Registration> targets;
+        synchronized (this) {
+            targets = ImmutableList.copyOf(registrations);
+            registrations.clear();
+            runningOptions = null;
+            cancelPendingStart();
+        }
+        for (Registration registration : targets) {
+            registration.subscriber.onError(exception);
+        }
+    }
+
+
+    private void setAdapter() {
+        if (bluetoothAdapter == null) {
+            bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
+        }
+    }
+
+
+    private void setScanner() {
+        if (scanner == null) {
+            scanner = bluetoothAdapter.getBluetoothLeScanner();
+        }
+    }
+
+
+    private boolean isBleEnabled() {
+        return bluetoothAdapter != null && eventBus.isEnabled();
+    }
+
+
+    @Override public synchronized String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("subscribers", registrations.size())
+                .add("runningOptions", runningOptions).toString();
+    }
+
+
+    private class SessionCallback extends ScanCallback {
+
+        @Override
+        public void onScanResult(int callbackType, ScanResult result) {
+            super.onScanResult(callbackType, result);
+            dispatch(result);
+        }
+
+
+        @Override
+        public void onBatchScanResults(List<ScanResult> results) {
+            super.onBatchScanResults(results);
+            for (ScanResult result : results) {
+                dispatch(result);
+            }
+        }
+
+
+        @Override
+        public void onScanFailed(int errorCode) {
+            super.onScanFailed(errorCode);
+            fail(new ScanException(errorCode));
+        }
+    }
+
+
+    private static class Registration {
+
+        private final ScanOptions scanOptions;
+        private final List<ScanFilter> filters;
+        private final Subscriber<? super ScanResult> subscriber;
+
+
+        Registration(ScanOptions scanOptions, Subscriber<? super ScanResult> subscriber) {
+            this.scanOptions = scanOptions;
+            this.filters = scanOptions.getFilters();
+            this.subscriber = subscriber;
+        }
+
+
+        boolean matches(ScanResult result) {
+            if (filters.isEmpty()) {
+                return true;
+            }
+            for (int i = 0, size = filters.size(); i < size; i++) {
+                if (filters.get(i).matches(result)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.rainbow.kam.ble_gatt_manager.scanner;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Sliding window of recent scan starts. Android silently stops delivering results to an app that starts
+ * more than {@value #MAX_STARTS} scans within {@value #WINDOW_MILLIS} ms, so every start has to be acquired here.
+ */
+public class ScanStartBudget {
+
+    public static final int MAX_STARTS = 5;
+    public static final long WINDOW_MILLIS = 30000;
+
+    private final long[] starts = new long[MAX_STARTS];
+    private int next;
+    private int count;
+
+
+    /**
+     * Records a start at {@code nowMillis} if the window has room for it.
+     */
+    public synchronized boolean tryAcquire(long nowMillis) {
+        if (getRemaining(nowMillis) == 0) {
+            return false;
+        }
+        starts[next] = nowMillis;
+        next = (next + 1) % MAX_STARTS;
+        count = Math.min(count + 1, MAX_STARTS);
+        return true;
+    }
+
+
+    public synchronized int getRemaining(long nowMillis) {
+        int used = 0;
+        for (int i = 0; i < count; i++) {
+            if (nowMillis - starts[i] < WINDOW_MILLIS) {
+                used++;
+            }
+        }
+        return MAX_STARTS - used;
+    }
+
+
+    /**
+     * The earliest time a start can be acquired, {@code nowMillis} when it can right away.
+     */
+    public synchronized long getNextAvailableMillis(long nowMillis) {
+        if (getRemaining(nowMillis) > 0) {
+            return nowMillis;
+        }
+        return starts[next] + WINDOW_MILLIS;
+    }
+
+
+    @Override public synchronized String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("count", count)
+                .add("next", next).toString();
+    }
+}
@@ -0,0 +1,105 @@
+package com.rainbow.kam.ble_gatt_manager.scanner;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+import java.util.List;
+
+/**
+ * Hashed timing wheel of {@link Node}s expiring at their {@link Node#deadlineNanos}.
+ * <p>
+ * Deadlines may be moved forward at any time without touching the wheel: a node is only looked at when the
+ * slot of its old deadline comes up, and is then moved to the slot of its current one. Advancing costs one step per
+ * elapsed tick plus the nodes in the passed slots, however many nodes the wheel holds.
+ * Not thread safe.
+ */
+class TimingWheel<N extends TimingWheel.Node> {
+
+    private static final int SLOT_COUNT = 512;
+    private static final int SLOT_MASK = SLOT_COUNT - 1;
+
+    private final Node[] slots = new Node[SLOT_COUNT];
+    private final long tickNanos;
+    private long currentTick = Long.MIN_VALUE;
+    private int size;
+
+
+    /**
+     * @param horizonNanos the furthest deadline is expected at most this far ahead; the wheel spans twice of it
+     */
+    TimingWheel(long horizonNanos) {
+        Preconditions.checkArgument(horizonNanos > 0, "horizonNanos must be positive");
+        this.tickNanos = Math.max(1, (horizonNanos + SLOT_COUNT / 2 - 1) / (SLOT_COUNT / 2));
+    }
+
+
+    void schedule(N node) {
+        Preconditions.checkArgument(node.slot < 0, "node is already scheduled");
+        if (currentTick == Long.MIN_VALUE) {
+            currentTick = node.deadlineNanos / tickNanos - 1;
+        }
+        link(node, node.deadlineNanos / tickNanos);
+        size++;
+    }
+
+
+    /**
+     * Moves the wheel to {@code nowNanos} and adds the nodes whose deadline has passed to {@code expired}.
+     */
+    @SuppressWarnings("unchecked")
+    void advance(long nowNanos, List<? super N> expired) {
+        long nowTick = nowNanos / tickNanos;
+        if (currentTick == Long.MIN_VALUE || nowTick <= currentTick) {
+            return;
+        }
+        long fromTick = Math.max(currentTick + 1, nowTick - SLOT_MASK);
+        currentTick = nowTick;
+        for (long tick = fromTick; tick <= nowTick; tick++) {
+            int index = (int) (tick & SLOT_MASK);
+            Node node = slots[index];
+            slots[index] = null;
+            while (node != null) {
+                Node next = node.next;
+                node.slot = -1;
+                node.next = null;
+                if (node.deadlineNanos < nowNanos) {
+                    size--;
+                    expired.add((N) node);
+                } else {
+                    link(node, node.deadlineNanos / tickNanos);
+                }
+                node = next;
+            }
+        }
+    }
+
+
+    int size() {
+        return size;
+    }
+
+
+    private void link(Node node, long tick) {
+        long target = Math.min(Math.max(tick, currentTick + 1), currentTick + SLOT_MASK);
+        int index = (int) (target & SLOT_MASK);
+        node.slot = index;
+        node.next = slots[index];
+        slots[index] = node;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("tickNanos", tickNanos)
+                .add("currentTick", currentTick)
+                .add("size", size).toString();
+    }
+
+
+    static class Node {
+
+        long deadlineNanos;
+        Node next;
+        int slot = -1;
+    }
+}
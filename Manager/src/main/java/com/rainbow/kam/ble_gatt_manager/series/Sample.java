@@ -0,0 +1,37 @@
+package com.rainbow.kam.ble_gatt_manager.series;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.Arrays;
+
+/**
+ * One decoded notification value and the time it was received.
+ */
+public final class Sample {
+
+    private final long timestampNanos;
+    private final byte[] payload;
+
+
+    Sample(long timestampNanos, byte[] payload) {
+        this.timestampNanos = timestampNanos;
+        this.payload = payload;
+    }
+
+
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("timestampNanos", timestampNanos)
+                .add("payload", Arrays.toString(payload)).toString();
+    }
+}
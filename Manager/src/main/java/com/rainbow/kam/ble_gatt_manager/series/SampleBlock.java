@@ -0,0 +1,280 @@
+package com.rainbow.kam.ble_gatt_manager.series;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Compressed run of samples of one series.
+ * <p>
+ * Timestamps are stored as zigzag varints: nothing for the first sample (kept in the block header),
+ * the delta for the second and the delta of deltas for the rest, which is mostly zero or a few bytes
+ * of jitter for periodic notifications.
+ * <p>
+ * A payload with the same length as the previous one is stored as a varint {@code 0}, a bitmap of the
+ * bytes that changed and the xor of every changed byte. Any other payload is stored as varint
+ * {@code length + 1} followed by the raw bytes.
+ */
+final class SampleBlock {
+
+    static final int MAX_SAMPLES = 1024;
+    static final int MAX_BYTES = 16 * 1024;
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int TIMESTAMP_SIZE = 8;
+
+    private byte[] data;
+    private int length;
+    private int count;
+    private long rawSize;
+
+    private long firstTimestamp;
+    private long lastTimestamp;
+    private long lastDelta;
+    private byte[] lastPayload;
+
+
+    SampleBlock() {
+        this.data = new byte[INITIAL_CAPACITY];
+    }
+
+
+    private SampleBlock(byte[] data, int count, long rawSize, long firstTimestamp, long lastTimestamp) {
+        this.data = data;
+        this.length = data.length;
+        this.count = count;
+        this.rawSize = rawSize;
+        this.firstTimestamp = firstTimestamp;
+        this.lastTimestamp = lastTimestamp;
+    }
+
+
+    boolean isFull() {
+        return count >= MAX_SAMPLES || length >= MAX_BYTES;
+    }
+
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+
+    int getCount() {
+        return count;
+    }
+
+
+    int getEncodedSize() {
+        return length;
+    }
+
+
+    long getRawSize() {
+        return rawSize;
+    }
+
+
+    long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+
+    long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+
+    boolean overlaps(long fromNanos, long toNanos) {
+        return count > 0 && firstTimestamp <= toNanos && lastTimestamp >= fromNanos;
+    }
+
+
+    void append(long timestampNanos, byte[] payload) {
+        if (count == 0) {
+            firstTimestamp = timestampNanos;
+        } else {
+            long delta = timestampNanos - lastTimestamp;
+            writeVarLong(count == 1 ? delta : delta - lastDelta);
+            lastDelta = delta;
+        }
+        lastTimestamp = timestampNanos;
+
+        if (lastPayload != null && lastPayload.length == payload.length) {
+            writeVarLong(0);
+            int bitmapOffset = length;
+            int bitmapSize = (payload.length + 7) >>> 3;
+            ensureCapacity(bitmapSize + payload.length);
+            Arrays.fill(data, bitmapOffset, bitmapOffset + bitmapSize, (byte) 0);
+            length += bitmapSize;
+            for (int i = 0; i < payload.length; i++) {
+                int xor = payload[i] ^ lastPayload[i];
+                if (xor != 0) {
+                    data[bitmapOffset + (i >>> 3)] |= 1 << (i & 7);
+                    data[length++] = (byte) xor;
+                }
+            }
+            System.arraycopy(payload, 0, lastPayload, 0, payload.length);
+        } else {
+            writeVarLong(payload.length + 1);
+            ensureCapacity(payload.length);
+            System.arraycopy(payload, 0, data, length, payload.length);
+            length += payload.length;
+            lastPayload = payload.clone();
+        }
+        count++;
+        rawSize += TIMESTAMP_SIZE + payload.length;
+    }
+
+
+    SampleBlock seal() {
+        return new SampleBlock(Arrays.copyOf(data, length), count, rawSize, firstTimestamp, lastTimestamp);
+    }
+
+
+    /**
+     * Lazily decodes the samples inside {@code [fromNanos, toNanos]}.
+     * The iterator only sees samples appended before this call.
+     */
+    Iterator<Sample> iterator(long fromNanos, long toNanos) {
+        return new Decoder(data, length, count, firstTimestamp, fromNanos, toNanos);
+    }
+
+
+    void writeTo(DataOutputStream output) throws IOException {
+        output.writeInt(count);
+        output.writeLong(rawSize);
+        output.writeLong(firstTimestamp);
+        output.writeLong(lastTimestamp);
+        output.writeInt(length);
+        output.write(data, 0, length);
+    }
+
+
+    static SampleBlock readFrom(DataInputStream input) throws IOException {
+        int count = input.readInt();
+        long rawSize = input.readLong();
+        long firstTimestamp = input.readLong();
+        long lastTimestamp = input.readLong();
+        byte[] data = new byte[input.readInt()];
+        input.readFully(data);
+        return new SampleBlock(data, count, rawSize, firstTimestamp, lastTimestamp);
+    }
+
+
+    private void writeVarLong(long value) {
+        ensureCapacity(10);
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            data[length++] = (byte) ((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        data[length++] = (byte) zigzag;
+    }
+
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+        }
+    }
+
+
+    private static final class Decoder implements Iterator<Sample> {
+        private final byte[] data;
+        private final int end;
+        private final int count;
+        private final long fromNanos;
+        private final long toNanos;
+
+        private int position;
+        private int index;
+        private long timestamp;
+        private long delta;
+        private byte[] previous;
+        private Sample next;
+
+
+        Decoder(byte[] data, int end, int count, long firstTimestamp, long fromNanos, long toNanos) {
+            this.data = data;
+            this.end = end;
+            this.count = count;
+            this.timestamp = firstTimestamp;
+            this.fromNanos = fromNanos;
+            this.toNanos = toNanos;
+        }
+
+
+        @Override public boolean hasNext() {
+            while (next == null && index < count && position < end) {
+                Sample sample = decode();
+                if (sample.getTimestampNanos() > toNanos) {
+                    index = count;
+                } else if (sample.getTimestampNanos() >= fromNanos) {
+                    next = sample;
+                }
+            }
+            return next != null;
+        }
+
+
+        @Override public Sample next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Sample sample = next;
+            next = null;
+            return sample;
+        }
+
+
+        @Override public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+
+        private Sample decode() {
+            if (index == 1) {
+                delta = readVarLong();
+                timestamp += delta;
+            } else if (index > 1) {
+                delta += readVarLong();
+                timestamp += delta;
+            }
+            index++;
+
+            int header = (int) readVarLong();
+            byte[] payload;
+            if (header == 0) {
+                payload = previous.clone();
+                int bitmapOffset = position;
+                position += (payload.length + 7) >>> 3;
+                for (int i = 0; i < payload.length; i++) {
+                    if ((data[bitmapOffset + (i >>> 3)] & (1 << (i & 7))) != 0) {
+                        payload[i] ^= data[position++];
+                    }
+                }
+            } else {
+                payload = Arrays.copyOfRange(data, position, position + header - 1);
+                position += header - 1;
+            }
+            previous = payload;
+            return new Sample(timestamp, payload.clone());
+        }
+
+
+        private long readVarLong() {
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.rainbow.kam.ble_gatt_manager.series;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+
+import java.util.UUID;
+
+/**
+ * Identifies one time series: a device address and a characteristic uuid.
+ */
+public final class SeriesKey {
+
+    private final String deviceAddress;
+    private final UUID characteristicUUID;
+
+
+    public SeriesKey(String deviceAddress, UUID characteristicUUID) {
+        this.deviceAddress = deviceAddress;
+        this.characteristicUUID = characteristicUUID;
+    }
+
+
+    public String getDeviceAddress() {
+        return deviceAddress;
+    }
+
+
+    public UUID getCharacteristicUUID() {
+        return characteristicUUID;
+    }
+
+
+    @Override public boolean equals(Object object) {
+        if (object == this) {
+            return true;
+        }
+
+        if (object instanceof SeriesKey) {
+            SeriesKey other = (SeriesKey) object;
+            return Objects.equal(this.deviceAddress, other.deviceAddress)
+                    && Objects.equal(this.characteristicUUID, other.characteristicUUID);
+        } else {
+            return false;
+        }
+    }
+
+
+    @Override public int hashCode() {
+        return Objects.hashCode(deviceAddress, characteristicUUID);
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("deviceAddress", deviceAddress)
+                .add("characteristicUUID", characteristicUUID).toString();
+    }
+}
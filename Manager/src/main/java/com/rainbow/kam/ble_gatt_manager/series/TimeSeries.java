@@ -0,0 +1,97 @@
+package com.rainbow.kam.ble_gatt_manager.series;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Blocks of one {@link SeriesKey}, oldest first. The last block stays open for appends.
+ */
+final class TimeSeries {
+
+    private final List<SampleBlock> sealedBlocks = Lists.newArrayList();
+    private SampleBlock openBlock = new SampleBlock();
+    private long lastTimestamp = Long.MIN_VALUE;
+
+
+    synchronized void append(long timestampNanos, byte[] payload) {
+        // blocks are searched by time range, so keep timestamps non decreasing
+        long timestamp = Math.max(timestampNanos, lastTimestamp);
+        openBlock.append(timestamp, payload);
+        lastTimestamp = timestamp;
+        if (openBlock.isFull()) {
+            sealedBlocks.add(openBlock.seal());
+            openBlock = new SampleBlock();
+        }
+    }
+
+
+    synchronized Iterable<Sample> range(final long fromNanos, final long toNanos) {
+        final List<SampleBlock> blocks = Lists.newArrayList();
+        for (SampleBlock block : sealedBlocks) {
+            if (block.overlaps(fromNanos, toNanos)) {
+                blocks.add(block);
+            }
+        }
+        final Iterator<Sample> openSamples = openBlock.overlaps(fromNanos, toNanos)
+                ? openBlock.iterator(fromNanos, toNanos) : Collections.<Sample>emptyIterator();
+        return () -> Iterators.concat(
+                Iterators.concat(Iterators.transform(blocks.iterator(), block -> block.iterator(fromNanos, toNanos))),
+                openSamples);
+    }
+
+
+    synchronized int getSampleCount() {
+        int count = openBlock.getCount();
+        for (SampleBlock block : sealedBlocks) {
+            count += block.getCount();
+        }
+        return count;
+    }
+
+
+    synchronized long getEncodedSize() {
+        long size = openBlock.getEncodedSize();
+        for (SampleBlock block : sealedBlocks) {
+            size += block.getEncodedSize();
+        }
+        return size;
+    }
+
+
+    synchronized long getRawSize() {
+        long size = openBlock.getRawSize();
+        for (SampleBlock block : sealedBlocks) {
+            size += block.getRawSize();
+        }
+        return size;
+    }
+
+
+    synchronized void writeTo(DataOutputStream output) throws IOException {
+        output.writeInt(sealedBlocks.size() + (openBlock.isEmpty() ? 0 : 1));
+        for (SampleBlock block : sealedBlocks) {
+            block.writeTo(output);
+        }
+        if (!openBlock.isEmpty()) {
+            openBlock.writeTo(output);
+        }
+    }
+
+
+    static TimeSeries readFrom(DataInputStream input) throws IOException {
+        TimeSeries series = new TimeSeries();
+        for (int i = input.readInt(); i > 0; i--) {
+            SampleBlock block = SampleBlock.readFrom(input);
+            series.sealedBlocks.add(block);
+            series.lastTimestamp = block.getLastTimestamp();
+        }
+        return series;
+    }
+}
@@ -0,0 +1,163 @@
+package com.rainbow.kam.ble_gatt_manager.series;
+
+import android.bluetooth.BluetoothGattCharacteristic;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSet;
+import com.rainbow.kam.ble_gatt_manager.legacy.util.RecodeClock;
+import com.rainbow.kam.ble_gatt_manager.model.BleDevice;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+
+import rx.Observable;
+
+/**
+ * Compressed store for notification values, one {@link SeriesKey} per device and characteristic.
+ * <pre>{@code
+ * gattManager.observeNotification(characteristic, true)
+ *         .doOnNext(changed -> store.append(gattManager.getBleDevice(), changed))
+ *         .subscribe(...);
+ *
+ * store.query(address, uuid, fromNanos, toNanos)
+ *         .subscribe(sample -> ...);
+ * }</pre>
+ */
+public class TimeSeriesStore {
+
+    private static final int MAGIC = 0x53455249; // "SERI"
+
+    private final ConcurrentHashMap<SeriesKey, TimeSeries> series = new ConcurrentHashMap<>();
+
+
+    @Inject public TimeSeriesStore() {
+    }
+
+
+    public void append(BleDevice bleDevice, BluetoothGattCharacteristic characteristic) {
+        byte[] value = characteristic.getValue();
+        if (value != null) {
+            append(bleDevice.getAddress(), characteristic.getUuid(), RecodeClock.currentTimeNanos(), value);
+        }
+    }
+
+
+    public void append(String deviceAddress, UUID characteristicUUID, long timestampNanos, byte[] payload) {
+        SeriesKey key = new SeriesKey(deviceAddress, characteristicUUID);
+        TimeSeries timeSeries = series.get(key);
+        if (timeSeries == null) {
+            timeSeries = new TimeSeries();
+            TimeSeries previous = series.putIfAbsent(key, timeSeries);
+            if (previous != null) {
+                timeSeries = previous;
+            }
+        }
+        timeSeries.append(timestampNanos, payload);
+    }
+
+
+    /**
+     * Samples of one series inside {@code [fromNanos, toNanos]}, oldest first.
+     * Blocks are only decoded while the subscriber requests more samples.
+     */
+    public Observable<Sample> query(String deviceAddress, UUID characteristicUUID, long fromNanos, long toNanos) {
+        return Observable.defer(() -> {
+            TimeSeries timeSeries = series.get(new SeriesKey(deviceAddress, characteristicUUID));
+            if (timeSeries == null) {
+                return Observable.empty();
+            }
+            return Observable.from(timeSeries.range(fromNanos, toNanos));
+        });
+    }
+
+
+    public Observable<Sample> query(String deviceAddress, UUID characteristicUUID) {
+        return query(deviceAddress, characteristicUUID, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+
+    public Set<SeriesKey> getKeys() {
+        return ImmutableSet.copyOf(series.keySet());
+    }
+
+
+    public int getSampleCount(SeriesKey key) {
+        TimeSeries timeSeries = series.get(key);
+        return timeSeries != null ? timeSeries.getSampleCount() : 0;
+    }
+
+
+    public long getEncodedSize() {
+        long size = 0;
+        for (TimeSeries timeSeries : series.values()) {
+            size += timeSeries.getEncodedSize();
+        }
+        return size;
+    }
+
+
+    /**
+     * Size of the same samples stored as a timestamp and the raw value each.
+     */
+    public long getRawSize() {
+        long size = 0;
+        for (TimeSeries timeSeries : series.values()) {
+            size += timeSeries.getRawSize();
+        }
+        return size;
+    }
+
+
+    public void remove(SeriesKey key) {
+        series.remove(key);
+    }
+
+
+    public void save(OutputStream outputStream) throws IOException {
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream));
+        output.writeInt(MAGIC);
+        Set<Map.Entry<SeriesKey, TimeSeries>> entries = ImmutableSet.copyOf(series.entrySet());
+        output.writeInt(entries.size());
+        for (Map.Entry<SeriesKey, TimeSeries> entry : entries) {
+            SeriesKey key = entry.getKey();
+            output.writeUTF(key.getDeviceAddress());
+            output.writeLong(key.getCharacteristicUUID().getMostSignificantBits());
+            output.writeLong(key.getCharacteristicUUID().getLeastSignificantBits());
+            entry.getValue().writeTo(output);
+        }
+        output.flush();
+    }
+
+
+    public static TimeSeriesStore load(InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream));
+        if (input.readInt() != MAGIC) {
+            throw new IOException("not a time series store");
+        }
+        TimeSeriesStore store = new TimeSeriesStore();
+        for (int i = input.readInt(); i > 0; i--) {
+            SeriesKey key = new SeriesKey(input.readUTF(), new UUID(input.readLong(), input.readLong()));
+            store.series.put(key, TimeSeries.readFrom(input));
+        }
+        return store;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("series", series.size())
+                .add("encodedSize", getEncodedSize())
+                .add("rawSize", getRawSize()).toString();
+    }
+}
@@ -3,14 +3,11 @@ package com.rainbow.kam.ble_gatt_manager.util;
 import android.bluetooth.BluetoothGattCharacteristic;
 import android.text.TextUtils;
 
-import com.google.common.collect.Maps;
 import com.rainbow.kam.ble_gatt_manager.exceptions.gatt.GattWriteCharacteristicException;
 
 import java.util.HashMap;
 
 import rx.Observable;
-import rx.android.schedulers.AndroidSchedulers;
-import rx.schedulers.Schedulers;
 
 /**
  * Created by Kang Young Won on 2016-05-20.
@@ -20,51 +17,44 @@ public class CharacteristicUtils {
     public static String DECIMAL_KEY = "DEC";
     public static String STRING_KEY = "STR";
 
-    private static String HEXADECIMAL_PREFIX = "0x";
-    private static String HEXADECIMAL_FORMAT = "%02X";
-    private static int DECIMAL_BITWISE = 0xff;
-    private static String STRING_FORMAT = "%c";
-    private static String HEXADECIMAL_REGEX = "[^[0-9][a-f]]";
 
+    /**
+     * A lazily formatted view of the current value. Reuse one view across values with {@link FormattedValue#reset(byte[])}.
+     */
+    public static FormattedValue formatValue(BluetoothGattCharacteristic characteristic) {
+        return new FormattedValue(characteristic.getValue());
+    }
 
-    public static Observable<HashMap<String, String>> getFormattedValues(BluetoothGattCharacteristic characteristic) {
-
-        final byte[] value = characteristic.getValue();
-        final HashMap<String, String> valueMap = Maps.newHashMap();
-        final StringBuilder hexBuilder = new StringBuilder(value.length);
-        final StringBuilder decBuilder = new StringBuilder(value.length);
-        final StringBuilder strBuilder = new StringBuilder(value.length);
 
-        return Observable.create((Observable.OnSubscribe<HashMap<String, String>>) subscriber -> {
-            for (byte byteChar : value) {
-                hexBuilder.append(HEXADECIMAL_PREFIX).append(String.format(HEXADECIMAL_FORMAT, byteChar));
-                decBuilder.append(byteChar & DECIMAL_BITWISE);
-                strBuilder.append(String.format(STRING_FORMAT, byteChar));
-            }
-            valueMap.put(HEXADECIMAL_KEY, hexBuilder.toString());
-            valueMap.put(DECIMAL_KEY, decBuilder.toString());
-            valueMap.put(STRING_KEY, strBuilder.toString());
-
-            subscriber.onNext(valueMap);
-            subscriber.onCompleted();
-            subscriber.unsubscribe();
-        }).subscribeOn(Schedulers.computation()).observeOn(AndroidSchedulers.mainThread());
+    /**
+     * All three representations of the current value, formatted on subscription on the subscribing thread.
+     */
+    public static Observable<HashMap<String, String>> getFormattedValues(BluetoothGattCharacteristic characteristic) {
+        final FormattedValue formattedValue = formatValue(characteristic);
+        return Observable.fromCallable(formattedValue::toMap);
     }
 
 
+    /**
+     * Decodes {@code hex} such as {@code 0A1B}, {@code 0a 1b} or {@code 0x0A0x1B} with {@link HexDecoder}.
+     * Large payloads are better fed to a {@link HexDecoder} in pieces.
+     */
     public static Observable<byte[]> createHexByteValue(final BluetoothGattCharacteristic characteristic, final String hex) {
         return Observable.create(subscriber -> {
-            if (!TextUtils.isEmpty(hex) || hex.length() > 1) {
-                String writeHexValue = hex.replaceAll(HEXADECIMAL_REGEX, "");
-                byte[] bytes = new byte[(writeHexValue.length() / 2) + 1];
-                int length = bytes.length;
-                for (int i = 0; i < length; ++i) {
-                    bytes[i] = Long.decode(HEXADECIMAL_PREFIX + hex.substring(i * 2, i * 2 + 2)).byteValue();
+            byte[] bytes = null;
+            String error = "value is null or empty";
+            if (!TextUtils.isEmpty(hex)) {
+                try {
+                    bytes = HexDecoder.decode(hex);
+                } catch (NumberFormatException e) {
+                    error = e.getMessage();
                 }
+            }
+            if (bytes != null && bytes.length > 0) {
                 subscriber.onNext(bytes);
                 subscriber.onCompleted();
             } else {
-                subscriber.onError(new GattWriteCharacteristicException(characteristic, "value is null or empty"));
+                subscriber.onError(new GattWriteCharacteristicException(characteristic, error));
             }
         });
     }
@@ -0,0 +1,139 @@
+package com.rainbow.kam.ble_gatt_manager.util;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.Maps;
+
+import java.util.HashMap;
+
+/**
+ * Hex, decimal and character representations of a characteristic value, each formatted from lookup tables
+ * on first access only.
+ * <p>
+ * {@link #reset(byte[])} points the view at a new value and reuses its buffer, so a view rendering a live value
+ * allocates nothing but the strings actually shown. Not thread safe.
+ */
+public class FormattedValue {
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final char[] DECIMAL_DIGITS = new char[256 * 3];
+    private static final byte[] DECIMAL_LENGTHS = new byte[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            String digits = Integer.toString(i);
+            digits.getChars(0, digits.length(), DECIMAL_DIGITS, i * 3);
+            DECIMAL_LENGTHS[i] = (byte) digits.length();
+        }
+    }
+
+    private byte[] value = new byte[0];
+    private char[] buffer = new char[64];
+    private String hex;
+    private String decimal;
+    private String string;
+
+
+    public FormattedValue() {
+    }
+
+
+    public FormattedValue(byte[] value) {
+        reset(value);
+    }
+
+
+    /**
+     * Formats {@code value} from now on. The array is not copied and must not change while the view is used.
+     */
+    public FormattedValue reset(byte[] value) {
+        this.value = value != null ? value : new byte[0];
+        this.hex = null;
+        this.decimal = null;
+        this.string = null;
+        return this;
+    }
+
+
+    public byte[] getValue() {
+        return value;
+    }
+
+
+    /**
+     * Every byte as {@code 0xAB}, without separator.
+     */
+    public String getHex() {
+        if (hex == null) {
+            char[] chars = buffer(value.length * 4);
+            int position = 0;
+            for (byte b : value) {
+                chars[position++] = '0';
+                chars[position++] = 'x';
+                chars[position++] = HEX_DIGITS[(b >>> 4) & 0x0F];
+                chars[position++] = HEX_DIGITS[b & 0x0F];
+            }
+            hex = new String(chars, 0, position);
+        }
+        return hex;
+    }
+
+
+    /**
+     * Every byte as an unsigned decimal, without separator.
+     */
+    public String getDecimal() {
+        if (decimal == null) {
+            char[] chars = buffer(value.length * 3);
+            int position = 0;
+            for (byte b : value) {
+                int unsigned = b & 0xFF;
+                int length = DECIMAL_LENGTHS[unsigned];
+                System.arraycopy(DECIMAL_DIGITS, unsigned * 3, chars, position, length);
+                position += length;
+            }
+            decimal = new String(chars, 0, position);
+        }
+        return decimal;
+    }
+
+
+    /**
+     * Every byte as the ISO-8859-1 character of the same code.
+     */
+    public String getString() {
+        if (string == null) {
+            char[] chars = buffer(value.length);
+            for (int i = 0; i < value.length; i++) {
+                chars[i] = (char) (value[i] & 0xFF);
+            }
+            string = new String(chars, 0, value.length);
+        }
+        return string;
+    }
+
+
+    /**
+     * All three representations keyed like {@link CharacteristicUtils#getFormattedValues}.
+     */
+    public HashMap<String, String> toMap() {
+        HashMap<String, String> valueMap = Maps.newHashMapWithExpectedSize(3);
+        valueMap.put(CharacteristicUtils.HEXADECIMAL_KEY, getHex());
+        valueMap.put(CharacteristicUtils.DECIMAL_KEY, getDecimal());
+        valueMap.put(CharacteristicUtils.STRING_KEY, getString());
+        return valueMap;
+    }
+
+
+    private char[] buffer(int length) {
+        if (buffer.length < length) {
+            buffer = new char[Math.max(length, buffer.length * 2)];
+        }
+        return buffer;
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("hex", getHex()).toString();
+    }
+}
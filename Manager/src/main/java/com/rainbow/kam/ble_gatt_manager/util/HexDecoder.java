@@ -0,0 +1,194 @@
+package com.rainbow.kam.ble_gatt_manager.util;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Streaming hex decoder. Input may arrive in pieces of any size, split anywhere, and is decoded into a reused
+ * direct buffer that is handed to a {@link ChunkSink} every time it fills, and once more on {@link #finish()}.
+ * <pre>{@code
+ * HexDecoder decoder = new HexDecoder(20, chunk -> writeChunk(chunk));
+ * decoder.feed(reader);
+ * decoder.finish();
+ * }</pre>
+ * Whitespace, {@code : , - _} separators and {@code 0x} prefixes are skipped, so the output of
+ * {@link FormattedValue#getHex()} decodes back. Anything else throws {@link NumberFormatException}.
+ * Not thread safe.
+ */
+public class HexDecoder {
+
+    /**
+     * Receives decoded bytes between position and limit. The buffer is reused once this returns.
+     */
+    public interface ChunkSink {
+
+        void onChunk(ByteBuffer chunk) throws IOException;
+    }
+
+    static final byte[] DIGITS = new byte[128];
+    private static final byte SEPARATOR = -2;
+    private static final byte INVALID = -1;
+
+    static {
+        for (int i = 0; i < DIGITS.length; i++) {
+            DIGITS[i] = INVALID;
+        }
+        for (int i = 0; i < 10; i++) {
+            DIGITS['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            DIGITS['a' + i] = (byte) (10 + i);
+            DIGITS['A' + i] = (byte) (10 + i);
+        }
+        for (char separator : " \t\r\n:,-_".toCharArray()) {
+            DIGITS[separator] = SEPARATOR;
+        }
+    }
+
+    private final ByteBuffer chunk;
+    private final ChunkSink sink;
+    private final char[] readBuffer = new char[4096];
+
+    private int highNibble = -1;
+    private long position;
+    private long decodedCount;
+
+
+    public HexDecoder(int chunkSize, ChunkSink sink) {
+        Preconditions.checkArgument(chunkSize > 0, "chunkSize must be positive");
+        this.chunk = ByteBuffer.allocateDirect(chunkSize);
+        this.sink = sink;
+    }
+
+
+    /**
+     * Decodes a short hex string such as a value typed by the user.
+     *
+     * @throws NumberFormatException if {@code hex} has an invalid character or an odd number of digits
+     */
+    public static byte[] decode(CharSequence hex) {
+        int digits = 0;
+        for (int i = 0, length = hex.length(); i < length; i++) {
+            char c = hex.charAt(i);
+            if (c < 128 && DIGITS[c] >= 0) {
+                digits++;
+            }
+        }
+        final byte[] bytes = new byte[digits / 2];
+        final int[] offset = {0};
+        HexDecoder decoder = new HexDecoder(Math.max(1, bytes.length), chunk -> {
+            int remaining = chunk.remaining();
+            chunk.get(bytes, offset[0], remaining);
+            offset[0] += remaining;
+        });
+        try {
+            decoder.feed(hex);
+            decoder.finish();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return offset[0] == bytes.length ? bytes : Arrays.copyOf(bytes, offset[0]);
+    }
+
+
+    public void feed(CharSequence hex) throws IOException {
+        for (int i = 0, length = hex.length(); i < length; i++) {
+            accept(hex.charAt(i));
+        }
+    }
+
+
+    public void feed(char[] hex, int offset, int length) throws IOException {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            accept(hex[i]);
+        }
+    }
+
+
+    /**
+     * Feeds everything {@code reader} has, without closing it.
+     */
+    public void feed(Reader reader) throws IOException {
+        int read;
+        while ((read = reader.read(readBuffer)) != -1) {
+            feed(readBuffer, 0, read);
+        }
+    }
+
+
+    /**
+     * Feeds the remaining ASCII bytes of {@code hex}, advancing its position.
+     */
+    public void feed(ByteBuffer hex) throws IOException {
+        while (hex.hasRemaining()) {
+            accept((char) (hex.get() & 0xFF));
+        }
+    }
+
+
+    /**
+     * Hands the last partial chunk to the sink.
+     *
+     * @throws NumberFormatException if the input ended in the middle of a byte
+     */
+    public void finish() throws IOException {
+        if (highNibble >= 0) {
+            throw new NumberFormatException("Odd number of hex digits at " + position);
+        }
+        flush();
+    }
+
+
+    public long getDecodedCount() {
+        return decodedCount;
+    }
+
+
+    private void accept(char c) throws IOException {
+        int digit = c < 128 ? DIGITS[c] : INVALID;
+        if (digit >= 0) {
+            if (highNibble < 0) {
+                highNibble = digit;
+            } else {
+                put((byte) (highNibble << 4 | digit));
+                highNibble = -1;
+            }
+        } else if ((c == 'x' || c == 'X') && highNibble == 0) {
+            highNibble = -1;
+        } else if (digit != SEPARATOR || highNibble >= 0) {
+            throw new NumberFormatException("Unexpected '" + c + "' at " + position);
+        }
+        position++;
+    }
+
+
+    private void put(byte b) throws IOException {
+        chunk.put(b);
+        decodedCount++;
+        if (!chunk.hasRemaining()) {
+            flush();
+        }
+    }
+
+
+    private void flush() throws IOException {
+        if (chunk.position() > 0) {
+            chunk.flip();
+            sink.onChunk(chunk);
+            chunk.clear();
+        }
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("chunkSize", chunk.capacity())
+                .add("position", position)
+                .add("decodedCount", decodedCount).toString();
+    }
+}
@@ -0,0 +1,243 @@
+package com.rainbow.kam.ble_gatt_manager.util;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+/**
+ * Streaming Intel HEX decoder for firmware images. Records may arrive split anywhere; data records are
+ * checked against their checksum, placed at their absolute address and coalesced into a reused direct buffer
+ * that is handed to a {@link DataSink} whenever it fills or the next record is not contiguous.
+ * <pre>{@code
+ * IntelHexDecoder decoder = new IntelHexDecoder(4096, (address, data) -> image.write(address, data));
+ * decoder.feed(reader);
+ * decoder.finish();
+ * }</pre>
+ * Malformed input throws an {@link IOException} naming the line. Not thread safe.
+ */
+public class IntelHexDecoder {
+
+    /**
+     * Receives decoded bytes between position and limit, the first of them at {@code address}.
+     * The buffer is reused once this returns.
+     */
+    public interface DataSink {
+
+        void onData(long address, ByteBuffer data) throws IOException;
+    }
+
+    private static final int TYPE_DATA = 0x00;
+    private static final int TYPE_END_OF_FILE = 0x01;
+    private static final int TYPE_EXTENDED_SEGMENT_ADDRESS = 0x02;
+    private static final int TYPE_START_SEGMENT_ADDRESS = 0x03;
+    private static final int TYPE_EXTENDED_LINEAR_ADDRESS = 0x04;
+    private static final int TYPE_START_LINEAR_ADDRESS = 0x05;
+
+    private static final int RECORD_OVERHEAD = 5;
+
+    private final ByteBuffer chunk;
+    private final DataSink sink;
+    private final byte[] record = new byte[RECORD_OVERHEAD + 255];
+    private final char[] readBuffer = new char[4096];
+
+    private boolean inRecord;
+    private int recordLength;
+    private int highNibble = -1;
+    private long line = 1;
+    private long chunkAddress;
+    private long baseAddress;
+    private long startAddress = -1;
+    private boolean ended;
+    private long decodedCount;
+
+
+    public IntelHexDecoder(int chunkSize, DataSink sink) {
+        Preconditions.checkArgument(chunkSize > 0, "chunkSize must be positive");
+        this.chunk = ByteBuffer.allocateDirect(chunkSize);
+        this.sink = sink;
+    }
+
+
+    public void feed(CharSequence hex) throws IOException {
+        for (int i = 0, length = hex.length(); i < length; i++) {
+            accept(hex.charAt(i));
+        }
+    }
+
+
+    public void feed(char[] hex, int offset, int length) throws IOException {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            accept(hex[i]);
+        }
+    }
+
+
+    /**
+     * Feeds everything {@code reader} has, without closing it.
+     */
+    public void feed(Reader reader) throws IOException {
+        int read;
+        while ((read = reader.read(readBuffer)) != -1) {
+            feed(readBuffer, 0, read);
+        }
+    }
+
+
+    /**
+     * Feeds the remaining ASCII bytes of {@code hex}, advancing its position.
+     */
+    public void feed(ByteBuffer hex) throws IOException {
+        while (hex.hasRemaining()) {
+            accept((char) (hex.get() & 0xFF));
+        }
+    }
+
+
+    /**
+     * Ends the last record and hands the pending data to the sink.
+     *
+     * @throws IOException if there was no end of file record
+     */
+    public void finish() throws IOException {
+        if (inRecord) {
+            endRecord();
+        }
+        flush();
+        if (!ended) {
+            throw new IOException("Missing end of file record");
+        }
+    }
+
+
+    /**
+     * The start address of a start segment or start linear address record, or -1.
+     */
+    public long getStartAddress() {
+        return startAddress;
+    }
+
+
+    public long getDecodedCount() {
+        return decodedCount;
+    }
+
+
+    private void accept(char c) throws IOException {
+        if (c == ':') {
+            if (inRecord) {
+                endRecord();
+            }
+            inRecord = true;
+            recordLength = 0;
+            return;
+        }
+        if (c == '\n' || c == '\r' || c == ' ' || c == '\t') {
+            if (inRecord) {
+                endRecord();
+            }
+            if (c == '\n') {
+                line++;
+            }
+            return;
+        }
+        int digit = c < 128 ? HexDecoder.DIGITS[c] : -1;
+        if (!inRecord || digit < 0) {
+            throw new IOException("Unexpected '" + c + "' on line " + line);
+        }
+        if (highNibble < 0) {
+            highNibble = digit;
+        } else {
+            if (recordLength == record.length) {
+                throw new IOException("Record too long on line " + line);
+            }
+            record[recordLength++] = (byte) (highNibble << 4 | digit);
+            highNibble = -1;
+        }
+    }
+
+
+    private void endRecord() throws IOException {
+        inRecord = false;
+        if (highNibble >= 0 || recordLength < RECORD_OVERHEAD || recordLength != (record[0] & 0xFF) + RECORD_OVERHEAD) {
+            throw new IOException("Truncated record on line " + line);
+        }
+        int checksum = 0;
+        for (int i = 0; i < recordLength; i++) {
+            checksum += record[i];
+        }
+        if ((checksum & 0xFF) != 0) {
+            throw new IOException("Bad checksum on line " + line);
+        }
+        if (ended) {
+            throw new IOException("Record after end of file on line " + line);
+        }
+        int count = record[0] & 0xFF;
+        int address = uint16(1);
+        switch (record[3] & 0xFF) {
+            case TYPE_DATA:
+                putData(baseAddress + address, count);
+                break;
+            case TYPE_END_OF_FILE:
+                flush();
+                ended = true;
+                break;
+            case TYPE_EXTENDED_SEGMENT_ADDRESS:
+                baseAddress = (long) uint16(4) << 4;
+                break;
+            case TYPE_START_SEGMENT_ADDRESS:
+                startAddress = ((long) uint16(4) << 4) + uint16(6);
+                break;
+            case TYPE_EXTENDED_LINEAR_ADDRESS:
+                baseAddress = (long) uint16(4) << 16;
+                break;
+            case TYPE_START_LINEAR_ADDRESS:
+                startAddress = (long) uint16(4) << 16 | uint16(6);
+                break;
+            default:
+                throw new IOException("Unknown record type " + (record[3] & 0xFF) + " on line " + line);
+        }
+    }
+
+
+    private void putData(long address, int count) throws IOException {
+        if (chunk.position() > 0 && address != chunkAddress + chunk.position()) {
+            flush();
+        }
+        for (int i = 0; i < count; i++) {
+            if (chunk.position() == 0) {
+                chunkAddress = address + i;
+            }
+            chunk.put(record[4 + i]);
+            if (!chunk.hasRemaining()) {
+                flush();
+            }
+        }
+        decodedCount += count;
+    }
+
+
+    private int uint16(int offset) {
+        return (record[offset] & 0xFF) << 8 | (record[offset + 1] & 0xFF);
+    }
+
+
+    private void flush() throws IOException {
+        if (chunk.position() > 0) {
+            chunk.flip();
+            sink.onData(chunkAddress, chunk);
+            chunk.clear();
+        }
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("chunkSize", chunk.capacity())
+                .add("line", line)
+                .add("decodedCount", decodedCount)
+                .add("startAddress", startAddress).toString();
+    }
+}
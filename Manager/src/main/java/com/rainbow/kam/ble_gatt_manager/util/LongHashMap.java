@@ -0,0 +1,187 @@
+package com.rainbow.kam.ble_gatt_manager.util;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Open addressing hash map from primitive {@code long} keys, such as packed
+ * {@link com.rainbow.kam.ble_gatt_manager.model.MacAddress}es, to values, without boxing the keys.
+ * <p>
+ * Linear probing over power of two tables kept at most half full; removal shifts the following entries back instead of
+ * leaving tombstones. Null values are not allowed. Iteration order is unspecified. Not thread safe.
+ */
+public class LongHashMap<V> {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+
+    public LongHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+
+    public LongHashMap(int expectedSize) {
+        allocate(LongHashing.tableSize(expectedSize, MIN_CAPACITY));
+    }
+
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int index = indexOf(key);
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+
+    /**
+     * @return the previous value of {@code key}, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        Preconditions.checkNotNull(value, "value");
+        int index = LongHashing.mix(key) & mask;
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                V previous = (V) values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > (mask + 1) / 2) {
+            resize((mask + 1) * 2);
+        }
+        return null;
+    }
+
+
+    /**
+     * @return the removed value, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V removed = (V) values[index];
+        shiftBack(index);
+        size--;
+        return removed;
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+
+    public long[] keys() {
+        long[] result = new long[size];
+        for (int i = 0, j = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                result[j++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> result = Lists.newArrayListWithCapacity(size);
+        for (Object value : values) {
+            if (value != null) {
+                result.add((V) value);
+            }
+        }
+        return result;
+    }
+
+
+    private int indexOf(long key) {
+        int index = LongHashing.mix(key) & mask;
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+
+    private void shiftBack(int gap) {
+        int index = gap;
+        while (true) {
+            index = (index + 1) & mask;
+            if (values[index] == null) {
+                break;
+            }
+            int home = LongHashing.mix(keys[index]) & mask;
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = keys[index];
+                values[gap] = values[index];
+                gap = index;
+            }
+        }
+        values[gap] = null;
+    }
+
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int index = LongHashing.mix(oldKeys[i]) & mask;
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("size", size)
+                .add("capacity", mask + 1).toString();
+    }
+}
@@ -0,0 +1,149 @@
+package com.rainbow.kam.ble_gatt_manager.util;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash set of primitive {@code long}s, the set counterpart of {@link LongHashMap}. Not thread safe.
+ */
+public class LongHashSet {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] keys;
+    private boolean[] used;
+    private int mask;
+    private int size;
+
+
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+
+    public LongHashSet(int expectedSize) {
+        allocate(LongHashing.tableSize(expectedSize, MIN_CAPACITY));
+    }
+
+
+    public boolean contains(long key) {
+        return indexOf(key) >= 0;
+    }
+
+
+    /**
+     * @return whether {@code key} was not in the set yet
+     */
+    public boolean add(long key) {
+        int index = LongHashing.mix(key) & mask;
+        while (used[index]) {
+            if (keys[index] == key) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        used[index] = true;
+        if (++size > (mask + 1) / 2) {
+            resize((mask + 1) * 2);
+        }
+        return true;
+    }
+
+
+    /**
+     * @return whether {@code key} was in the set
+     */
+    public boolean remove(long key) {
+        int gap = indexOf(key);
+        if (gap < 0) {
+            return false;
+        }
+        int index = gap;
+        while (true) {
+            index = (index + 1) & mask;
+            if (!used[index]) {
+                break;
+            }
+            int home = LongHashing.mix(keys[index]) & mask;
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = keys[index];
+                gap = index;
+            }
+        }
+        used[gap] = false;
+        size--;
+        return true;
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+
+    public long[] toArray() {
+        long[] result = new long[size];
+        for (int i = 0, j = 0; i < used.length; i++) {
+            if (used[i]) {
+                result[j++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+
+    private int indexOf(long key) {
+        int index = LongHashing.mix(key) & mask;
+        while (used[index]) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i]) {
+                int index = LongHashing.mix(oldKeys[i]) & mask;
+                while (used[index]) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                used[index] = true;
+            }
+        }
+    }
+
+
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("size", size)
+                .add("capacity", mask + 1).toString();
+    }
+}
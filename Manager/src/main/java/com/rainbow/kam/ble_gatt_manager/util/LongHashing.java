@@ -0,0 +1,35 @@
+package com.rainbow.kam.ble_gatt_manager.util;
+
+/**
+ * Hashing shared by {@link LongHashMap} and {@link LongHashSet}.
+ */
+final class LongHashing {
+
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+
+    private LongHashing() {
+    }
+
+
+    /**
+     * Spreads every bit of {@code key} into the high bits, then folds them down, since packed addresses of
+     * one vendor share their upper 24 bits.
+     */
+    static int mix(long key) {
+        long hash = key * GOLDEN_RATIO;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+
+    /**
+     * The power of two table size that keeps {@code expectedSize} entries at most half full.
+     */
+    static int tableSize(int expectedSize, int minCapacity) {
+        int capacity = minCapacity;
+        while (capacity < expectedSize * 2L) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -1,18 +1,40 @@
 package com.rainbow.kam.ble_gatt_manager.util;
 
+import java.util.UUID;
+
 import static com.rainbow.kam.ble_gatt_manager.BuildConfig.UUID_HEX;
-import static com.rainbow.kam.ble_gatt_manager.BuildConfig.UUID_REGEX;
 
 /**
  * Created by Kang Young Won on 2016-06-01.
  */
 public class UuidUtils {
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+
+    /**
+     * The 16 bit short form of a uuid string, such as {@code 0x180D} for {@code 0000180d-0000-1000-8000-00805f9b34fb}.
+     */
     public static String splitUUID(final String uuid) {
-        return UUID_HEX + uuid.replaceAll(UUID_REGEX, "").substring(4, 8).toUpperCase();
+        char[] chars = new char[4];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toUpperCase(uuid.charAt(4 + i));
+        }
+        return UUID_HEX + new String(chars);
+    }
+
+
+    public static String splitUUID(final UUID uuid) {
+        int shortForm = (int) (uuid.getMostSignificantBits() >>> 32) & 0xFFFF;
+        char[] chars = new char[4];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = HEX_DIGITS[(shortForm >>> ((3 - i) * 4)) & 0x0F];
+        }
+        return UUID_HEX + new String(chars);
     }
 
 
     @Override public String toString() {
-        return "UuidUtils{String splitUUID(String uuid)}";
+        return "UuidUtils{String splitUUID(String uuid), String splitUUID(UUID uuid)}";
     }
 }
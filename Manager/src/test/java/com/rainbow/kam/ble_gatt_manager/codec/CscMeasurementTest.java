@@ -0,0 +1,61 @@
+package com.rainbow.kam.ble_gatt_manager.codec;
+
+import org.junit.Test;
+
+import static com.rainbow.kam.ble_gatt_manager.codec.GattFormatTest.bytes;
+import static org.junit.Assert.*;
+
+public class CscMeasurementTest {
+
+    private final CscMeasurement measurement = new CscMeasurement();
+
+
+    @Test
+    public void parse_readsWheelAndCrank() throws Exception {
+        byte[] value = bytes(0x03, 0xFF, 0xFF, 0xFF, 0xFF, 0x00, 0x04, 0x2A, 0x00, 0x00, 0x08);
+
+        assertTrue(measurement.parse(value, 0, value.length));
+
+        assertTrue(measurement.hasWheel());
+        assertEquals(0xFFFFFFFFL, measurement.getWheelRevolutions());
+        assertEquals(CscMeasurement.EVENT_TIME_RESOLUTION, measurement.getLastWheelEventTime());
+        assertTrue(measurement.hasCrank());
+        assertEquals(42, measurement.getCrankRevolutions());
+        assertEquals(2 * CscMeasurement.EVENT_TIME_RESOLUTION, measurement.getLastCrankEventTime());
+    }
+
+
+    @Test
+    public void parse_readsCrankOnly() throws Exception {
+        byte[] value = bytes(0x02, 0xFF, 0xFF, 0x34, 0x12);
+
+        assertTrue(measurement.parse(value, 0, value.length));
+
+        assertFalse(measurement.hasWheel());
+        assertTrue(measurement.hasCrank());
+        assertEquals(0xFFFF, measurement.getCrankRevolutions());
+        assertEquals(0x1234, measurement.getLastCrankEventTime());
+    }
+
+
+    @Test
+    public void parse_readsWheelOnlyInsideLargerBuffer() throws Exception {
+        byte[] value = bytes(0xAA, 0x01, 0x10, 0x00, 0x00, 0x00, 0x20, 0x00, 0xAA);
+
+        assertTrue(measurement.parse(value, 1, 7));
+
+        assertTrue(measurement.hasWheel());
+        assertEquals(16, measurement.getWheelRevolutions());
+        assertEquals(32, measurement.getLastWheelEventTime());
+        assertFalse(measurement.hasCrank());
+    }
+
+
+    @Test
+    public void parse_rejectsValueTooShortForFlags() throws Exception {
+        assertFalse(measurement.parse(new byte[0], 0, 0));
+        assertFalse(measurement.parse(bytes(0x01, 0x10, 0x00, 0x00, 0x00, 0x20), 0, 6));
+        assertFalse(measurement.parse(bytes(0x03, 0x10, 0x00, 0x00, 0x00, 0x20, 0x00, 0x01, 0x00, 0x02), 0, 10));
+        assertFalse(measurement.parse(bytes(0x02, 0x01, 0x00, 0x02, 0x00), 0, 4));
+    }
+}
@@ -0,0 +1,117 @@
+package com.rainbow.kam.ble_gatt_manager.codec;
+
+import android.bluetooth.BluetoothGattCharacteristic;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GattFormatTest {
+
+    private static final float DELTA = 1e-4f;
+
+
+    @Test
+    public void integers_readLittleEndian() throws Exception {
+        byte[] value = bytes(0x00, 0xFE, 0xFF, 0xFF, 0xFF);
+
+        assertEquals(0xFE, GattFormat.uint8(value, 1));
+        assertEquals(-2, GattFormat.sint8(value, 1));
+        assertEquals(0xFFFE, GattFormat.uint16(value, 1));
+        assertEquals(-2, GattFormat.sint16(value, 1));
+        assertEquals(0xFFFFFE, GattFormat.uint24(value, 1));
+        assertEquals(-2, GattFormat.sint24(value, 1));
+        assertEquals(0xFFFFFFFEL, GattFormat.uint32(value, 1));
+        assertEquals(-2, GattFormat.sint32(value, 1));
+        assertEquals(0x7FFF, GattFormat.uint16(bytes(0xFF, 0x7F), 0));
+    }
+
+
+    @Test
+    public void bits_readAcrossByteBoundary() throws Exception {
+        byte[] value = bytes(0x80, 0x01);
+
+        assertEquals(3, GattFormat.bits(value, 0, 7, 2));
+        assertTrue(GattFormat.bit(value, 0, 8));
+        assertFalse(GattFormat.bit(value, 0, 9));
+        assertEquals(0, GattFormat.bits(value, 0, 1, 6));
+    }
+
+
+    @Test
+    public void sfloat_decodesMantissaAndExponent() throws Exception {
+        assertEquals(114f, GattFormat.sfloat(bytes(0x72, 0x00), 0), DELTA);
+        assertEquals(36.5f, GattFormat.sfloat(bytes(0x6D, 0xF1), 0), DELTA);
+        assertEquals(-1.5f, GattFormat.sfloat(bytes(0xF1, 0xFF), 0), DELTA);
+        assertEquals(12000f, GattFormat.sfloat(bytes(0x0C, 0x30), 0), DELTA);
+    }
+
+
+    @Test
+    public void sfloat_decodesSpecialValuesWithExponentZeroOnly() throws Exception {
+        assertTrue(Float.isNaN(GattFormat.sfloat(bytes(0xFF, 0x07), 0)));
+        assertTrue(Float.isNaN(GattFormat.sfloat(bytes(0x00, 0x08), 0)));
+        assertTrue(Float.isNaN(GattFormat.sfloat(bytes(0x01, 0x08), 0)));
+        assertEquals(Float.POSITIVE_INFINITY, GattFormat.sfloat(bytes(0xFE, 0x07), 0), 0);
+        assertEquals(Float.NEGATIVE_INFINITY, GattFormat.sfloat(bytes(0x02, 0x08), 0), 0);
+
+        assertEquals(-204.8f, GattFormat.sfloat(bytes(0x00, 0xF8), 0), DELTA);
+        assertEquals(204.7f, GattFormat.sfloat(bytes(0xFF, 0xF7), 0), DELTA);
+        assertEquals(-20460f, GattFormat.sfloat(bytes(0x02, 0x18), 0), DELTA);
+    }
+
+
+    @Test
+    public void float32_decodesMantissaAndExponent() throws Exception {
+        assertEquals(36.5f, GattFormat.float32(bytes(0x6D, 0x01, 0x00, 0xFF), 0), DELTA);
+        assertEquals(-1.5f, GattFormat.float32(bytes(0xF1, 0xFF, 0xFF, 0xFF), 0), DELTA);
+        assertEquals(7000f, GattFormat.float32(bytes(0x07, 0x00, 0x00, 0x03), 0), DELTA);
+    }
+
+
+    @Test
+    public void float32_decodesSpecialValuesWithExponentZeroOnly() throws Exception {
+        assertTrue(Float.isNaN(GattFormat.float32(bytes(0xFF, 0xFF, 0x7F, 0x00), 0)));
+        assertTrue(Float.isNaN(GattFormat.float32(bytes(0x00, 0x00, 0x80, 0x00), 0)));
+        assertTrue(Float.isNaN(GattFormat.float32(bytes(0x01, 0x00, 0x80, 0x00), 0)));
+        assertEquals(Float.POSITIVE_INFINITY, GattFormat.float32(bytes(0xFE, 0xFF, 0x7F, 0x00), 0), 0);
+        assertEquals(Float.NEGATIVE_INFINITY, GattFormat.float32(bytes(0x02, 0x00, 0x80, 0x00), 0), 0);
+
+        assertEquals(-838860.8f, GattFormat.float32(bytes(0x00, 0x00, 0x80, 0xFF), 0), 0.1f);
+        assertEquals(838860.7f, GattFormat.float32(bytes(0xFF, 0xFF, 0x7F, 0xFF), 0), 0.1f);
+    }
+
+
+    @Test
+    public void decode_readsEveryFormat() throws Exception {
+        byte[] value = bytes(0x6D, 0xF1, 0x00, 0xFF);
+
+        assertEquals(0x6D, GattFormat.decode(BluetoothGattCharacteristic.FORMAT_UINT8, value, 0), 0);
+        assertEquals(-15, GattFormat.decode(BluetoothGattCharacteristic.FORMAT_SINT8, value, 1), 0);
+        assertEquals(0xF16D, GattFormat.decode(BluetoothGattCharacteristic.FORMAT_UINT16, value, 0), 0);
+        assertEquals((short) 0xF16D, GattFormat.decode(BluetoothGattCharacteristic.FORMAT_SINT16, value, 0), 0);
+        assertEquals(0xFF00F16DL, GattFormat.decode(BluetoothGattCharacteristic.FORMAT_UINT32, value, 0), 0);
+        assertEquals(0xFF00F16D, GattFormat.decode(BluetoothGattCharacteristic.FORMAT_SINT32, value, 0), 0);
+        assertEquals(36.5, GattFormat.decode(BluetoothGattCharacteristic.FORMAT_SFLOAT, value, 0), DELTA);
+        assertEquals(6180.5, GattFormat.decode(BluetoothGattCharacteristic.FORMAT_FLOAT, value, 0), DELTA);
+
+        assertEquals(1, GattFormat.sizeOf(BluetoothGattCharacteristic.FORMAT_UINT8));
+        assertEquals(2, GattFormat.sizeOf(BluetoothGattCharacteristic.FORMAT_SFLOAT));
+        assertEquals(4, GattFormat.sizeOf(BluetoothGattCharacteristic.FORMAT_FLOAT));
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_rejectsUnknownFormat() throws Exception {
+        GattFormat.decode(0x99, new byte[4], 0);
+    }
+
+
+    static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,89 @@
+package com.rainbow.kam.ble_gatt_manager.codec;
+
+import org.junit.Test;
+
+import static com.rainbow.kam.ble_gatt_manager.codec.GattFormatTest.bytes;
+import static org.junit.Assert.*;
+
+public class HeartRateMeasurementTest {
+
+    private final HeartRateMeasurement measurement = new HeartRateMeasurement();
+
+
+    @Test
+    public void parse_readsUint8HeartRateAndContact() throws Exception {
+        byte[] value = bytes(0x06, 0x48);
+
+        assertTrue(measurement.parse(value, 0, value.length));
+
+        assertEquals(72, measurement.getHeartRate());
+        assertEquals(HeartRateMeasurement.CONTACT_DETECTED, measurement.getSensorContact());
+        assertEquals(-1, measurement.getEnergyExpended());
+        assertEquals(0, measurement.getRrIntervalCount());
+    }
+
+
+    @Test
+    public void parse_readsUint16HeartRateEnergyAndRrIntervals() throws Exception {
+        byte[] value = bytes(0x19, 0x2C, 0x01, 0x10, 0x00, 0x00, 0x04, 0x00, 0x02);
+
+        assertTrue(measurement.parse(value, 0, value.length));
+
+        assertEquals(300, measurement.getHeartRate());
+        assertEquals(16, measurement.getEnergyExpended());
+        assertEquals(2, measurement.getRrIntervalCount());
+        assertEquals(HeartRateMeasurement.RR_INTERVAL_RESOLUTION, measurement.getRrInterval(0));
+        assertEquals(512, measurement.getRrInterval(1));
+    }
+
+
+    @Test
+    public void parse_mapsContactBits() throws Exception {
+        measurement.parse(bytes(0x00, 0x48), 0, 2);
+        assertEquals(HeartRateMeasurement.CONTACT_NOT_SUPPORTED, measurement.getSensorContact());
+
+        measurement.parse(bytes(0x02, 0x48), 0, 2);
+        assertEquals(HeartRateMeasurement.CONTACT_NOT_SUPPORTED, measurement.getSensorContact());
+
+        measurement.parse(bytes(0x04, 0x48), 0, 2);
+        assertEquals(HeartRateMeasurement.CONTACT_NOT_DETECTED, measurement.getSensorContact());
+    }
+
+
+    @Test
+    public void parse_readsInsideLargerBuffer() throws Exception {
+        byte[] value = bytes(0xAA, 0xAA, 0x10, 0x50, 0x00, 0x04, 0x01, 0xAA);
+
+        assertTrue(measurement.parse(value, 2, 5));
+
+        assertEquals(80, measurement.getHeartRate());
+        assertEquals(1, measurement.getRrIntervalCount());
+        assertEquals(HeartRateMeasurement.RR_INTERVAL_RESOLUTION, measurement.getRrInterval(0));
+    }
+
+
+    @Test
+    public void parse_keepsAtMostNineRrIntervals() throws Exception {
+        byte[] value = new byte[2 + 2 * 12];
+        value[0] = 0x10;
+        value[1] = 60;
+        for (int i = 2; i < value.length; i += 2) {
+            value[i] = (byte) i;
+        }
+
+        assertTrue(measurement.parse(value, 0, value.length));
+
+        assertEquals(9, measurement.getRrIntervalCount());
+        assertEquals(2, measurement.getRrInterval(0));
+        assertEquals(18, measurement.getRrInterval(8));
+    }
+
+
+    @Test
+    public void parse_rejectsValueTooShortForFlags() throws Exception {
+        assertFalse(measurement.parse(bytes(0x00), 0, 1));
+        assertFalse(measurement.parse(bytes(0x01, 0x48), 0, 2));
+        assertFalse(measurement.parse(bytes(0x08, 0x48, 0x10), 0, 3));
+        assertFalse(measurement.parse(bytes(0x06, 0x48, 0x00), 1, 1));
+    }
+}
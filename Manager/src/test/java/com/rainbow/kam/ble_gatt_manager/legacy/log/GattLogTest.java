@@ -0,0 +1,159 @@
+package com.rainbow.kam.ble_gatt_manager.legacy.log;
+
+import com.rainbow.kam.ble_gatt_manager.legacy.model.GattRecord;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.UUID;
+
+import static com.rainbow.kam.ble_gatt_manager.legacy.log.GattLogFormat.HEADER_SIZE;
+import static com.rainbow.kam.ble_gatt_manager.legacy.log.GattLogFormat.RECORD_SIZE;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.GATT_FAILURE;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.GATT_SUCCESS;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_DISCOVER;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_NOTIFICATION;
+import static com.rainbow.kam.ble_gatt_manager.legacy.util.GattRecodes.TYPE_READ;
+import static org.junit.Assert.*;
+
+public class GattLogTest {
+
+    private static final UUID HEART_RATE_MEASUREMENT = UUID.fromString("00002a37-0000-1000-8000-00805f9b34fb");
+
+    // four records with a payload of up to 8 bytes fill one segment
+    private static final int SMALL_SEGMENT_SIZE = HEADER_SIZE + 4 * (RECORD_SIZE + 8);
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void roundTrip_readsBackEveryField() throws Exception {
+        File directory = folder.newFolder();
+        try (GattLogWriter writer = new GattLogWriter(directory)) {
+            writer.append(GattRecord.obtain(null, TYPE_NOTIFICATION, HEART_RATE_MEASUREMENT, GATT_SUCCESS, new byte[]{0x06, 0x48}));
+            writer.append(GattRecord.obtain(null, TYPE_DISCOVER, null, GATT_FAILURE, null));
+            writer.append(GattRecord.obtain(null, TYPE_READ, HEART_RATE_MEASUREMENT, GATT_SUCCESS, new byte[0]));
+        }
+
+        try (GattLogReader reader = new GattLogReader(directory)) {
+            assertTrue(reader.next());
+            assertEquals(TYPE_NOTIFICATION, reader.getOperationType());
+            assertEquals(GATT_SUCCESS, reader.getState());
+            assertTrue(reader.hasOperationUUID());
+            assertEquals(HEART_RATE_MEASUREMENT, reader.getOperationUUID());
+            assertArrayEquals(new byte[]{0x06, 0x48}, reader.getPayload());
+            long firstTimestamp = reader.getTimestampNanos();
+
+            assertTrue(reader.next());
+            assertEquals(TYPE_DISCOVER, reader.getOperationType());
+            assertEquals(GATT_FAILURE, reader.getState());
+            assertFalse(reader.hasOperationUUID());
+            assertFalse(reader.hasPayload());
+            assertNull(reader.getPayload());
+            assertTrue(reader.getTimestampNanos() >= firstTimestamp);
+
+            assertTrue(reader.next());
+            assertEquals(TYPE_READ, reader.getOperationType());
+            assertArrayEquals(new byte[0], reader.getPayload());
+
+            assertFalse(reader.next());
+            assertEquals(0, reader.getCorruptedSegmentCount());
+        }
+    }
+
+
+    @Test
+    public void append_rollsOverToNextSegmentWhenFull() throws Exception {
+        File directory = folder.newFolder();
+        try (GattLogWriter writer = new GattLogWriter(directory, SMALL_SEGMENT_SIZE)) {
+            for (int i = 0; i < 10; i++) {
+                writer.append(GattRecord.obtain(null, TYPE_NOTIFICATION, HEART_RATE_MEASUREMENT, GATT_SUCCESS, new byte[]{(byte) i}));
+            }
+        }
+        assertEquals(3, GattLogFormat.listSegments(directory).length);
+
+        try (GattLogReader reader = new GattLogReader(directory)) {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(reader.next());
+                assertArrayEquals(new byte[]{(byte) i}, reader.getPayload());
+            }
+            assertFalse(reader.next());
+            assertEquals(0, reader.getCorruptedSegmentCount());
+        }
+    }
+
+
+    @Test
+    public void append_dropsPayloadLargerThanSegment() throws Exception {
+        File directory = folder.newFolder();
+        try (GattLogWriter writer = new GattLogWriter(directory, SMALL_SEGMENT_SIZE)) {
+            writer.append(GattRecord.obtain(null, TYPE_NOTIFICATION, HEART_RATE_MEASUREMENT, GATT_SUCCESS, new byte[SMALL_SEGMENT_SIZE]));
+        }
+
+        try (GattLogReader reader = new GattLogReader(directory)) {
+            assertTrue(reader.next());
+            assertFalse(reader.hasPayload());
+            assertEquals(SMALL_SEGMENT_SIZE, reader.getPayloadLength());
+            assertFalse(reader.next());
+        }
+    }
+
+
+    @Test
+    public void reopen_appendsToUnsealedSegmentWithItsOwnSize() throws Exception {
+        File directory = folder.newFolder();
+        GattLogWriter writer = new GattLogWriter(directory, SMALL_SEGMENT_SIZE);
+        writer.append(GattRecord.obtain(null, TYPE_NOTIFICATION, HEART_RATE_MEASUREMENT, GATT_SUCCESS, new byte[]{1}));
+        writer.flush();
+
+        try (GattLogWriter reopened = new GattLogWriter(directory, 2 * SMALL_SEGMENT_SIZE)) {
+            reopened.append(GattRecord.obtain(null, TYPE_NOTIFICATION, HEART_RATE_MEASUREMENT, GATT_SUCCESS, new byte[]{2}));
+        }
+        File[] segments = GattLogFormat.listSegments(directory);
+        assertEquals(1, segments.length);
+        assertEquals(SMALL_SEGMENT_SIZE, segments[0].length());
+
+        try (GattLogReader reader = new GattLogReader(directory)) {
+            assertTrue(reader.next());
+            assertArrayEquals(new byte[]{1}, reader.getPayload());
+            assertTrue(reader.next());
+            assertArrayEquals(new byte[]{2}, reader.getPayload());
+            assertFalse(reader.next());
+        }
+    }
+
+
+    @Test
+    public void close_startsNewSegmentOnReopen() throws Exception {
+        File directory = folder.newFolder();
+        new GattLogWriter(directory, SMALL_SEGMENT_SIZE).close();
+        new GattLogWriter(directory, SMALL_SEGMENT_SIZE).close();
+
+        assertEquals(2, GattLogFormat.listSegments(directory).length);
+    }
+
+
+    @Test
+    public void recodeGatt_dropsRecordsAfterClose() throws Exception {
+        File directory = folder.newFolder();
+        GattLogWriter writer = new GattLogWriter(directory);
+        writer.recodeGatt(GattRecord.obtain(null, TYPE_NOTIFICATION, HEART_RATE_MEASUREMENT, GATT_SUCCESS, new byte[]{1}));
+        writer.close();
+        writer.recodeGatt(GattRecord.obtain(null, TYPE_NOTIFICATION, HEART_RATE_MEASUREMENT, GATT_SUCCESS, new byte[]{2}));
+
+        try (GattLogReader reader = new GattLogReader(directory)) {
+            assertTrue(reader.next());
+            assertFalse(reader.next());
+        }
+    }
+
+
+    @Test(expected = IllegalStateException.class)
+    public void append_failsAfterClose() throws Exception {
+        GattLogWriter writer = new GattLogWriter(folder.newFolder());
+        writer.close();
+        writer.append(GattRecord.obtain(null, TYPE_NOTIFICATION, HEART_RATE_MEASUREMENT, GATT_SUCCESS, null));
+    }
+}
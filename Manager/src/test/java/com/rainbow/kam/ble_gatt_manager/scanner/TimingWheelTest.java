@@ -0,0 +1,126 @@
+package com.rainbow.kam.ble_gatt_manager.scanner;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TimingWheelTest {
+
+    private static final long HORIZON = 1000;
+
+
+    @Test
+    public void advance_expiresOnlyPassedDeadlines() throws Exception {
+        TimingWheel<TimingWheel.Node> wheel = new TimingWheel<>(HORIZON);
+        TimingWheel.Node early = node(100);
+        TimingWheel.Node late = node(900);
+        wheel.schedule(early);
+        wheel.schedule(late);
+        List<TimingWheel.Node> expired = Lists.newArrayList();
+
+        wheel.advance(50, expired);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(500, expired);
+        assertEquals(Lists.newArrayList(early), expired);
+        assertEquals(1, wheel.size());
+
+        wheel.advance(1000, expired);
+        assertEquals(Lists.newArrayList(early, late), expired);
+        assertEquals(0, wheel.size());
+    }
+
+
+    @Test
+    public void advance_relinksNodeWhoseDeadlineMovedForward() throws Exception {
+        TimingWheel<TimingWheel.Node> wheel = new TimingWheel<>(HORIZON);
+        TimingWheel.Node node = node(100);
+        wheel.schedule(node);
+        node.deadlineNanos = 700;
+        List<TimingWheel.Node> expired = Lists.newArrayList();
+
+        wheel.advance(300, expired);
+        assertTrue(expired.isEmpty());
+        assertEquals(1, wheel.size());
+
+        node.deadlineNanos = 1500;
+        wheel.advance(1000, expired);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(1600, expired);
+        assertEquals(Lists.newArrayList(node), expired);
+        assertEquals(0, wheel.size());
+    }
+
+
+    @Test
+    public void advance_keepsDeadlinesBeyondWheelSpan() throws Exception {
+        TimingWheel<TimingWheel.Node> wheel = new TimingWheel<>(HORIZON);
+        TimingWheel.Node first = node(10);
+        TimingWheel.Node far = node(20 * HORIZON);
+        wheel.schedule(first);
+        wheel.schedule(far);
+        List<TimingWheel.Node> expired = Lists.newArrayList();
+
+        for (long now = 0; now < 20 * HORIZON; now += HORIZON / 4) {
+            wheel.advance(now, expired);
+        }
+        assertEquals(Lists.newArrayList(first), expired);
+
+        wheel.advance(20 * HORIZON + 1, expired);
+        assertEquals(Lists.newArrayList(first, far), expired);
+    }
+
+
+    @Test
+    public void advance_expiresEverythingAfterLongPause() throws Exception {
+        TimingWheel<TimingWheel.Node> wheel = new TimingWheel<>(HORIZON);
+        for (int i = 0; i < 100; i++) {
+            wheel.schedule(node(i * 37));
+        }
+        List<TimingWheel.Node> expired = Lists.newArrayList();
+
+        wheel.advance(100 * HORIZON, expired);
+
+        assertEquals(100, expired.size());
+        assertEquals(0, wheel.size());
+    }
+
+
+    @Test
+    public void schedule_acceptsExpiredNodeAgain() throws Exception {
+        TimingWheel<TimingWheel.Node> wheel = new TimingWheel<>(HORIZON);
+        TimingWheel.Node node = node(100);
+        wheel.schedule(node);
+        List<TimingWheel.Node> expired = Lists.newArrayList();
+        wheel.advance(200, expired);
+
+        node.deadlineNanos = 400;
+        wheel.schedule(node);
+        wheel.advance(300, expired);
+        assertEquals(1, expired.size());
+
+        wheel.advance(500, expired);
+        assertEquals(2, expired.size());
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void schedule_rejectsScheduledNode() throws Exception {
+        TimingWheel<TimingWheel.Node> wheel = new TimingWheel<>(HORIZON);
+        TimingWheel.Node node = node(100);
+        wheel.schedule(node);
+        wheel.schedule(node);
+    }
+
+
+    private static TimingWheel.Node node(long deadlineNanos) {
+        TimingWheel.Node node = new TimingWheel.Node();
+        node.deadlineNanos = deadlineNanos;
+        return node;
+    }
+}
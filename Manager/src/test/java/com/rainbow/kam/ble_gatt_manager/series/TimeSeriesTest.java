@@ -0,0 +1,121 @@
+package com.rainbow.kam.ble_gatt_manager.series;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TimeSeriesTest {
+
+    private static final long MILLIS = 1000000L;
+
+
+    @Test
+    public void range_decodesEverySampleAcrossBlocks() throws Exception {
+        TimeSeries series = new TimeSeries();
+        List<Sample> expected = appendRandomSamples(series, 3 * SampleBlock.MAX_SAMPLES + 17);
+
+        assertSamples(expected, series.range(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(expected.size(), series.getSampleCount());
+    }
+
+
+    @Test
+    public void range_returnsOnlySamplesInside() throws Exception {
+        TimeSeries series = new TimeSeries();
+        for (int i = 0; i < 2 * SampleBlock.MAX_SAMPLES; i++) {
+            series.append(i * MILLIS, new byte[]{(byte) i});
+        }
+
+        List<Sample> samples = Lists.newArrayList(series.range(1000 * MILLIS, 1100 * MILLIS));
+        assertEquals(101, samples.size());
+        assertEquals(1000 * MILLIS, samples.get(0).getTimestampNanos());
+        assertEquals(1100 * MILLIS, samples.get(100).getTimestampNanos());
+        assertFalse(series.range(-2 * MILLIS, -MILLIS).iterator().hasNext());
+    }
+
+
+    @Test
+    public void append_keepsTimestampsNonDecreasing() throws Exception {
+        TimeSeries series = new TimeSeries();
+        series.append(10 * MILLIS, new byte[]{1});
+        series.append(5 * MILLIS, new byte[]{2});
+        series.append(20 * MILLIS, new byte[]{3});
+
+        List<Sample> samples = Lists.newArrayList(series.range(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(10 * MILLIS, samples.get(0).getTimestampNanos());
+        assertEquals(10 * MILLIS, samples.get(1).getTimestampNanos());
+        assertArrayEquals(new byte[]{2}, samples.get(1).getPayload());
+        assertEquals(20 * MILLIS, samples.get(2).getTimestampNanos());
+    }
+
+
+    @Test
+    public void append_encodesSlowlyChangingPayloadsSmallerThanRaw() throws Exception {
+        TimeSeries series = new TimeSeries();
+        for (int i = 0; i < 1000; i++) {
+            series.append(i * 1000 * MILLIS, new byte[]{0x16, (byte) (60 + i % 3), 0x00, 0x04});
+        }
+
+        assertEquals(1000 * (8 + 4), series.getRawSize());
+        assertTrue(series.getEncodedSize() * 2 < series.getRawSize());
+    }
+
+
+    @Test
+    public void writeTo_readFrom_keepsSealedAndOpenBlocks() throws Exception {
+        TimeSeries series = new TimeSeries();
+        List<Sample> expected = appendRandomSamples(series, SampleBlock.MAX_SAMPLES + 5);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        series.writeTo(new DataOutputStream(bytes));
+
+        TimeSeries restored = TimeSeries.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertSamples(expected, restored.range(Long.MIN_VALUE, Long.MAX_VALUE));
+        long last = expected.get(expected.size() - 1).getTimestampNanos();
+        restored.append(last - MILLIS, new byte[]{7});
+        List<Sample> samples = Lists.newArrayList(restored.range(last, Long.MAX_VALUE));
+        assertEquals(last, samples.get(samples.size() - 1).getTimestampNanos());
+    }
+
+
+    private static List<Sample> appendRandomSamples(TimeSeries series, int count) {
+        Random random = new Random(count);
+        List<Sample> samples = Lists.newArrayList();
+        long timestamp = 1000 * MILLIS;
+        byte[] payload = new byte[0];
+        for (int i = 0; i < count; i++) {
+            // irregular intervals so delta of deltas goes both ways, payloads changing in place or in length
+            timestamp += random.nextInt(3) == 0 ? random.nextInt(200) * MILLIS : 40 * MILLIS;
+            if (random.nextInt(10) == 0) {
+                payload = new byte[random.nextInt(20)];
+            } else {
+                payload = payload.clone();
+            }
+            if (payload.length > 0) {
+                payload[random.nextInt(payload.length)] = (byte) random.nextInt();
+            }
+            series.append(timestamp, payload);
+            samples.add(new Sample(timestamp, payload.clone()));
+        }
+        return samples;
+    }
+
+
+    private static void assertSamples(List<Sample> expected, Iterable<Sample> actual) {
+        List<Sample> samples = Lists.newArrayList(actual);
+        assertEquals(expected.size(), samples.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getTimestampNanos(), samples.get(i).getTimestampNanos());
+            assertArrayEquals(expected.get(i).getPayload(), samples.get(i).getPayload());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.rainbow.kam.ble_gatt_manager.util;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HexDecoderTest {
+
+    private static final byte[] DECODED = {0x0A, 0x1B, 0x2C, 0x3D, 0x4E, 0x5F, 0x60};
+    private static final String HEX = "0x0A:1b-2C 3d,4e_5F\r\n60";
+
+
+    @Test
+    public void decode_skipsSeparatorsAndPrefixes() throws Exception {
+        assertArrayEquals(DECODED, HexDecoder.decode(HEX));
+        assertArrayEquals(new byte[]{(byte) 0xFF, 0x00}, HexDecoder.decode("0xFF 0x00"));
+        assertArrayEquals(new byte[0], HexDecoder.decode(""));
+    }
+
+
+    @Test
+    public void feed_decodesInputSplitAnywhere() throws Exception {
+        for (int split = 0; split <= HEX.length(); split++) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            List<Integer> chunkSizes = Lists.newArrayList();
+            HexDecoder decoder = new HexDecoder(3, chunk -> {
+                chunkSizes.add(chunk.remaining());
+                while (chunk.hasRemaining()) {
+                    output.write(chunk.get());
+                }
+            });
+
+            decoder.feed(HEX.substring(0, split));
+            decoder.feed(HEX.substring(split));
+            decoder.finish();
+
+            assertArrayEquals("split at " + split, DECODED, output.toByteArray());
+            assertEquals(Lists.newArrayList(3, 3, 1), chunkSizes);
+            assertEquals(DECODED.length, decoder.getDecodedCount());
+        }
+    }
+
+
+    @Test
+    public void feed_readsReaderAndAsciiBuffer() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        HexDecoder decoder = new HexDecoder(4, chunk -> {
+            while (chunk.hasRemaining()) {
+                output.write(chunk.get());
+            }
+        });
+
+        decoder.feed(new StringReader(HEX));
+        decoder.feed(ByteBuffer.wrap(" 7a".getBytes(Charset.forName("US-ASCII"))));
+        decoder.finish();
+
+        assertEquals(DECODED.length + 1, output.size());
+        assertEquals(0x7A, output.toByteArray()[DECODED.length]);
+    }
+
+
+    @Test
+    public void finish_doesNotCallSinkWithoutData() throws Exception {
+        List<Integer> chunkSizes = Lists.newArrayList();
+        HexDecoder decoder = new HexDecoder(2, chunk -> chunkSizes.add(chunk.remaining()));
+
+        decoder.feed("0102");
+        decoder.finish();
+
+        assertEquals(Lists.newArrayList(2), chunkSizes);
+    }
+
+
+    @Test(expected = NumberFormatException.class)
+    public void finish_rejectsOddNumberOfDigits() throws Exception {
+        HexDecoder decoder = new HexDecoder(4, chunk -> {
+        });
+        decoder.feed("0A1");
+        decoder.finish();
+    }
+
+
+    @Test(expected = NumberFormatException.class)
+    public void decode_rejectsOddNumberOfDigits() throws Exception {
+        HexDecoder.decode("ABC");
+    }
+
+
+    @Test(expected = NumberFormatException.class)
+    public void decode_rejectsSeparatorInsideByte() throws Exception {
+        HexDecoder.decode("A B");
+    }
+
+
+    @Test(expected = NumberFormatException.class)
+    public void decode_rejectsInvalidCharacter() throws Exception {
+        HexDecoder.decode("0G");
+    }
+
+
+    @Test(expected = NumberFormatException.class)
+    public void decode_rejectsNonAsciiCharacter() throws Exception {
+        HexDecoder.decode("0\u00E9");
+    }
+}
@@ -0,0 +1,186 @@
+package com.rainbow.kam.ble_gatt_manager.util;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class IntelHexDecoderTest {
+
+    private static final String END_OF_FILE = ":00000001FF";
+
+    private final List<String> chunks = Lists.newArrayList();
+
+
+    @Test
+    public void feed_coalescesContiguousDataRecords() throws Exception {
+        IntelHexDecoder decoder = decoder(16);
+
+        decoder.feed(lines(
+                record(0x00, 0x0100, 0x01, 0x02, 0x03),
+                record(0x00, 0x0103, 0x04, 0x05),
+                record(0x00, 0x0200, 0x06),
+                END_OF_FILE));
+        decoder.finish();
+
+        assertEquals(Lists.newArrayList("100:0102030405", "200:06"), chunks);
+        assertEquals(6, decoder.getDecodedCount());
+    }
+
+
+    @Test
+    public void feed_flushesFullChunks() throws Exception {
+        IntelHexDecoder decoder = decoder(2);
+
+        decoder.feed(lines(record(0x00, 0x0000, 0x01, 0x02, 0x03, 0x04, 0x05), END_OF_FILE));
+        decoder.finish();
+
+        assertEquals(Lists.newArrayList("0:0102", "2:0304", "4:05"), chunks);
+    }
+
+
+    @Test
+    public void feed_appliesExtendedAddresses() throws Exception {
+        IntelHexDecoder decoder = decoder(16);
+
+        decoder.feed(lines(
+                record(0x04, 0x0000, 0x00, 0x08),
+                record(0x00, 0x0010, 0xAA),
+                record(0x02, 0x0000, 0x12, 0x00),
+                record(0x00, 0x0004, 0xBB),
+                record(0x05, 0x0000, 0x00, 0x08, 0x01, 0x23),
+                END_OF_FILE));
+        decoder.finish();
+
+        assertEquals(Lists.newArrayList("80010:aa", "12004:bb"), chunks);
+        assertEquals(0x00080123L, decoder.getStartAddress());
+    }
+
+
+    @Test
+    public void feed_readsStartSegmentAddress() throws Exception {
+        IntelHexDecoder decoder = decoder(16);
+
+        decoder.feed(lines(record(0x03, 0x0000, 0x12, 0x34, 0x00, 0x10), END_OF_FILE));
+        decoder.finish();
+
+        assertEquals(0x12340L + 0x10, decoder.getStartAddress());
+        assertTrue(chunks.isEmpty());
+    }
+
+
+    @Test
+    public void feed_decodesInputSplitAnywhere() throws Exception {
+        String hex = lines(record(0x00, 0x0000, 0x10, 0x20, 0x30), record(0x00, 0x0003, 0x40), END_OF_FILE).replace("\n", "\r\n");
+        for (int split = 0; split <= hex.length(); split++) {
+            chunks.clear();
+            IntelHexDecoder decoder = decoder(16);
+
+            decoder.feed(hex.substring(0, split).toCharArray(), 0, split);
+            decoder.feed(new StringReader(hex.substring(split)));
+            decoder.finish();
+
+            assertEquals("split at " + split, Lists.newArrayList("0:10203040"), chunks);
+        }
+    }
+
+
+    @Test
+    public void finish_acceptsEndOfFileWithoutNewline() throws Exception {
+        IntelHexDecoder decoder = decoder(16);
+
+        decoder.feed(record(0x00, 0x0000, 0x01) + "\n" + END_OF_FILE);
+        decoder.finish();
+
+        assertEquals(Lists.newArrayList("0:01"), chunks);
+    }
+
+
+    @Test
+    public void feed_rejectsBadChecksum() throws Exception {
+        String corrupted = record(0x00, 0x0000, 0x01, 0x02);
+        corrupted = corrupted.substring(0, corrupted.length() - 2) + "00";
+
+        assertRejected(lines(record(0x00, 0x0000, 0x01), corrupted, END_OF_FILE), "Bad checksum on line 2");
+    }
+
+
+    @Test
+    public void feed_rejectsTruncatedRecords() throws Exception {
+        String record = record(0x00, 0x0000, 0x01, 0x02);
+
+        assertRejected(lines(record.substring(0, record.length() - 1), END_OF_FILE), "Truncated record on line 1");
+        assertRejected(lines(record.substring(0, record.length() - 2), END_OF_FILE), "Truncated record on line 1");
+        assertRejected(lines(":00", END_OF_FILE), "Truncated record on line 1");
+    }
+
+
+    @Test
+    public void feed_rejectsMalformedInput() throws Exception {
+        assertRejected(lines(record(0x00, 0x0000, 0x01), "0100", END_OF_FILE), "Unexpected '0' on line 2");
+        assertRejected(lines(":0G", END_OF_FILE), "Unexpected 'G' on line 1");
+        assertRejected(lines(record(0x06, 0x0000), END_OF_FILE), "Unknown record type 6 on line 1");
+        assertRejected(lines(END_OF_FILE, record(0x00, 0x0000, 0x01)), "Record after end of file on line 2");
+    }
+
+
+    @Test
+    public void finish_rejectsMissingEndOfFile() throws Exception {
+        assertRejected(lines(record(0x00, 0x0000, 0x01)), "Missing end of file record");
+    }
+
+
+    private IntelHexDecoder decoder(int chunkSize) {
+        return new IntelHexDecoder(chunkSize, (address, data) -> {
+            StringBuilder builder = new StringBuilder(Long.toHexString(address)).append(':');
+            while (data.hasRemaining()) {
+                builder.append(String.format("%02x", data.get()));
+            }
+            chunks.add(builder.toString());
+        });
+    }
+
+
+    private void assertRejected(String hex, String message) {
+        try {
+            IntelHexDecoder decoder = decoder(16);
+            decoder.feed(hex);
+            decoder.finish();
+            fail("accepted " + hex);
+        } catch (IOException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+
+    private static String record(int type, int address, int... data) {
+        int[] bytes = new int[4 + data.length];
+        bytes[0] = data.length;
+        bytes[1] = address >> 8 & 0xFF;
+        bytes[2] = address & 0xFF;
+        bytes[3] = type;
+        System.arraycopy(data, 0, bytes, 4, data.length);
+        StringBuilder builder = new StringBuilder(":");
+        int checksum = 0;
+        for (int b : bytes) {
+            builder.append(String.format("%02X", b));
+            checksum += b;
+        }
+        return builder.append(String.format("%02X", -checksum & 0xFF)).toString();
+    }
+
+
+    private static String lines(String... records) {
+        StringBuilder builder = new StringBuilder();
+        for (String record : Arrays.asList(records)) {
+            builder.append(record).append('\n');
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,125 @@
+package com.rainbow.kam.ble_gatt_manager.util;
+
+import com.google.common.collect.Maps;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LongHashMapTest {
+
+    // a map sized for 4 entries has a table of 8 slots
+    private static final int EXPECTED_SIZE = 4;
+    private static final int MASK = 7;
+
+
+    @Test
+    public void remove_shiftsBackCollidingEntries() throws Exception {
+        long[] sameHome = keysWithHome(3, 3);
+        LongHashMap<String> map = new LongHashMap<>(EXPECTED_SIZE);
+        for (long key : sameHome) {
+            map.put(key, Long.toString(key));
+        }
+
+        assertEquals(Long.toString(sameHome[0]), map.remove(sameHome[0]));
+
+        assertNull(map.get(sameHome[0]));
+        assertEquals(Long.toString(sameHome[1]), map.get(sameHome[1]));
+        assertEquals(Long.toString(sameHome[2]), map.get(sameHome[2]));
+        assertEquals(2, map.size());
+    }
+
+
+    @Test
+    public void remove_keepsEntriesWrappingAroundTableEnd() throws Exception {
+        long[] lastSlot = keysWithHome(7, 2);
+        long firstSlot = keysWithHome(0, 1)[0];
+        LongHashMap<String> map = new LongHashMap<>(EXPECTED_SIZE);
+        map.put(lastSlot[0], "a");
+        map.put(lastSlot[1], "b");
+        map.put(firstSlot, "c");
+
+        map.remove(lastSlot[0]);
+
+        assertEquals("b", map.get(lastSlot[1]));
+        assertEquals("c", map.get(firstSlot));
+        map.remove(lastSlot[1]);
+        assertEquals("c", map.get(firstSlot));
+        assertEquals(1, map.size());
+    }
+
+
+    @Test
+    public void remove_doesNotMoveEntryBeforeItsHome() throws Exception {
+        long home2 = keysWithHome(2, 1)[0];
+        long home3 = keysWithHome(3, 1)[0];
+        long[] home2Again = keysWithHome(2, 2);
+        LongHashMap<String> map = new LongHashMap<>(EXPECTED_SIZE);
+        map.put(home2, "a");
+        map.put(home3, "b");
+
+        map.remove(home2);
+
+        assertEquals("b", map.get(home3));
+        assertFalse(map.containsKey(home2));
+        map.put(home2Again[1], "c");
+        assertEquals("c", map.get(home2Again[1]));
+        assertEquals(2, map.size());
+    }
+
+
+    @Test
+    public void put_replacesValueOfExistingKey() throws Exception {
+        LongHashMap<String> map = new LongHashMap<>();
+
+        assertNull(map.put(1L, "a"));
+        assertEquals("a", map.put(1L, "b"));
+
+        assertEquals("b", map.get(1L));
+        assertEquals(1, map.size());
+    }
+
+
+    @Test(expected = NullPointerException.class)
+    public void put_rejectsNullValue() throws Exception {
+        new LongHashMap<String>().put(1L, null);
+    }
+
+
+    @Test
+    public void randomOperations_matchHashMap() throws Exception {
+        Random random = new Random(42);
+        LongHashMap<Long> map = new LongHashMap<>();
+        Map<Long, Long> expected = Maps.newHashMap();
+        for (int i = 0; i < 100000; i++) {
+            // few distinct keys with vendor like upper bits, so tables are dense and probe chains long
+            long key = 0x001A7D0000000000L | random.nextInt(512);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                long value = random.nextLong();
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        assertEquals(expected.size(), map.keys().length);
+        assertEquals(expected.size(), map.values().size());
+    }
+
+
+    private static long[] keysWithHome(int home, int count) {
+        long[] keys = new long[count];
+        for (long key = 0, found = 0; found < count; key++) {
+            if ((LongHashing.mix(key) & MASK) == home) {
+                keys[(int) found++] = key;
+            }
+        }
+        return keys;
+    }
+}